@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CharsetDetector}が1MBの文書の文字セットを推定する時間を、符号化方式毎に計測します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharsetDetectorBenchmark {
+	private static final String TEXT = "吾輩は猫である。名前はまだ無い。どこで生れたかとんと見当がつかぬ。\n"
+		+ "The quick brown fox jumps over the lazy dog.\n";
+	@Param({"UTF-8", "Windows-31J", "EUC-JP", "US-ASCII"})
+	public String charset;
+	private final CharsetDetector detector = new CharsetDetector(StandardCharsets.ISO_8859_1);
+	private ByteBuffer bytes;
+
+	@Setup
+	public void setUp() {
+		final var unit = TEXT.getBytes(Charset.forName(charset));
+		final var data = new byte[1 << 20];
+		for (var i = 0; i < data.length; i += unit.length) {
+			System.arraycopy(unit, 0, data, i, Math.min(unit.length, data.length - i));
+		}
+		bytes = ByteBuffer.wrap(data);
+	}
+
+	@Benchmark
+	public Charset detect() {
+		return detector.detect(bytes);
+	}
+}
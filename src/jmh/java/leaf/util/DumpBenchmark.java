@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Dump}の変換の速度を、変換表を用いる前の実装と比較します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DumpBenchmark {
+	@Param({"65536", "4194304"})
+	public int size;
+	private byte[] data;
+	private final char[] sink = new char[8192];
+
+	@Setup
+	public void setUp() {
+		data = new byte[size];
+		new Random(42).nextBytes(data);
+	}
+
+	private long drain(Reader reader) throws IOException {
+		try (reader) {
+			var total = 0L;
+			for (int n; (n = reader.read(sink, 0, sink.length)) > 0;) total += n;
+			return total;
+		}
+	}
+
+	@Benchmark
+	public long table() throws IOException {
+		return drain(new Dump(new ByteArrayInputStream(data)));
+	}
+
+	@Benchmark
+	public long tableWithOffsets() throws IOException {
+		return drain(new Dump(new ByteArrayInputStream(data), 16, true));
+	}
+
+	@Benchmark
+	public long legacy() throws IOException {
+		return drain(new LegacyDump(new ByteArrayInputStream(data)));
+	}
+
+	/**
+	 * 16バイトずつ読み込み、各桁を文字列に変換していた以前の実装です。
+	 */
+	static final class LegacyDump extends Reader {
+		private final InputStream stream;
+		private final StringBuilder sb = new StringBuilder();
+		private final byte[] buffer = new byte[16];
+
+		LegacyDump(InputStream stream) {
+			this.stream = stream;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			var returnVal = 0;
+			if (sb.length() > 0) {
+				final var buflen = Math.min(len, sb.length());
+				for (var i = 0; i < buflen; i++) cbuf[off + i] = sb.charAt(i);
+				sb.delete(0, buflen);
+				len -= buflen;
+				off += buflen;
+				returnVal += buflen;
+			}
+			int size;
+			while ((size = stream.read(buffer)) > 0) {
+				for (var i = 0; i < size; i++) {
+					var b = buffer[i] & 0xFF;
+					sb.append(Integer.toHexString(b >> 4).toUpperCase());
+					sb.append(Integer.toHexString(b % 16).toUpperCase());
+					sb.append(' ');
+				}
+				sb.append(" ".repeat(Math.max(0, 3 * (16 - size))));
+				sb.append(' ');
+				for (var i = 0; i < size; i++) sb.append(buffer[i] >= 0x20 && buffer[i] <= 0x7E ? (char) buffer[i] : '.');
+				sb.append('\n');
+				if (sb.length() > len) break;
+			}
+			final var lastlen = Math.min(len, sb.length());
+			for (var i = 0; i < lastlen; i++) cbuf[off + i] = sb.charAt(i);
+			sb.delete(0, lastlen);
+			returnVal += lastlen;
+			return (returnVal > 0) ? returnVal : -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			stream.close();
+		}
+	}
+}
@@ -18,6 +18,8 @@ import leaf.edit.ui.SyntaxHighlight;
 import leaf.edit.ui.TextEditorUtils;
 import leaf.edit.ui.ToolBar;
 import leaf.shell.UnknownNameException;
+import leaf.swing.LeafGrepView;
+import leaf.swing.LeafHexView;
 import leaf.swing.TabCloseEvent;
 import leaf.swing.TabCloseListener;
 import leaf.util.LocalizeManager;
@@ -255,6 +257,12 @@ public final class TsEditApp extends Application {
 			if (comp instanceof BasicTextEditor) {
 				return CloseTab.close((BasicTextEditor) comp);
 			}
+			if (comp instanceof LeafGrepView) {
+				((LeafGrepView) comp).cancel();
+			}
+			if (comp instanceof LeafHexView) {
+				((LeafHexView) comp).close();
+			}
 			return true;
 		}
 	}
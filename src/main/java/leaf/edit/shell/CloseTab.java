@@ -59,7 +59,7 @@ public final class CloseTab extends EditorCommand {
 		if (editor.isEdited()) {
 			var opt = JOptionPane.showConfirmDialog(editor, localize.translate("file_is_edited_confirm"), localize.translate("command_name"), JOptionPane.YES_NO_CANCEL_OPTION);
 			if (opt == JOptionPane.CANCEL_OPTION) return false;
-			if (opt == JOptionPane.YES_OPTION && !Save.save()) return false;
+			if (opt == JOptionPane.YES_OPTION && !Save.saveAndWait()) return false;
 		}
 		if (editor.getFile() != null) {
 			History.addRecentFile(editor.getFilePath());
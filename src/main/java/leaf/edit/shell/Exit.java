@@ -5,8 +5,12 @@
 *******************************************************************************/
 package leaf.edit.shell;
 
+import java.io.IOException;
+import javax.swing.*;
+
 import leaf.main.Command;
 import leaf.edit.app.Framework;
+import leaf.util.AtomicFile;
 
 /**
  * テキストエディタと実行環境を終了するコマンドです。
@@ -21,9 +25,31 @@ public final class Exit extends Command {
 
 	/**
 	 * エディタとシステム全体を終了するよう試みます。
+	 * 背景で保存中のファイルの完了を待ってからタブを閉じます。
+	 * 保存に失敗したファイルがある場合は、その通知を表示させて終了を取り消します。
 	 */
 	public static void exit() {
-		if (CloseAllTabs.closeAllTabs()) Framework.shutdown(0);
+		if (!awaitPending()) return;
+		SwingUtilities.invokeLater(() -> {
+			if (!CloseAllTabs.closeAllTabs()) return;
+			if (awaitPending()) Framework.shutdown(0);
+		});
+	}
+
+	/**
+	 * 背景で保存中のファイルの完了を待ちます。
+	 * 失敗の通知と未保存の状態への復帰はイベントキューに積まれるため、
+	 * タブを閉じる処理はそれらの後に実行する必要があります。
+	 *
+	 * @return 全ての保存が成功した場合true
+	 */
+	private static boolean awaitPending() {
+		try {
+			AtomicFile.awaitPending();
+			return true;
+		} catch (IOException ex) {
+			return false;
+		}
 	}
 
 }
@@ -20,6 +20,9 @@ public final class Find extends EditorCommand implements LocaleListener {
 
 	public Find() {
 		dialog = new LeafSearchDialog(getFrame());
+		dialog.addPropertyChangeListener("matchStatus", e -> {
+			getFrame().getStatusBar().setSearchText((String) e.getNewValue());
+		});
 	}
 
 	@Override
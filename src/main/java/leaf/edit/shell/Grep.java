@@ -7,21 +7,28 @@ package leaf.edit.shell;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import javax.swing.*;
 
 import leaf.edit.cmd.EditorCommand;
+import leaf.edit.ui.BasicTextEditor;
 import leaf.edit.ui.TextEditorUtils;
 import leaf.shell.LocaleEvent;
 import leaf.shell.LocaleListener;
 import leaf.swing.LeafDialog;
 import leaf.swing.LeafGrepDialog;
+import leaf.swing.LeafGrepView;
+import leaf.util.GrepHit;
+import leaf.util.LocalizeManager;
 
 /**
  * GREP検索用ダイアログを表示するコマンドです。
+ * 結果は新しいタブに検索の進行とともに表示され、結果を開くとファイルの該当する行に移動します。
  *
  * @author 無線部開発班
  * @since 2013/02/26
  */
 public final class Grep extends EditorCommand implements LocaleListener {
+	private static final LocalizeManager localize = LocalizeManager.get(Grep.class);
 	private static LeafGrepDialog dialog;
 
 	@Override
@@ -35,10 +42,39 @@ public final class Grep extends EditorCommand implements LocaleListener {
 			dialog = new LeafGrepDialog(getFrame());
 			dialog.setCharsetList(TextEditorUtils.getCharsets());
 		}
-		var file = TextEditorUtils.getSelectedEditor().getFile();
-		dialog.setDirectory(file);
+		var comp = TextEditorUtils.getSelectedComponent();
+		if (comp instanceof BasicTextEditor) dialog.setDirectory(((BasicTextEditor) comp).getFile());
 		if (dialog.showDialog() == LeafDialog.OK_OPTION) {
-			TextEditorUtils.addTab("GREP").read(dialog.getResult());
+			var view = new LeafGrepView();
+			view.addActionListener(e -> open(view.getSelectedHit()));
+			var tab = TextEditorUtils.getTabbedPane();
+			tab.add(view, "GREP", tab.getTabCount());
+			tab.setTitleAt(tab.indexOfComponent(view), "GREP", dialog.getPattern().pattern());
+			tab.setSelectedComponent(view);
+			dialog.grep(view);
+		}
+	}
+
+	/**
+	 * 結果のファイルを開いて、該当する行に移動します。
+	 * ファイルを開くのに失敗した場合は、その旨を通知します。
+	 *
+	 * @param hit 結果
+	 */
+	private static void open(GrepHit hit) {
+		if (hit == null) return;
+		try {
+			Open.open(hit.getFile().toFile());
+		} catch (IOException ex) {
+			JOptionPane.showMessageDialog(getFrame(), localize.translate("failed_to_open_hit", hit.getFile(), hit.getLine()), localize.translate("command_name"), JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+		var comp = TextEditorUtils.getSelectedComponent();
+		if (comp instanceof BasicTextEditor) {
+			var editor = (BasicTextEditor) comp;
+			if (hit.getFile().toFile().equals(editor.getFile())) {
+				editor.getScrollPane().scrollToLine(hit.getLine());
+			}
 		}
 	}
 
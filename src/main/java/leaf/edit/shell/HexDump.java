@@ -6,13 +6,12 @@
 package leaf.edit.shell;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import javax.swing.*;
 
 import leaf.edit.cmd.EditorCommand;
 import leaf.edit.ui.TextEditorUtils;
-import leaf.util.Dump;
+import leaf.swing.LeafHexView;
 import leaf.util.LocalizeManager;
 
 /**
@@ -38,19 +37,25 @@ public final class HexDump extends EditorCommand {
 	}
 
 	/**
-	 * 指定されたファイルをダンプしてエディタに表示します。
+	 * 指定されたファイルを16進数ダンプの表示部品で新しいタブに表示します。
+	 * ファイルは必要な範囲だけ読み込まれ、表示されている行のみが整形されます。
+	 * ファイルはタブが閉じられるまで開かれたままになります。
 	 *
 	 * @param file ダンプするファイル
 	 *
 	 * @throws IOException ダンプに失敗した場合
 	 */
 	public static void dump(File file) throws IOException {
-		var editor = TextEditorUtils.addTab(file.getName() + ".dump");
+		var view = new LeafHexView();
 		try {
-			editor.read(new Dump((new FileInputStream(file))));
+			view.open(file.toPath());
 		} catch (IOException ex) {
 			JOptionPane.showMessageDialog(getFrame(), localize.translate("failed_to_dump", file), localize.translate("command_name"), JOptionPane.WARNING_MESSAGE);
 			throw ex;
 		}
+		var tab = TextEditorUtils.getTabbedPane();
+		tab.add(view, file.getName() + ".dump", tab.getTabCount());
+		tab.setTitleAt(tab.indexOfComponent(view), file.getName() + ".dump", file.getAbsolutePath());
+		tab.setSelectedComponent(view);
 	}
 }
@@ -13,6 +13,7 @@ import leaf.edit.cmd.EditorCommand;
 import leaf.edit.ui.BasicTextEditor;
 import leaf.edit.ui.EditorListTask;
 import leaf.edit.ui.TextEditorUtils;
+import leaf.util.CharsetDetector;
 import leaf.util.LocalizeManager;
 
 /**
@@ -102,9 +103,14 @@ public class Open extends EditorCommand {
 			if (task.start()) editor = task.getResult();
 			else editor = TextEditorUtils.addTab((String) null, index);
 			TextEditorUtils.setSelectedEditor(editor);
-			editor.setEncoding(getFileChooser().getSelectedCharset());
+			final var chooser = getFileChooser();
 			try {
-				editor.read(file);
+				if (chooser.isAutoDetectEnabled()) {
+					editor.read(file, new CharsetDetector(chooser.getSelectedCharset()));
+				} else {
+					editor.setEncoding(chooser.getSelectedCharset());
+					editor.read(file);
+				}
 			} catch (IOException ex) {
 				JOptionPane.showMessageDialog(getFrame(), localize.translate("failed_to_open_msg", file), localize.translate("command_name"), JOptionPane.WARNING_MESSAGE);
 				throw ex;
@@ -7,10 +7,13 @@ package leaf.edit.shell;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import javax.swing.*;
 
 import leaf.edit.cmd.EditorCommand;
 import leaf.edit.ui.TextEditorUtils;
+import leaf.util.CharsetDetector;
 import leaf.util.LocalizeManager;
 
 /**
@@ -30,10 +33,16 @@ public final class Reopen extends EditorCommand {
 		var frame = getFrame();
 		var editor = getEditor();
 		if (!CloseTab.prepareToClose(editor)) return;
+		final var file = editor.getFile();
 		var chsets = TextEditorUtils.getCharsets();
-		var chset = (Charset) JOptionPane.showInputDialog(frame, localize.translate("select_charset_input"), localize.translate("command_name"), JOptionPane.QUESTION_MESSAGE, null, chsets, chsets[0]);
+		var guess = new CharsetDetector(chsets[0]).detect(file.toPath());
+		if (!Arrays.asList(chsets).contains(guess)) {
+			final var list = new ArrayList<Charset>(Arrays.asList(chsets));
+			list.add(0, guess);
+			chsets = list.toArray(new Charset[0]);
+		}
+		var chset = (Charset) JOptionPane.showInputDialog(frame, localize.translate("select_charset_input"), localize.translate("command_name"), JOptionPane.QUESTION_MESSAGE, null, chsets, guess);
 		if (chset != null) {
-			final var file = editor.getFile();
 			editor.setEncoding(chset);
 			try {
 				editor.read(file);
@@ -6,6 +6,9 @@
 package leaf.edit.shell;
 
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
 
 import leaf.edit.cmd.EditorCommand;
@@ -30,13 +33,13 @@ public final class Save extends EditorCommand {
 		save();
 	}
 
-	private boolean saveFile() {
+	private boolean saveFile(boolean wait) {
 		final var editor = getEditor();
 		final var file = editor.getFile();
-		if (file == null) return SaveAs.save();
+		if (file == null) return wait ? SaveAs.saveAndWait() : SaveAs.save();
 		try {
-			editor.write(file);
-			return true;
+			final var commit = editor.write(file);
+			return !wait || await(commit);
 		} catch (IOException ex) {
 			JOptionPane.showMessageDialog(getFrame(), localize.translate("failed_to_save_msg", file), localize.translate("command_name"), JOptionPane.WARNING_MESSAGE);
 			return false;
@@ -45,10 +48,40 @@ public final class Save extends EditorCommand {
 
 	/**
 	 * エディタのファイルを上書き保存します。
+	 * ファイルの置き換えは背景処理のスレッドで行われ、その完了は待ちません。
 	 *
-	 * @return ファイルの保存が完了した場合true
+	 * @return ファイルの書き込みが完了した場合true
 	 */
 	public static boolean save() {
-		return instance.saveFile();
+		return instance.saveFile(false);
+	}
+
+	/**
+	 * エディタのファイルを上書き保存して、ファイルの置き換えの完了を待ちます。
+	 * 保存した直後にエディタを閉じる場合に使用します。
+	 *
+	 * @return ファイルの置き換えが完了した場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public static boolean saveAndWait() {
+		return instance.saveFile(true);
+	}
+
+	/**
+	 * ファイルの置き換えの完了を待ちます。
+	 * 失敗した場合の通知はエディタが行います。
+	 *
+	 * @param commit 置き換えの完了を示すオブジェクト
+	 *
+	 * @return 置き換えが完了した場合true
+	 */
+	static boolean await(CompletableFuture<Void> commit) {
+		try {
+			commit.join();
+			return true;
+		} catch (CompletionException | CancellationException ex) {
+			return false;
+		}
 	}
 }
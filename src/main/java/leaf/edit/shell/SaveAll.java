@@ -5,29 +5,121 @@
 *******************************************************************************/
 package leaf.edit.shell;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.*;
+
 import leaf.edit.cmd.Command;
 import leaf.edit.ui.BasicTextEditor;
 import leaf.edit.ui.EditorListTask;
 import leaf.edit.ui.TextEditorUtils;
+import leaf.util.LocalizeManager;
 
 /**
  * 現在開かれている全てのエディタの内容を保存するコマンドです。
+ * <p>
+ * ファイルが設定されたエディタは内容を複製した後に背景処理で並列に保存され、
+ * 進捗はステータスバーに表示されます。進捗の表示をクリックすると、
+ * 書き込みを開始していない保存を取り消します。
  *
  * @author 無線部開発班
  * @since 2012/03/28
  */
 public final class SaveAll extends Command {
+	private final LocalizeManager localize;
+
+	public SaveAll() {
+		localize = LocalizeManager.get(SaveAll.class);
+	}
+
 	@Override
 	public void process(Object... args) {
-		final var tab = TextEditorUtils.getTabbedPane();
+		final var start = System.nanoTime();
+		final var futures = new LinkedHashMap<File, CompletableFuture<Void>>();
+		final var untitled = new ArrayList<BasicTextEditor>();
 		new EditorListTask<>(BasicTextEditor.class) {
 			@Override
 			public boolean process(BasicTextEditor editor) {
-				tab.setSelectedComponent(editor);
-				Save.save();
+				final var file = editor.getFile();
+				if (!editor.isEdited()) return false;
+				if (file == null) untitled.add(editor);
+				else try {
+					futures.put(file, editor.saveLater());
+				} catch (IOException ex) {
+					futures.put(file, CompletableFuture.failedFuture(ex));
+				}
 				return false;
 			}
 		}.start();
+		if (!futures.isEmpty()) showProgress(futures, start);
+		if (!untitled.isEmpty()) saveUntitled(untitled);
+	}
+
+	/**
+	 * 背景処理による保存の進捗をステータスバーに表示し、全ての保存の完了後に結果を表示します。
+	 *
+	 * @param futures 保存するファイルと保存の完了を示すオブジェクト
+	 * @param start   保存を開始した時刻
+	 */
+	private void showProgress(Map<File, CompletableFuture<Void>> futures, long start) {
+		final var bar = getFrame().getStatusBar();
+		final var total = futures.size();
+		bar.setProgress(0, total);
+		bar.setProgressCancelAction(localize.translate("cancel_tip"), () -> {
+			for (var future : futures.values()) future.cancel(false);
+		});
+		for (var future : futures.values()) {
+			future.whenComplete((v, ex) -> SwingUtilities.invokeLater(() -> {
+				final var done = (int) futures.values().stream().filter(CompletableFuture::isDone).count();
+				if (done < total) bar.setProgress(done, total);
+			}));
+		}
+		final var all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[total]));
+		all.whenComplete((v, ex) -> SwingUtilities.invokeLater(() -> showResult(futures, start)));
+	}
+
+	/**
+	 * 保存した件数と所要時間をステータスバーに表示し、失敗したファイルがあれば一覧を表示します。
+	 *
+	 * @param futures 保存したファイルと保存の完了を示すオブジェクト
+	 * @param start   保存を開始した時刻
+	 */
+	private void showResult(Map<File, CompletableFuture<Void>> futures, long start) {
+		final var bar = getFrame().getStatusBar();
+		final var failed = new StringJoiner("<br>");
+		var saved = 0;
+		for (var entry : futures.entrySet()) {
+			final var future = entry.getValue();
+			if (!future.isCompletedExceptionally()) saved++;
+			else if (!future.isCancelled()) failed.add(entry.getKey().toString());
+		}
+		bar.setProgress(0, 0);
+		final var millis = (System.nanoTime() - start) / 1_000_000;
+		bar.setText(localize.translate("saved_text", saved, millis), 0);
+		if (failed.length() > 0) {
+			JOptionPane.showMessageDialog(getFrame(), localize.translate("failed_to_save_msg", failed), localize.translate("command_name"), JOptionPane.WARNING_MESSAGE);
+		}
+	}
+
+	/**
+	 * ファイルが設定されていないエディタを順番に選択して保存し、選択を元に戻します。
+	 *
+	 * @param editors ファイルが設定されていないエディタ
+	 */
+	private void saveUntitled(List<BasicTextEditor> editors) {
+		final var tab = TextEditorUtils.getTabbedPane();
+		final var selected = tab.getSelectedComponent();
+		for (var editor : editors) {
+			tab.setSelectedComponent(editor);
+			Save.save();
+		}
+		if (selected != null && tab.indexOfComponent(selected) >= 0) tab.setSelectedComponent(selected);
 	}
 
 }
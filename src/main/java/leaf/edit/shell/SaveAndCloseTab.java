@@ -16,6 +16,6 @@ import leaf.edit.ui.TextEditorUtils;
 public final class SaveAndCloseTab extends EditorCommand {
 	@Override
 	public void process(Object... args) {
-		if (Save.save()) CloseTab.close(TextEditorUtils.getSelectedEditor());
+		if (Save.saveAndWait()) CloseTab.close(TextEditorUtils.getSelectedEditor());
 	}
 }
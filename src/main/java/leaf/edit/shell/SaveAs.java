@@ -33,7 +33,7 @@ public final class SaveAs extends EditorCommand {
 		save();
 	}
 
-	private boolean saveFile() {
+	private boolean saveFile(boolean wait) {
 		var file = getEditor().getFile();
 		if (file == null) {
 			var tab = TextEditorUtils.getTabbedPane();
@@ -41,10 +41,10 @@ public final class SaveAs extends EditorCommand {
 			file = new File(getFileChooser().getCurrentDirectory(), title);
 			if (!Find.hasSuffix(file)) file = new File(file + ".txt");
 		}
-		return showSaveDialog(file);
+		return showSaveDialog(file, wait);
 	}
 
-	private boolean showSaveDialog(File file) {
+	private boolean showSaveDialog(File file, boolean wait) {
 		var chooser = getFileChooser();
 		chooser.setSelectedFile(file);
 		chooser.setCurrentDirectory(file.getParentFile());
@@ -59,8 +59,8 @@ public final class SaveAs extends EditorCommand {
 			TextEditorUtils.updateTabTitle();
 			History.addRecentFile(file.getPath());
 			try {
-				getEditor().write(file);
-				return true;
+				final var commit = getEditor().write(file);
+				return !wait || Save.await(commit);
 			} catch (IOException ex) {
 				JOptionPane.showMessageDialog(getFrame(), localize.translate("failed_to_save_msg", file), localize.translate("command_name"), JOptionPane.WARNING_MESSAGE);
 			}
@@ -70,10 +70,22 @@ public final class SaveAs extends EditorCommand {
 
 	/**
 	 * ファイル選択画面を表示して名前を付けて保存します。
+	 * ファイルの置き換えは背景処理のスレッドで行われ、その完了は待ちません。
 	 *
-	 * @return ファイルの保存が完了した場合true
+	 * @return ファイルの書き込みが完了した場合true
 	 */
 	public static boolean save() {
-		return instance.saveFile();
+		return instance.saveFile(false);
+	}
+
+	/**
+	 * ファイル選択画面を表示して名前を付けて保存し、ファイルの置き換えの完了を待ちます。
+	 *
+	 * @return ファイルの置き換えが完了した場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public static boolean saveAndWait() {
+		return instance.saveFile(true);
 	}
 }
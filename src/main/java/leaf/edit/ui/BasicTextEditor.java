@@ -6,14 +6,25 @@
 package leaf.edit.ui;
 
 import java.io.*;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
 import javax.swing.undo.UndoManager;
 
 import leaf.edit.app.TsEditApp;
 import leaf.edit.shell.CloseTab;
 import leaf.edit.shell.SetFont;
 import leaf.edit.shell.SetTabSize;
+import leaf.swing.PieceTableContent;
+import leaf.util.AtomicFile;
+import leaf.util.CharsetDetector;
+import leaf.util.LocalizeManager;
 
 /**
  * tseditのテキストエディタの実装です。
@@ -22,6 +33,7 @@ import leaf.edit.shell.SetTabSize;
  * @since 2010年3月16日
  */
 public class BasicTextEditor extends TextEditor {
+	private static final LocalizeManager localize = LocalizeManager.get(BasicTextEditor.class);
 	private final UndoManager undoManager;
 	private final String title;
 	protected boolean isEdited = false;
@@ -182,12 +194,42 @@ public class BasicTextEditor extends TextEditor {
 	 * @throws IOException 入出力エラーの場合
 	 */
 	public void read(File file) throws IOException {
-		try (var stream = new FileInputStream(this.file = file)) {
-			read(new InputStreamReader(stream, encode));
-			var frame = TsEditApp.getMainFrame();
-			frame.getStatusBar().setText(getEncoding(), 1);
+		read(PieceTableContent.load((this.file = file).toPath(), encode));
+		var frame = TsEditApp.getMainFrame();
+		frame.getStatusBar().setText(getEncoding(), 1);
+	}
 
-		}
+	/**
+	 * ファイルの文字セットを推定して文字列を読み込み、エディタを初期化します。
+	 * 推定した文字セットはエディタの文字セットとして設定されます。
+	 *
+	 * @param file     読み込むファイル
+	 * @param detector 文字セットの推定器
+	 *
+	 * @throws IOException 入出力エラーの場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public void read(File file, CharsetDetector detector) throws IOException {
+		final var content = PieceTableContent.load(file.toPath(), detector);
+		this.file = file;
+		this.encode = content.getCharset();
+		read(content);
+		var frame = TsEditApp.getMainFrame();
+		frame.getStatusBar().setText(getEncoding(), 1);
+	}
+
+	/**
+	 * 読み込み済みのコンテンツでエディタを初期化します。
+	 *
+	 * @param content ドキュメントの内容
+	 */
+	@Override
+	public void read(AbstractDocument.Content content) {
+		super.read(content);
+		SyntaxHighlight.update(this);
+		undoManager.discardAllEdits();
+		getDocument().addUndoableEditListener(undoManager);
 	}
 
 	/**
@@ -217,6 +259,20 @@ public class BasicTextEditor extends TextEditor {
 		this.isEdited = false;
 	}
 
+	/**
+	 * エディタの内容を符号化して指定されたチャネルに出力します。
+	 *
+	 * @param channel 出力先
+	 * @param chset   文字セット
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	@Override
+	public void write(WritableByteChannel channel, Charset chset) throws IOException {
+		super.write(channel, chset);
+		this.isEdited = false;
+	}
+
 	/**
 	 * 指定されたファイルから選択領域にテキストを読み込みます。
 	 *
@@ -262,16 +318,107 @@ public class BasicTextEditor extends TextEditor {
 
 	/**
 	 * 指定されたファイルにエディタの内容を保存します。
+	 * 内容は一時ファイルに書き込まれ、保存先のファイルの置き換えは背景処理のスレッドで行われます。
+	 * 置き換えに失敗した場合は、イベントディスパッチスレッドで通知してエディタを未保存の状態に戻します。
 	 *
 	 * @param file  書き込むファイル
 	 * @param chset 文字セット
 	 *
+	 * @return 置き換えの完了を示すオブジェクト
+	 *
 	 * @throws IOException 入出力エラーの場合
 	 */
-	public void write(File file, Charset chset) throws IOException {
-		try (var stream = new FileOutputStream(file)) {
-			write(new OutputStreamWriter(stream, chset));
+	public CompletableFuture<Void> write(File file, Charset chset) throws IOException {
+		final var start = System.nanoTime();
+		final var atomic = new AtomicFile(file.toPath());
+		try {
+			write(atomic.open(), chset);
+		} catch (IOException | RuntimeException ex) {
+			atomic.abort();
+			throw ex;
 		}
+		final var future = atomic.commitLater();
+		future.whenComplete((v, ex) -> SwingUtilities.invokeLater(() -> {
+			if (ex == null) showSaveTime(System.nanoTime() - start);
+			else showSaveFailure(file);
+		}));
+		return future;
+	}
+
+	/**
+	 * エディタの内容を読み取りロックの下で複製し、背景処理のスレッドでファイルに上書き保存します。
+	 * 保存に失敗した場合や取り消された場合は、エディタを未保存の状態に戻します。
+	 * イベントディスパッチスレッドから呼び出す必要があります。
+	 *
+	 * @return 保存の完了を示すオブジェクト 開始前に取り消すと保存されません
+	 *
+	 * @throws IOException 保存先のファイルを解決できない場合
+	 * @throws IllegalStateException ファイルが設定されていない場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public CompletableFuture<Void> saveLater() throws IOException {
+		if (file == null) throw new IllegalStateException("no file");
+		final var atomic = new AtomicFile(file.toPath());
+		final var text = getTextArray();
+		final var chset = encode;
+		final var ls = TextEditorUtils.getLineSeparator();
+		this.isEdited = false;
+		final var future = atomic.commitLater(channel -> {
+			final var out = new LineEncoder(channel, chset, ls);
+			out.write(text, 0, text.length);
+			out.finish();
+		});
+		future.whenComplete((v, ex) -> {
+			if (ex != null) SwingUtilities.invokeLater(() -> this.isEdited = true);
+		});
+		return future;
+	}
+
+	/**
+	 * 読み取りロックの下で文書の文字列を1個の配列に複製します。
+	 *
+	 * @return 文字の配列
+	 */
+	private char[] getTextArray() {
+		final var doc = getDocument();
+		final var seg = new Segment();
+		seg.setPartialReturn(true);
+		doc.readLock();
+		try {
+			final var text = new char[doc.getLength()];
+			for (var pos = 0; pos < text.length; pos += seg.count) {
+				doc.getText(pos, text.length - pos, seg);
+				System.arraycopy(seg.array, seg.offset, text, pos, seg.count);
+			}
+			return text;
+		} catch (BadLocationException ex) {
+			throw new IllegalStateException(ex);
+		} finally {
+			doc.readUnlock();
+		}
+	}
+
+	/**
+	 * 保存に要した時間をステータスバーに表示します。
+	 *
+	 * @param nanos 保存に要した時間(ナノ秒)
+	 */
+	private void showSaveTime(long nanos) {
+		var frame = TsEditApp.getMainFrame();
+		frame.getStatusBar().setText(localize.translate("save_time_text", nanos / 1_000_000), 0);
+	}
+
+	/**
+	 * ファイルの置き換えに失敗したことを通知して、エディタを未保存の状態に戻します。
+	 *
+	 * @param file 保存先のファイル
+	 */
+	private void showSaveFailure(File file) {
+		this.isEdited = true;
+		var frame = TsEditApp.getMainFrame();
+		var msg = localize.translate("failed_to_save_msg", file);
+		JOptionPane.showMessageDialog(frame, msg, localize.translate("save_title"), JOptionPane.WARNING_MESSAGE);
 	}
 
 	/**
@@ -279,13 +426,18 @@ public class BasicTextEditor extends TextEditor {
 	 *
 	 * @param file 書き込むファイル
 	 *
+	 * @return 置き換えの完了を示すオブジェクト
+	 *
 	 * @throws IOException 入出力エラーの場合
+	 *
+	 * @see #write(File, Charset)
 	 */
-	public void write(File file) throws IOException {
-		write(this.file = file, encode);
+	public CompletableFuture<Void> write(File file) throws IOException {
+		final var future = write(this.file = file, encode);
 		var frame = TsEditApp.getMainFrame();
 		frame.getStatusBar().setText(getEncoding(), 1);
 		SyntaxHighlight.update(this);
+		return future;
 	}
 
 	/**
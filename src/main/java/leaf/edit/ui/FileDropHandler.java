@@ -42,7 +42,7 @@ public class FileDropHandler extends StringDropHandler {
 		if (support.isDrop()) try {
 			var data = transferable.getTransferData(javaFileListFlavor);
 			for (Object file : (List<?>) data) {
-				if (file instanceof File) Open.open((File) file);
+				if (file instanceof File && ((File) file).isFile()) Open.open((File) file);
 			}
 			return false;
 		} catch (UnsupportedFlavorException | IOException ex) {
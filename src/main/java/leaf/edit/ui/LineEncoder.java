@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.edit.ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * 改行文字を指定された改行コードに変換しながら、文字列を符号化してチャネルに書き出します。
+ * <p>
+ * 文字列は再利用されるバッファに少しずつ変換されるため、出力する文字列の全体は複製されません。
+ * 符号化できない文字は文字セットの代替文字に置き換えられます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+final class LineEncoder {
+	/**
+	 * 1回に符号化する文字数です。
+	 */
+	private static final int BUFFER_SIZE = 1 << 18;
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final String ls;
+	private final CharBuffer chars;
+	private final ByteBuffer bytes;
+
+	/**
+	 * 出力先と文字セットと改行コードを指定して構築します。
+	 *
+	 * @param channel 出力先
+	 * @param chset   文字セット
+	 * @param ls      改行コード
+	 */
+	public LineEncoder(WritableByteChannel channel, Charset chset, String ls) {
+		this.channel = channel;
+		this.encoder = chset.newEncoder();
+		this.ls = ls;
+		encoder.onMalformedInput(CodingErrorAction.REPLACE);
+		encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		chars = CharBuffer.allocate(BUFFER_SIZE);
+		bytes = ByteBuffer.allocateDirect((int) (BUFFER_SIZE * encoder.maxBytesPerChar()) + 16);
+	}
+
+	/**
+	 * 配列の指定範囲の文字を出力します。
+	 *
+	 * @param array 文字の配列
+	 * @param off   開始位置
+	 * @param len   文字数
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	public void write(char[] array, int off, int len) throws IOException {
+		final var end = off + len;
+		for (var i = off; i < end; i++) {
+			if (chars.remaining() < ls.length()) encode(false);
+			final var ch = array[i];
+			if (ch == '\n') chars.put(ls);
+			else chars.put(ch);
+		}
+	}
+
+	/**
+	 * 残りの文字を符号化して出力します。チャネルは閉じません。
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	public void finish() throws IOException {
+		encode(true);
+		for (var result = encoder.flush(bytes); ; result = encoder.flush(bytes)) {
+			drain();
+			if (result.isUnderflow()) break;
+		}
+	}
+
+	/**
+	 * 文字のバッファを符号化してチャネルに書き出し、文字のバッファを空にします。
+	 *
+	 * @param last 入力の終端の場合true
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	private void encode(boolean last) throws IOException {
+		chars.flip();
+		while (encoder.encode(chars, bytes, last).isOverflow()) drain();
+		drain();
+		chars.compact();
+	}
+
+	/**
+	 * バイトのバッファの内容を全てチャネルに書き出します。
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	private void drain() throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) channel.write(bytes);
+		bytes.clear();
+	}
+}
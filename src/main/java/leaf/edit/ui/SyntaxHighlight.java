@@ -10,9 +10,11 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.logging.Logger;
+import java.util.regex.PatternSyntaxException;
 
 import leaf.edit.app.TsEditApp;
 import leaf.edit.shell.SetSyntaxHighlight;
+import leaf.swing.KeywordLexer;
 import leaf.swing.SyntaxManager;
 import leaf.util.Find;
 import leaf.util.Properties;
@@ -98,16 +100,21 @@ public final class SyntaxHighlight {
 
 	/**
 	 * エディタに構文強調を適用します。
+	 * 規則の正規表現が不正な場合は警告を記録し、規則を用いない{@link KeywordLexer}で強調します。
 	 *
 	 * @param editor 構文強調するエディタ
-	 *
-	 * @throws IOException 構文強調設定の読み込みに失敗した場合
 	 */
 	public static void update(BasicTextEditor editor) {
 		var manager = getSyntaxManager();
 		var doc = editor.getDocument();
 		var suffix = Find.getSuffix(editor.getFile());
-		doc.setKeywordSet(manager.getKeywordSetByExtension(suffix));
+		var set = manager.getKeywordSetByExtension(suffix);
+		try {
+			doc.setKeywordSet(set);
+		} catch (PatternSyntaxException ex) {
+			Logger.getLogger(Logger.GLOBAL_LOGGER_NAME).warning(ex.toString());
+			doc.setLexer(new KeywordLexer(set));
+		}
 		doc.update();
 	}
 }
@@ -14,13 +14,18 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.LinkedList;
 import java.util.List;
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.event.CaretListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.EditorKit;
+import javax.swing.text.Segment;
 
 import leaf.swing.SyntaxDocument;
 import leaf.swing.LeafTextPane;
@@ -386,6 +391,22 @@ public class TextEditor extends MultiSplit {
 		}
 	}
 
+	/**
+	 * 読み込み済みのコンテンツでドキュメントを構築してエディタを初期化します。
+	 *
+	 * @param content ドキュメントの内容
+	 */
+	public void read(AbstractDocument.Content content) {
+		var doc = new SyntaxDocument(content);
+		for (var textpane : textpanes) {
+			textpane.setDocument(doc);
+		}
+		doc.setAutoIndentEnabled(isAutoIndentEnabled);
+		for (var scroll : scrollpanes) {
+			scroll.initialize();
+		}
+	}
+
 	/**
 	 * 選択領域に文字列を読み込みます。
 	 *
@@ -477,20 +498,80 @@ public class TextEditor extends MultiSplit {
 	 */
 	public void write(Writer writer) throws IOException {
 		try (var bwriter = new BufferedWriter(writer)) {
-			int start = 0, end;
-			var text = getText();
-			var ls = TextEditorUtils.getLineSeparator();
-			while ((end = text.indexOf("\n", start)) >= 0) {
-				bwriter.write(text.substring(start, end) + ls);
-				bwriter.flush();
-				start = end + 1;
-			}
-			if (start < text.length()) bwriter.write(text.substring(start));
+			write(0, getDocument().getLength(), bwriter);
 		} finally {
 			if (writer != null) writer.close();
 		}
 	}
 
+	/**
+	 * エディタの内容を符号化して指定されたチャネルに出力します。
+	 * 文書の内容は{@link Segment}を介して少しずつ参照され、改行コードを変換しながら
+	 * 再利用されるバッファで符号化されるため、文書全体の文字列は生成されません。
+	 * 符号化できない文字は文字セットの代替文字に置き換えられます。
+	 *
+	 * @param channel 出力先 このメソッドは閉じません
+	 * @param chset   文字セット
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public void write(WritableByteChannel channel, Charset chset) throws IOException {
+		final var out = new LineEncoder(channel, chset, TextEditorUtils.getLineSeparator());
+		final var doc = getDocument();
+		final var seg = new Segment();
+		seg.setPartialReturn(true);
+		doc.readLock();
+		try {
+			final var length = doc.getLength();
+			for (var pos = 0; pos < length; pos += seg.count) {
+				doc.getText(pos, length - pos, seg);
+				out.write(seg.array, seg.offset, seg.count);
+			}
+		} catch (BadLocationException ex) {
+			throw new IOException(ex);
+		} finally {
+			doc.readUnlock();
+		}
+		out.finish();
+	}
+
+	/**
+	 * 文書の指定範囲を、改行コードを変換しながらWriterに出力します。
+	 *
+	 * @param start  範囲の開始位置
+	 * @param end    範囲の終了位置
+	 * @param writer 出力先
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	private void write(int start, int end, Writer writer) throws IOException {
+		final var ls = TextEditorUtils.getLineSeparator();
+		final var doc = getDocument();
+		final var seg = new Segment();
+		seg.setPartialReturn(true);
+		doc.readLock();
+		try {
+			for (var pos = start; pos < end; pos += seg.count) {
+				doc.getText(pos, end - pos, seg);
+				var from = seg.offset;
+				final var last = seg.offset + seg.count;
+				for (var i = from; i < last; i++) {
+					if (seg.array[i] != '\n') continue;
+					writer.write(seg.array, from, i - from);
+					writer.write(ls);
+					from = i + 1;
+				}
+				writer.write(seg.array, from, last - from);
+			}
+		} catch (BadLocationException ex) {
+			throw new IOException(ex);
+		} finally {
+			doc.readUnlock();
+		}
+	}
+
 	/**
 	 * 選択領域の文字列をWriterに出力します。
 	 *
@@ -500,15 +581,7 @@ public class TextEditor extends MultiSplit {
 	 */
 	public void writeFromSelection(Writer writer) throws IOException {
 		try (var bwriter = new BufferedWriter(writer)) {
-			int start = 0, end;
-			var text = getSelectedText();
-			var ls = TextEditorUtils.getLineSeparator();
-			while ((end = text.indexOf("\n", start)) >= 0) {
-				bwriter.write(text.substring(start, end) + ls);
-				bwriter.flush();
-				start = end + 1;
-			}
-			if (start < text.length()) bwriter.write(text.substring(start));
+			write(textpane.getSelectionStart(), textpane.getSelectionEnd(), bwriter);
 		}
 	}
 }
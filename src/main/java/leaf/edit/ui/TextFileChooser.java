@@ -7,12 +7,13 @@ package leaf.edit.ui;
 
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import javax.swing.*;
-import javax.swing.filechooser.FileFilter;
 
 import leaf.edit.shell.SetFileExtensions;
 import leaf.swing.LeafFileTree;
+import leaf.util.FileClassifier;
 import leaf.util.LocalizeManager;
 
 /**
@@ -29,6 +30,10 @@ public final class TextFileChooser extends JFileChooser {
 
 	private JComboBox<Charset> comb;
 
+	private JCheckBox detect;
+
+	private final FileClassifier<FileType> classifier = new FileClassifier<>(FileType.TEXT, FileType.IMAGE, FileType.BINARY);
+
 	private TextFileChooser() {
 		localize = LocalizeManager.get(getClass());
 		initialize();
@@ -41,6 +46,8 @@ public final class TextFileChooser extends JFileChooser {
 		comb = new JComboBox<>(TextEditorUtils.getCharsets());
 		subpanel.add(comb, BorderLayout.CENTER);
 		comb.setEditable(false);
+		detect = new JCheckBox(localize.translate("label_auto_detect"), true);
+		subpanel.add(detect, BorderLayout.SOUTH);
 		return subpanel;
 	}
 
@@ -61,18 +68,18 @@ public final class TextFileChooser extends JFileChooser {
 
 	/**
 	 * ファイルに対して適切なファイルの種別を選択します。
+	 * 拡張子がどのフィルタにも登録されていない場合は、ファイルの内容から判定します。
 	 *
 	 * @param file ファイル
 	 *
 	 * @return ファイル種別
 	 */
 	public FileType getFileType(File file) {
-		for (var ff : getChoosableFileFilters()) {
-			if (ff.accept(file) && ff instanceof ListFileFilter) {
-				return ((ListFileFilter) ff).getFileType();
-			}
+		try {
+			return classifier.classify(file.toPath());
+		} catch (IOException ex) {
+			return FileType.BINARY;
 		}
-		return FileType.BINARY;
 	}
 
 	/**
@@ -84,6 +91,18 @@ public final class TextFileChooser extends JFileChooser {
 		return (Charset) comb.getSelectedItem();
 	}
 
+	/**
+	 * 文字セットを自動的に判別するか返します。
+	 * 判別できない場合は、選択されている文字セットが用いられます。
+	 *
+	 * @return 自動的に判別する場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public boolean isAutoDetectEnabled() {
+		return detect.isSelected();
+	}
+
 	/**
 	 * ファイル選択コンポーネントを初期化します。
 	 */
@@ -93,8 +112,10 @@ public final class TextFileChooser extends JFileChooser {
 		mainpanel.add(createCharsetComboBoxPanel(), BorderLayout.SOUTH);
 		setAccessory(mainpanel);
 		resetChoosableFileFilters();
-		for (FileFilter filter : SetFileExtensions.getFileFilters()) {
+		classifier.clear();
+		for (var filter : SetFileExtensions.getFileFilters()) {
 			addChoosableFileFilter(filter);
+			for (var ext : filter.getFileNameExtensionList()) classifier.put(ext, filter.getFileType());
 		}
 	}
 
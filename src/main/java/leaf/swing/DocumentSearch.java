@@ -0,0 +1,659 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.EventListenerList;
+import javax.swing.text.Document;
+
+/**
+ * 文書を複製せずに正規表現で検索し、一致箇所の一覧を保持します。
+ * <p>
+ * 一致箇所は文書全体を{@link DocumentSequence}経由で走査して求められ、
+ * パターンが変更されるか文書に文字列が挿入または削除されるまで再利用されます。
+ * 属性の変更は一致箇所に影響しないため無視されます。
+ * 一致箇所は開始位置と終了位置の昇順に並ぶため、前後の一致箇所は二分探索で求められます。
+ * <p>
+ * 背景での走査を有効にすると、走査は専用のスレッドで行われ、
+ * 見つかった一致箇所は少しずつイベントディスパッチスレッドで一覧に追加されます。
+ * 走査中に文書が変更された場合は走査を中断して最初からやり直します。
+ * <p>
+ * 改行を跨がないパターンの場合、文書が変更されると変更された行の範囲のみを走査し直して、
+ * 後続の一致箇所の位置をずらします。
+ * 一覧は変更された位置に空き領域を持ち、空き領域より後の一致箇所の位置のずれは参照されるまで遅延されるため、
+ * 一括置換のように近い位置の変更が続いても、変更毎に後続の一致箇所を全て移動させることはありません。
+ * 改行を跨ぐ可能性のあるパターンの場合は文書全体を走査し直します。
+ * <p>
+ * 一覧の走査が完了していない場合でも、{@link #find(int)}と{@link #findPrevious(int)}で
+ * 指定位置の前後の一致箇所をその場で検索できます。
+ * <p>
+ * 一覧とは別に、{@link #findLater(int, long)}で最初の一致箇所だけを背景で検索できます。
+ * この検索は一覧の走査を待たずに専用のスレッドで行われ、新たな検索を開始するか文書が変更されると取り消され、
+ * 時間の上限を超えると打ち切られます。
+ * <p>
+ * このクラスはイベントディスパッチスレッドから利用する必要があります。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class DocumentSearch implements DocumentListener {
+	/**
+	 * 背景での走査で、一致箇所を一覧に追加する間隔の上限(ナノ秒)です。
+	 */
+	private static final long PUBLISH_NANOS = 50_000_000L;
+	/**
+	 * 背景での走査で、一度に一覧に追加する一致箇所の個数の上限です。
+	 */
+	private static final int PUBLISH_MATCHES = 1 << 12;
+	/**
+	 * 改行を跨ぐ可能性のある正規表現の構文です。
+	 */
+	private static final String MULTILINE_ESCAPES = "DWSsRvHXxu0cpPnrNZzG";
+	/**
+	 * 指定位置より前の一致箇所を検索する際に、最初に走査する範囲の長さです。
+	 */
+	private static final int BACKWARD_CHUNK = 1 << 12;
+	private static final ExecutorService executor;
+	private static final ExecutorService finder;
+
+	static {
+		executor = Executors.newSingleThreadExecutor(task -> {
+			var thread = new Thread(task, DocumentSearch.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		finder = Executors.newSingleThreadExecutor(task -> {
+			var thread = new Thread(task, DocumentSearch.class.getSimpleName() + "-find");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private final Document doc;
+	private final EventListenerList listeners;
+	private Pattern pattern;
+	private boolean lineLocal;
+	private int[] starts, ends;
+	private int count;
+	private int gap;
+	private int shift;
+	private boolean complete;
+	private boolean background;
+	private volatile int generation;
+	private CompletableFuture<int[]> pending;
+
+	/**
+	 * 検索対象の文書を指定して構築します。
+	 * 文書の変更を監視するため、不要になったら{@link #dispose()}を呼び出す必要があります。
+	 *
+	 * @param doc 文書
+	 */
+	public DocumentSearch(Document doc) {
+		this.doc = doc;
+		this.listeners = new EventListenerList();
+		this.starts = new int[16];
+		this.ends = new int[16];
+		doc.addDocumentListener(this);
+	}
+
+	/**
+	 * 文書の監視と背景での走査を終了して一致箇所を破棄します。
+	 */
+	public void dispose() {
+		doc.removeDocumentListener(this);
+		background = false;
+		invalidate();
+	}
+
+	/**
+	 * 検索対象の文書を返します。
+	 *
+	 * @return 文書
+	 */
+	public Document getDocument() {
+		return doc;
+	}
+
+	/**
+	 * 一致箇所の変化を通知するリスナーを追加します。
+	 *
+	 * @param l リスナー
+	 *
+	 * @since 2026/10/17
+	 */
+	public void addChangeListener(ChangeListener l) {
+		listeners.add(ChangeListener.class, l);
+	}
+
+	/**
+	 * 一致箇所の変化を通知するリスナーを削除します。
+	 *
+	 * @param l リスナー
+	 *
+	 * @since 2026/10/17
+	 */
+	public void removeChangeListener(ChangeListener l) {
+		listeners.remove(ChangeListener.class, l);
+	}
+
+	/**
+	 * 一致箇所が変化したことをリスナーに通知します。
+	 */
+	private void fireStateChanged() {
+		final var e = new ChangeEvent(this);
+		for (var l : listeners.getListeners(ChangeListener.class)) l.stateChanged(e);
+	}
+
+	/**
+	 * 検索するパターンを返します。
+	 *
+	 * @return パターン
+	 */
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * 検索するパターンを指定します。
+	 * 文字列とフラグが現在のパターンと等しい場合は一致箇所を再利用します。
+	 *
+	 * @param pattern パターン
+	 */
+	public void setPattern(Pattern pattern) {
+		final var old = this.pattern;
+		if (old != null && pattern != null && old.flags() == pattern.flags() && old.pattern().equals(pattern.pattern())) {
+			return;
+		}
+		this.pattern = pattern;
+		this.lineLocal = pattern != null && isLineLocal(pattern);
+		invalidate();
+	}
+
+	/**
+	 * 一致箇所が改行を含み得ないパターンか保守的に判定します。
+	 * 否定の文字クラスや改行に一致し得るエスケープ、先読みや埋め込みフラグを含む場合は含み得るとみなします。
+	 */
+	private static boolean isLineLocal(Pattern pattern) {
+		final var text = pattern.pattern();
+		final var flags = pattern.flags();
+		if (text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) return false;
+		if ((flags & Pattern.LITERAL) != 0) return true;
+		if ((flags & Pattern.DOTALL) != 0) return false;
+		if ((flags & Pattern.MULTILINE) == 0 && text.indexOf('$') >= 0) return false;
+		if (text.contains("[^")) return false;
+		for (var i = 0; i < text.length() - 1; i++) {
+			final var ch = text.charAt(i);
+			final var next = text.charAt(i + 1);
+			if (ch == '\\') {
+				if (MULTILINE_ESCAPES.indexOf(next) >= 0) return false;
+				i++;
+			} else if (ch == '(' && next == '?' && (i + 2 >= text.length() || text.charAt(i + 2) != ':')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 背景での走査が有効か返します。
+	 *
+	 * @return 有効な場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public boolean isBackgroundScanEnabled() {
+		return background;
+	}
+
+	/**
+	 * 背景での走査を有効にするか指定します。
+	 * 有効にすると、一致箇所の一覧が破棄される度に背景で走査を開始します。
+	 *
+	 * @param background 有効にする場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public void setBackgroundScanEnabled(boolean background) {
+		this.background = background;
+		if (background && !complete) scanLater();
+	}
+
+	/**
+	 * 文書全体の走査が完了しているか返します。
+	 * 完了していない場合、一致箇所の一覧は走査済みの範囲の一致箇所のみを含みます。
+	 *
+	 * @return 完了している場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * 一致箇所の個数を返します。
+	 * 走査が完了していない場合は、走査済みの範囲の個数を返します。
+	 *
+	 * @return 個数 パターンが指定されていない場合は0
+	 */
+	public int getMatchCount() {
+		return count;
+	}
+
+	/**
+	 * 指定された番号の一致箇所の開始位置を返します。
+	 *
+	 * @param index 一致箇所の番号
+	 *
+	 * @return 開始位置
+	 */
+	public int getStart(int index) {
+		if (index < 0 || index >= count) throw new IndexOutOfBoundsException(Integer.toString(index));
+		return start(index);
+	}
+
+	/**
+	 * 指定された番号の一致箇所の終了位置を返します。
+	 *
+	 * @param index 一致箇所の番号
+	 *
+	 * @return 終了位置
+	 */
+	public int getEnd(int index) {
+		if (index < 0 || index >= count) throw new IndexOutOfBoundsException(Integer.toString(index));
+		return end(index);
+	}
+
+	/**
+	 * 空き領域を考慮して、指定された番号の一致箇所の開始位置を返します。
+	 */
+	private int start(int index) {
+		return index < gap ? starts[index] : starts[index + starts.length - count] + shift;
+	}
+
+	/**
+	 * 空き領域を考慮して、指定された番号の一致箇所の終了位置を返します。
+	 */
+	private int end(int index) {
+		return index < gap ? ends[index] : ends[index + starts.length - count] + shift;
+	}
+
+	/**
+	 * 指定位置以降で開始する最初の一致箇所の番号を返します。
+	 *
+	 * @param position 位置
+	 *
+	 * @return 一致箇所の番号 存在しない場合-1
+	 */
+	public int next(int position) {
+		var lo = 0;
+		var hi = count;
+		while (lo < hi) {
+			final var mid = (lo + hi) >>> 1;
+			if (start(mid) < position) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo < count ? lo : -1;
+	}
+
+	/**
+	 * 指定位置以前で終了する最後の一致箇所の番号を返します。
+	 *
+	 * @param position 位置
+	 *
+	 * @return 一致箇所の番号 存在しない場合-1
+	 */
+	public int previous(int position) {
+		var lo = 0;
+		var hi = count;
+		while (lo < hi) {
+			final var mid = (lo + hi) >>> 1;
+			if (end(mid) <= position) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo - 1;
+	}
+
+	/**
+	 * 指定された範囲と完全に一致する一致箇所の番号を返します。
+	 *
+	 * @param start 開始位置
+	 * @param end   終了位置
+	 *
+	 * @return 一致箇所の番号 存在しない場合-1
+	 *
+	 * @since 2026/10/17
+	 */
+	public int indexOf(int start, int end) {
+		final var index = next(start);
+		return index >= 0 && start(index) == start && end(index) == end ? index : -1;
+	}
+
+	/**
+	 * 指定位置以降で開始する最初の一致箇所を検索します。
+	 * 文書全体の走査が完了している場合は一覧から求め、
+	 * 完了していない場合は一覧を待たずに指定位置から文書を走査します。
+	 *
+	 * @param position 検索を開始する位置
+	 *
+	 * @return 一致箇所の開始位置と終了位置の配列 存在しない場合null
+	 *
+	 * @since 2026/10/17
+	 */
+	public int[] find(int position) {
+		if (pattern == null) return null;
+		if (complete) {
+			final var index = next(position);
+			return index < 0 ? null : new int[] {start(index), end(index)};
+		}
+		final var found = new int[2][];
+		doc.render(() -> {
+			final var matcher = pattern.matcher(new DocumentSequence(doc));
+			if (position <= doc.getLength() && matcher.find(Math.max(0, position))) {
+				found[0] = new int[] {matcher.start(), matcher.end()};
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * 指定位置以前で終了する最後の一致箇所を検索します。
+	 * ただし指定位置で開始する空の一致箇所は除きます。
+	 * 文書全体の走査が完了している場合は一覧から求め、
+	 * 完了していない場合は指定位置の手前から範囲を倍々に広げながら文書を走査します。
+	 *
+	 * @param position 検索を開始する位置
+	 *
+	 * @return 一致箇所の開始位置と終了位置の配列 存在しない場合null
+	 *
+	 * @since 2026/10/17
+	 */
+	public int[] findPrevious(int position) {
+		if (pattern == null) return null;
+		if (complete) {
+			var index = previous(position);
+			if (index >= 0 && start(index) == position) index--;
+			return index < 0 ? null : new int[] {start(index), end(index)};
+		}
+		final var found = new int[2][];
+		doc.render(() -> {
+			final var limit = Math.min(position, doc.getLength());
+			final var matcher = pattern.matcher(new DocumentSequence(doc));
+			matcher.useTransparentBounds(true);
+			matcher.useAnchoringBounds(false);
+			for (var chunk = BACKWARD_CHUNK; found[0] == null; chunk *= 2) {
+				final var from = Math.max(0, limit - chunk);
+				matcher.region(from, doc.getLength());
+				int[] last = null;
+				while (matcher.find() && matcher.start() < position) {
+					if (matcher.end() <= position) last = new int[] {matcher.start(), matcher.end()};
+				}
+				if (from == 0) {
+					found[0] = last;
+					break;
+				}
+				if (last != null && last[0] > from) found[0] = last;
+				if (chunk > limit) chunk = limit;
+			}
+		});
+		return found[0];
+	}
+
+	/**
+	 * 指定位置以降で開始する最初の一致箇所を背景で検索します。
+	 * 指定位置以降に存在しない場合は文書の先頭に戻って検索します。
+	 * <p>
+	 * 結果はイベントディスパッチスレッドで、一致箇所の開始位置と終了位置の配列か、
+	 * 存在しない場合はnullで通知されます。
+	 * 時間の上限を超えた場合は{@link TimeoutException}で、
+	 * 正規表現の照合で再帰が深くなり過ぎた場合は{@link StackOverflowError}で失敗します。
+	 * 結果が通知される前に新たな検索を開始するか、パターンや文書が変更されると取り消されます。
+	 *
+	 * @param position 検索を開始する位置
+	 * @param timeout  時間の上限(ミリ秒)
+	 *
+	 * @return 結果
+	 *
+	 * @since 2026/10/17
+	 */
+	public CompletableFuture<int[]> findLater(int position, long timeout) {
+		cancelFind();
+		final var future = new CompletableFuture<int[]>();
+		final var pattern = this.pattern;
+		if (pattern == null) {
+			future.complete(null);
+			return future;
+		}
+		pending = future;
+		final var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		finder.execute(() -> {
+			if (future.isDone()) return;
+			final var seq = DocumentSequence.concurrent(doc, () -> future.isDone() || System.nanoTime() > deadline);
+			try {
+				final var found = find(pattern.matcher(seq), Math.min(position, seq.length()));
+				SwingUtilities.invokeLater(() -> future.complete(found));
+			} catch (CancellationException | IndexOutOfBoundsException ex) {
+				if (!future.isDone()) SwingUtilities.invokeLater(() -> future.completeExceptionally(new TimeoutException()));
+			} catch (StackOverflowError ex) {
+				SwingUtilities.invokeLater(() -> future.completeExceptionally(ex));
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 指定位置以降、存在しなければ先頭以降で最初の一致箇所を検索します。
+	 */
+	private static int[] find(Matcher matcher, int position) {
+		if (matcher.find(position)) return new int[] {matcher.start(), matcher.end()};
+		if (position > 0 && matcher.find(0) && matcher.start() < position) {
+			return new int[] {matcher.start(), matcher.end()};
+		}
+		return null;
+	}
+
+	/**
+	 * {@link #findLater(int, long)}で開始した検索が完了していなければ取り消します。
+	 *
+	 * @since 2026/10/17
+	 */
+	public void cancelFind() {
+		if (pending != null) pending.cancel(false);
+		pending = null;
+	}
+
+	/**
+	 * 一致箇所を破棄し、背景での走査が有効な場合は走査を開始します。
+	 */
+	private void invalidate() {
+		cancelFind();
+		generation++;
+		complete = false;
+		clear();
+		if (background) scanLater();
+		fireStateChanged();
+	}
+
+	/**
+	 * 背景で文書全体の走査を開始します。
+	 */
+	private void scanLater() {
+		final var gen = ++generation;
+		final var pattern = this.pattern;
+		clear();
+		if (pattern == null) {
+			complete = true;
+			return;
+		}
+		executor.execute(() -> scan(pattern, gen));
+	}
+
+	/**
+	 * 背景で文書全体を走査して、一致箇所を少しずつ一覧に追加させます。
+	 * 走査を開始してから文書やパターンが変更された場合は中断します。
+	 * 正規表現の照合で再帰が深くなり過ぎた場合は、それまでの一致箇所で走査を完了したものとします。
+	 */
+	private void scan(Pattern pattern, int gen) {
+		if (gen != generation) return;
+		final var matcher = pattern.matcher(DocumentSequence.concurrent(doc, () -> gen != generation));
+		final var found = new int[PUBLISH_MATCHES * 2];
+		var n = 0;
+		var last = System.nanoTime();
+		try {
+			while (matcher.find()) {
+				found[n++] = matcher.start();
+				found[n++] = matcher.end();
+				final var now = System.nanoTime();
+				if (n == found.length || now - last > PUBLISH_NANOS) {
+					publish(gen, Arrays.copyOf(found, n), false);
+					n = 0;
+					last = now;
+				}
+			}
+			publish(gen, Arrays.copyOf(found, n), true);
+		} catch (CancellationException | IndexOutOfBoundsException ex) {
+		} catch (StackOverflowError ex) {
+			publish(gen, Arrays.copyOf(found, n), true);
+		}
+	}
+
+	/**
+	 * 背景での走査で見つかった一致箇所をイベントディスパッチスレッドで一覧に追加させます。
+	 */
+	private void publish(int gen, int[] found, boolean done) {
+		SwingUtilities.invokeLater(() -> {
+			if (gen != generation) return;
+			for (var i = 0; i < found.length; i += 2) add(found[i], found[i + 1]);
+			complete = done;
+			fireStateChanged();
+		});
+	}
+
+	/**
+	 * 一致箇所を全て破棄します。
+	 */
+	private void clear() {
+		count = 0;
+		gap = 0;
+		shift = 0;
+	}
+
+	/**
+	 * 一致箇所を末尾に追加します。
+	 */
+	private void add(int start, int end) {
+		moveGap(count);
+		insert(start, end);
+	}
+
+	/**
+	 * 一致箇所を空き領域の先頭に挿入します。
+	 */
+	private void insert(int start, int end) {
+		if (count == starts.length) {
+			final var size = Math.max(16, count * 2);
+			final var tail = count - gap;
+			final var newStarts = Arrays.copyOf(starts, size);
+			final var newEnds = Arrays.copyOf(ends, size);
+			System.arraycopy(starts, gap, newStarts, size - tail, tail);
+			System.arraycopy(ends, gap, newEnds, size - tail, tail);
+			starts = newStarts;
+			ends = newEnds;
+		}
+		starts[gap] = start;
+		ends[gap] = end;
+		gap++;
+		count++;
+	}
+
+	/**
+	 * 空き領域を指定された番号の一致箇所の直前に移動させます。
+	 * 空き領域を越えて移動する一致箇所には、遅延している位置のずれを適用または除去します。
+	 */
+	private void moveGap(int index) {
+		final var size = starts.length - count;
+		if (index < gap) {
+			for (var i = gap - 1; i >= index; i--) {
+				starts[i + size] = starts[i] - shift;
+				ends[i + size] = ends[i] - shift;
+			}
+		} else {
+			for (var i = gap; i < index; i++) {
+				starts[i] = starts[i + size] + shift;
+				ends[i] = ends[i + size] + shift;
+			}
+		}
+		gap = index;
+		if (gap == count) shift = 0;
+	}
+
+	/**
+	 * 文書の変更に合わせて一致箇所を更新します。
+	 * 走査が完了していて改行を跨がないパターンの場合は、変更された行の範囲のみを走査し直します。
+	 * 変更された範囲の一致箇所を空き領域に置き換え、後続の一致箇所の位置のずれは遅延させます。
+	 *
+	 * @param offset 変更後の文書で、変更された範囲の開始位置
+	 * @param end    変更後の文書で、変更された範囲の終了位置
+	 * @param delta  文書の長さの変化量
+	 */
+	private void update(int offset, int end, int delta) {
+		cancelFind();
+		if (!complete || !lineLocal) {
+			invalidate();
+			return;
+		}
+		final var root = doc.getDefaultRootElement();
+		final var lineStart = root.getElement(root.getElementIndex(offset)).getStartOffset();
+		final var lineEnd = root.getElement(root.getElementIndex(end)).getEndOffset() - 1;
+		final var lo = next(lineStart) < 0 ? count : next(lineStart);
+		final var hi = next(lineEnd - delta + 1) < 0 ? count : next(lineEnd - delta + 1);
+		final var matcher = pattern.matcher(new DocumentSequence(doc));
+		matcher.useTransparentBounds(true);
+		matcher.useAnchoringBounds(false);
+		matcher.region(lineStart, lineEnd);
+		var found = new int[8];
+		var n = 0;
+		while (matcher.find()) {
+			if (n == found.length) found = Arrays.copyOf(found, n * 2);
+			found[n++] = matcher.start();
+			found[n++] = matcher.end();
+		}
+		moveGap(hi);
+		count -= hi - lo;
+		gap = lo;
+		if (gap < count) shift += delta;
+		else shift = 0;
+		for (var i = 0; i < n; i += 2) insert(found[i], found[i + 1]);
+		fireStateChanged();
+	}
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		update(e.getOffset(), e.getOffset() + e.getLength(), e.getLength());
+	}
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		update(e.getOffset(), e.getOffset(), -e.getLength());
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * 文書の文字列を複製せずに{@link CharSequence}として参照します。
+ * <p>
+ * 文字はコンテンツから部分的に読み出された{@link Segment}を窓として参照され、
+ * 窓の外の文字が要求された場合のみ次の窓が読み出されます。
+ * 正規表現のように前から順に文字を参照する処理では、窓の読み出しは断片の数程度で済みます。
+ * <p>
+ * 参照している間に文書が変更されてはならないため、
+ * 呼び出し側で読み取りロックを取得するか、イベントディスパッチスレッドから参照する必要があります。
+ * {@link #concurrent(Document, BooleanSupplier)}で構築した場合は窓を読み出す度に読み取りロックを取得するため、
+ * 他のスレッドから参照できますが、文書が変更された場合に備えて取り消しの条件を指定する必要があります。
+ * 取り消しの条件は窓を読み出す度に加えて、一定の回数だけ文字を参照する度にも検査されるため、
+ * 窓の中で後戻りを繰り返す正規表現の照合も中断できます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class DocumentSequence implements CharSequence {
+	/**
+	 * 他のスレッドから参照する場合に1回に読み出す窓の文字数の上限です。
+	 */
+	private static final int WINDOW = 1 << 16;
+	/**
+	 * 取り消しの条件を検査する間隔となる、文字の参照回数から1を引いた値です。
+	 */
+	private static final int CHECK_MASK = (1 << 10) - 1;
+	private final Document doc;
+	private final int offset;
+	private final int length;
+	private final Segment seg;
+	private final BooleanSupplier cancelled;
+	private int segStart, segEnd;
+	private int reads;
+
+	/**
+	 * 文書全体を参照する文字列を構築します。
+	 *
+	 * @param doc 文書
+	 */
+	public DocumentSequence(Document doc) {
+		this(doc, 0, doc.getLength());
+	}
+
+	/**
+	 * 文書の指定範囲を参照する文字列を構築します。
+	 *
+	 * @param doc    文書
+	 * @param offset 範囲の開始位置
+	 * @param length 範囲の長さ
+	 */
+	public DocumentSequence(Document doc, int offset, int length) {
+		this(doc, offset, length, null);
+	}
+
+	private DocumentSequence(Document doc, int offset, int length, BooleanSupplier cancelled) {
+		this.doc = doc;
+		this.offset = offset;
+		this.length = length;
+		this.seg = new Segment();
+		this.seg.setPartialReturn(true);
+		this.cancelled = cancelled;
+	}
+
+	/**
+	 * イベントディスパッチスレッド以外から文書全体を参照する文字列を構築します。
+	 * <p>
+	 * 窓は読み取りロックを取得して読み出され、その大きさは制限されます。
+	 * 窓を読み出す前と、一定の回数だけ文字を参照する度に取り消しの条件が検査され、
+	 * 条件が成立した場合は{@link CancellationException}が発生します。
+	 * 時間の上限を条件に含めれば、照合に時間のかかる正規表現も打ち切れます。
+	 * 文書が変更された場合に条件が成立するようにすれば、変更された文字列を参照し続けることはありません。
+	 *
+	 * @param doc       文書
+	 * @param cancelled 取り消しの条件
+	 *
+	 * @return 文字列
+	 */
+	public static DocumentSequence concurrent(Document doc, BooleanSupplier cancelled) {
+		return new DocumentSequence(doc, 0, doc.getLength(), cancelled);
+	}
+
+	/**
+	 * 参照している文書を返します。
+	 *
+	 * @return 文書
+	 */
+	public Document getDocument() {
+		return doc;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (cancelled != null && (++reads & CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+			throw new CancellationException();
+		}
+		if (index < segStart || index >= segEnd) load(index);
+		return seg.array[seg.offset + index - segStart];
+	}
+
+	/**
+	 * 指定位置を含む窓を文書から読み出します。
+	 *
+	 * @param index 文字列内の位置
+	 */
+	private void load(int index) {
+		if (index < 0 || index >= length) throw new IndexOutOfBoundsException(Integer.toString(index));
+		if (cancelled == null) {
+			read(index, length - index);
+			return;
+		}
+		if (cancelled.getAsBoolean()) throw new CancellationException();
+		final var failure = new IndexOutOfBoundsException[1];
+		doc.render(() -> {
+			try {
+				read(index, Math.min(length - index, WINDOW));
+			} catch (IndexOutOfBoundsException ex) {
+				failure[0] = ex;
+			}
+		});
+		if (failure[0] != null) throw failure[0];
+	}
+
+	/**
+	 * 指定位置から最大で指定された文字数の窓を読み出します。
+	 */
+	private void read(int index, int count) {
+		try {
+			doc.getText(offset + index, count, seg);
+			segStart = index;
+			segEnd = index + seg.count;
+		} catch (BadLocationException ex) {
+			throw new IndexOutOfBoundsException(ex.getMessage());
+		}
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException(start + ", " + end);
+		}
+		return new DocumentSequence(doc, offset + start, end - start, cancelled);
+	}
+
+	@Override
+	public String toString() {
+		try {
+			return doc.getText(offset, length);
+		} catch (BadLocationException ex) {
+			throw new IndexOutOfBoundsException(ex.getMessage());
+		}
+	}
+}
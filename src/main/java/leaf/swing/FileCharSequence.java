@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.text.Segment;
+
+/**
+ * ファイルの内容を、必要になった区間だけ復号して参照する文字列です。
+ * <p>
+ * 構築時にファイルを1回だけ走査して、一定の文字数毎の区間の開始位置をバイト単位と文字単位で記録します。
+ * 区間の文字は参照された時点でファイルから読み込んで復号され、直近の区間のみがキャッシュされるため、
+ * ファイルの大きさによらずヒープの使用量はほぼ一定です。改行コードはLFに統一されます。
+ * <p>
+ * ファイルはこの文字列が参照されなくなるまで開かれたままになりますが、メモリにはマップされません。
+ * 読み込み後に他のプロセスがファイルを切り詰めた場合や読み込みに失敗した場合、失われた文字は置換文字として返されます。
+ * 区間の途中から復号を再開するため、状態を持つ符号化方式には使用できません。
+ * 文字数は{@link javax.swing.text.Document}の位置の上限を超えてはなりません。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+final class FileCharSequence implements CharSequence {
+	/**
+	 * 1個の区間を復号する際の、改行コードを統一する前の文字数の上限です。
+	 */
+	private static final int BLOCK_CHARS = 1 << 16;
+	/**
+	 * キャッシュする区間の個数です。
+	 */
+	private static final int CACHED_BLOCKS = 32;
+	/**
+	 * 走査の際に1回に読み込むバイト数です。
+	 */
+	private static final int READ_BYTES = 1 << 16;
+	private static final Cleaner cleaner = Cleaner.create();
+	private final FileChannel channel;
+	private final Charset charset;
+	private final long[] byteStarts;
+	private final int[] charStarts;
+	private final boolean[] skipLF;
+	private final int blocks;
+	private final Map<Integer, char[]> cache;
+
+	private FileCharSequence(FileChannel channel, Charset charset, long[] byteStarts, int[] charStarts, boolean[] skipLF, int blocks) {
+		this.channel = channel;
+		this.charset = charset;
+		this.byteStarts = byteStarts;
+		this.charStarts = charStarts;
+		this.skipLF = skipLF;
+		this.blocks = blocks;
+		this.cache = new LinkedHashMap<>(CACHED_BLOCKS * 2, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, char[]> eldest) {
+				return size() > CACHED_BLOCKS;
+			}
+		};
+		cleaner.register(this, new Closer(channel));
+	}
+
+	/**
+	 * ファイルを走査して区間の開始位置を記録し、文字列を構築します。
+	 *
+	 * @param file    ファイル
+	 * @param charset 状態を持たない文字セット
+	 * @param offset  先頭から読み飛ばすバイト数
+	 *
+	 * @return 文字列
+	 *
+	 * @throws IOException 読み込みに失敗した場合や、文字数が上限を超える場合
+	 */
+	static FileCharSequence open(Path file, Charset charset, long offset) throws IOException {
+		final var channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return index(file, channel, charset, offset);
+		} catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	private static FileCharSequence index(Path file, FileChannel channel, Charset charset, long offset) throws IOException {
+		var byteStarts = new long[64];
+		var charStarts = new int[65];
+		var skipLF = new boolean[64];
+		var blocks = 0;
+		final var decoder = newDecoder(charset);
+		final var in = ByteBuffer.allocate(READ_BYTES);
+		final var out = CharBuffer.allocate(BLOCK_CHARS);
+		var position = offset;
+		var consumed = offset;
+		var total = 0L;
+		var pendingCR = false;
+		var eof = false;
+		in.flip();
+		do {
+			if (blocks == byteStarts.length) {
+				byteStarts = Arrays.copyOf(byteStarts, blocks * 2);
+				charStarts = Arrays.copyOf(charStarts, blocks * 2 + 1);
+				skipLF = Arrays.copyOf(skipLF, blocks * 2);
+			}
+			byteStarts[blocks] = consumed;
+			skipLF[blocks] = pendingCR;
+			decoder.reset();
+			out.clear();
+			while (true) {
+				final var before = in.position();
+				final var result = decoder.decode(in, out, eof);
+				consumed += in.position() - before;
+				if (result.isOverflow()) break;
+				if (eof) {
+					decoder.flush(out);
+					break;
+				}
+				in.compact();
+				final var n = channel.read(in, position);
+				if (n < 0) eof = true;
+				else position += n;
+				in.flip();
+			}
+			out.flip();
+			final var count = normalizedLength(out, pendingCR);
+			if (out.hasRemaining()) pendingCR = out.get(out.limit() - 1) == '\r';
+			total += count;
+			if (total >= Integer.MAX_VALUE - 1) throw new IOException("too many characters: " + file);
+			charStarts[++blocks] = (int) total;
+		} while (!eof || in.hasRemaining());
+		return new FileCharSequence(channel, charset, byteStarts, charStarts, skipLF, blocks);
+	}
+
+	/**
+	 * 改行コードをLFに統一した後の文字数を返します。
+	 */
+	private static int normalizedLength(CharBuffer raw, boolean skipLF) {
+		var count = raw.remaining();
+		final var limit = raw.limit();
+		for (var i = raw.position(); i < limit; i++) {
+			if (raw.get(i) != '\n') continue;
+			if (i > raw.position() ? raw.get(i - 1) == '\r' : skipLF) count--;
+		}
+		return count;
+	}
+
+	private static CharsetDecoder newDecoder(Charset charset) {
+		final var decoder = charset.newDecoder();
+		decoder.onMalformedInput(CodingErrorAction.REPLACE);
+		decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		return decoder;
+	}
+
+	@Override
+	public int length() {
+		return charStarts[blocks];
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length()) throw new IndexOutOfBoundsException(Integer.toString(index));
+		final var k = blockOf(index);
+		return block(k)[index - charStarts[k]];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || start > end || end > length()) throw new IndexOutOfBoundsException(start + ", " + end);
+		final var chars = new char[end - start];
+		getChars(start, end, chars, 0);
+		return new String(chars);
+	}
+
+	@Override
+	public String toString() {
+		return subSequence(0, length()).toString();
+	}
+
+	/**
+	 * 指定範囲の文字を配列に複写します。
+	 *
+	 * @param begin  開始位置
+	 * @param end    終了位置
+	 * @param dst    複写先
+	 * @param dstPos 複写先の位置
+	 */
+	void getChars(int begin, int end, char[] dst, int dstPos) {
+		while (begin < end) {
+			final var k = blockOf(begin);
+			final var off = begin - charStarts[k];
+			final var n = Math.min(end, charStarts[k + 1]) - begin;
+			System.arraycopy(block(k), off, dst, dstPos, n);
+			begin += n;
+			dstPos += n;
+		}
+	}
+
+	/**
+	 * 指定位置を含む区間の文字を、複写せずに参照させます。
+	 * 区間の末尾を超える部分は返されません。
+	 *
+	 * @param begin 開始位置
+	 * @param len   文字数の上限
+	 * @param txt   参照先
+	 */
+	void getSegment(int begin, int len, Segment txt) {
+		final var k = blockOf(begin);
+		txt.array = block(k);
+		txt.offset = begin - charStarts[k];
+		txt.count = Math.min(len, charStarts[k + 1] - begin);
+	}
+
+	/**
+	 * 指定位置を含む区間の番号を返します。
+	 */
+	private int blockOf(int index) {
+		var k = Arrays.binarySearch(charStarts, 0, blocks + 1, index);
+		if (k < 0) k = -k - 2;
+		while (k + 1 < blocks && charStarts[k + 1] == index) k++;
+		return k;
+	}
+
+	/**
+	 * 指定された区間の文字を、キャッシュになければ復号して返します。
+	 * 返された配列は変更されないため、呼び出し元で参照し続けても構いません。
+	 */
+	private char[] block(int k) {
+		synchronized (cache) {
+			final var chars = cache.get(k);
+			if (chars != null) return chars;
+		}
+		final var chars = decode(k);
+		synchronized (cache) {
+			cache.put(k, chars);
+		}
+		return chars;
+	}
+
+	/**
+	 * 指定された区間をファイルから読み込んで復号し、改行コードを統一します。
+	 * ファイルが変更されて文字数が合わない場合は、置換文字で補うか切り詰めます。
+	 */
+	private char[] decode(int k) {
+		final var raw = CharBuffer.allocate(BLOCK_CHARS + 1);
+		try {
+			if (k + 1 < blocks) decodeRange(k, raw);
+			else decodeLast(k, raw);
+		} catch (IOException ex) {
+			raw.clear();
+		}
+		return normalize(raw.flip(), k, charStarts[k + 1] - charStarts[k]);
+	}
+
+	/**
+	 * 次の区間の開始位置までを読み込んで復号します。
+	 */
+	private void decodeRange(int k, CharBuffer raw) throws IOException {
+		final var bytes = ByteBuffer.allocate((int) (byteStarts[k + 1] - byteStarts[k]));
+		while (bytes.hasRemaining() && channel.read(bytes, byteStarts[k] + bytes.position()) > 0);
+		final var decoder = newDecoder(charset);
+		decoder.decode(bytes.flip(), raw, true);
+		decoder.flush(raw);
+	}
+
+	/**
+	 * 末尾の区間を、ファイルの末尾まで読み込んで復号します。
+	 */
+	private void decodeLast(int k, CharBuffer raw) throws IOException {
+		final var decoder = newDecoder(charset);
+		final var in = ByteBuffer.allocate(READ_BYTES);
+		var position = byteStarts[k];
+		while (raw.hasRemaining()) {
+			final var n = channel.read(in, position);
+			if (n > 0) position += n;
+			decoder.decode(in.flip(), raw, n < 0);
+			if (n < 0) break;
+			in.compact();
+		}
+		decoder.flush(raw);
+	}
+
+	/**
+	 * 復号した文字の改行コードをLFに統一して、指定された文字数の配列を返します。
+	 */
+	private char[] normalize(CharBuffer raw, int k, int size) {
+		final var chars = new char[size];
+		var w = 0;
+		var prevCR = skipLF[k];
+		while (raw.hasRemaining() && w < size) {
+			final var ch = raw.get();
+			if (ch == '\n' && prevCR) {
+				prevCR = false;
+				continue;
+			}
+			prevCR = ch == '\r';
+			chars[w++] = prevCR ? '\n' : ch;
+		}
+		Arrays.fill(chars, w, size, '\uFFFD');
+		return chars;
+	}
+
+	/**
+	 * 参照されなくなった文字列のファイルを閉じます。
+	 */
+	private static final class Closer implements Runnable {
+		private final FileChannel channel;
+
+		Closer(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void run() {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+			}
+		}
+	}
+}
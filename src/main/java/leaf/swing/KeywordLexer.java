@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+/**
+ * キーワードと1種類ずつの複数行コメント及び行コメントと、文字列リテラルを強調する字句解析器です。
+ * <p>
+ * {@link KeywordSet}に規則が設定されていない場合に用いられる、既定の字句解析器です。
+ * 生成後の字句解析器は不変であり、複数のスレッドから同時に利用できます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class KeywordLexer implements SyntaxLexer {
+	private static final String OPERANDS = ";:{}()[]+-/%<=>!?&|^~*.,";
+	private static final String QUOTATION = "\"'";
+	/**
+	 * 行末が複数行コメントの内部であることを示す状態です。
+	 */
+	private static final int STATE_COMMENT = 1;
+	/**
+	 * ASCII文字が区切り文字であるかを示すビット表です。
+	 */
+	private static final long[] DELIMITERS = new long[2];
+
+	static {
+		for (var ch = 0; ch < 128; ch++) {
+			if (Character.isWhitespace(ch) || OPERANDS.indexOf(ch) >= 0) {
+				DELIMITERS[ch >> 6] |= 1L << ch;
+			}
+		}
+	}
+
+	private final KeywordMatcher keywords;
+	private final String commentStart, commentEnd, commentSingle;
+
+	/**
+	 * キーワードとコメントの記号を指定して字句解析器を構築します。
+	 *
+	 * @param keywords      キーワードの照合器
+	 * @param commentStart  複数行コメントの開始記号 ない場合null
+	 * @param commentEnd    複数行コメントの終了記号 ない場合null
+	 * @param commentSingle 行コメントの開始記号 ない場合null
+	 */
+	public KeywordLexer(KeywordMatcher keywords, String commentStart, String commentEnd, String commentSingle) {
+		this.keywords = keywords != null ? keywords : KeywordMatcher.compile(null);
+		final var multi = !isEmpty(commentStart) && !isEmpty(commentEnd);
+		this.commentStart = multi ? commentStart : null;
+		this.commentEnd = multi ? commentEnd : null;
+		this.commentSingle = isEmpty(commentSingle) ? null : commentSingle;
+	}
+
+	/**
+	 * キーワードセットの設定に従って字句解析器を構築します。
+	 *
+	 * @param set キーワードセット
+	 */
+	public KeywordLexer(KeywordSet set) {
+		this(set.compile(), set.getCommentBlockStart(), set.getCommentBlockEnd(), set.getCommentLineStart());
+	}
+
+	private static boolean isEmpty(String str) {
+		return str == null || str.isEmpty();
+	}
+
+	/**
+	 * コメントの設定を維持したまま、キーワードを置き換えた字句解析器を返します。
+	 *
+	 * @param keywords キーワードの照合器
+	 *
+	 * @return 新しい字句解析器
+	 */
+	public KeywordLexer withKeywords(KeywordMatcher keywords) {
+		return new KeywordLexer(keywords, commentStart, commentEnd, commentSingle);
+	}
+
+	/**
+	 * 指定された文字が区切り文字かどうか返します。
+	 *
+	 * @param ch 調べる文字
+	 *
+	 * @return 区切り文字の場合true
+	 */
+	public static boolean isDelimiter(char ch) {
+		if (ch < 128) return (DELIMITERS[ch >> 6] & (1L << ch)) != 0;
+		return Character.isWhitespace(ch);
+	}
+
+	/**
+	 * 指定された文字が文字列リテラルの区切り文字かどうか返します。
+	 *
+	 * @param ch 調べる文字
+	 *
+	 * @return 区切り文字の場合true
+	 */
+	public static boolean isQuoteDelimiter(char ch) {
+		return QUOTATION.indexOf(ch) >= 0;
+	}
+
+	@Override
+	public int lex(char[] text, int off, int length, int state, TokenSink out) {
+		var pos = 0;
+		while (pos < length) {
+			if (state == STATE_COMMENT) {
+				final var end = indexOf(text, off, length, commentEnd, pos);
+				if (end < 0) {
+					out.add(pos, length - pos, KIND_COMMENT);
+					return STATE_COMMENT;
+				}
+				final var next = end + commentEnd.length();
+				out.add(pos, next - pos, KIND_COMMENT);
+				state = INITIAL_STATE;
+				pos = next;
+				continue;
+			}
+			final var ch = text[off + pos];
+			if (commentStart != null && startsWith(text, off, length, commentStart, pos)) {
+				state = STATE_COMMENT;
+				out.add(pos, commentStart.length(), KIND_COMMENT);
+				pos += commentStart.length();
+			} else if (commentSingle != null && startsWith(text, off, length, commentSingle, pos)) {
+				out.add(pos, length - pos, KIND_COMMENT);
+				return INITIAL_STATE;
+			} else if (isQuoteDelimiter(ch)) {
+				final var end = checkQuoteToken(text, off, length, pos);
+				out.add(pos, end - pos, KIND_QUOTE);
+				pos = end;
+			} else pos = lexWords(text, off, pos, pos + 1, wordLimit(text, off, length, pos), keywords, out);
+		}
+		return state;
+	}
+
+	/**
+	 * 指定位置から始まる単語を延長できる上限の位置を返します。
+	 * 区切り文字に加えて、文字列リテラルとコメントの開始位置でも単語は終わります。
+	 *
+	 * @param text   行の文字列を格納した配列
+	 * @param off    配列内での行の開始位置
+	 * @param length 行の長さ
+	 * @param pos    単語の開始位置
+	 *
+	 * @return 上限の位置
+	 */
+	private int wordLimit(char[] text, int off, int length, int pos) {
+		for (var i = pos + 1; i < length; i++) {
+			final var ch = text[off + i];
+			if (isDelimiter(ch) || isQuoteDelimiter(ch)) return i;
+			if (commentStart != null && startsWith(text, off, length, commentStart, i)) return i;
+			if (commentSingle != null && startsWith(text, off, length, commentSingle, i)) return i;
+		}
+		return length;
+	}
+
+	/**
+	 * 指定範囲の区切り文字で区切られた単語のうち、キーワードに一致するものを出力します。
+	 *
+	 * @param text     行の文字列を格納した配列
+	 * @param off      配列内での行の開始位置
+	 * @param from     範囲の開始位置
+	 * @param to       範囲の終了位置
+	 * @param limit    単語を延長できる上限の位置
+	 * @param keywords キーワードの照合器
+	 * @param out      字句の出力先
+	 *
+	 * @return 走査を終えた位置
+	 */
+	static int lexWords(char[] text, int off, int from, int to, int limit, KeywordMatcher keywords, TokenSink out) {
+		var pos = from;
+		while (pos < to) {
+			if (isDelimiter(text[off + pos])) {
+				pos++;
+				continue;
+			}
+			var end = pos + 1;
+			while (end < limit && !isDelimiter(text[off + end])) end++;
+			if (keywords.matches(text, off + pos, end - pos)) out.add(pos, end - pos, KIND_KEYWORD);
+			pos = end;
+		}
+		return pos;
+	}
+
+	/**
+	 * 指定位置から文字列リテラルの終了位置までを走査します。
+	 * リテラルが閉じられていない場合は行末までをリテラルとみなします。
+	 *
+	 * @param text   行の文字列を格納した配列
+	 * @param off    配列内での行の開始位置
+	 * @param length 行の長さ
+	 * @param pos    リテラルの開始位置
+	 *
+	 * @return リテラルの終了位置
+	 */
+	private static int checkQuoteToken(char[] text, int off, int length, int pos) {
+		final var delimiter = text[off + pos];
+		for (var i = pos + 1; i < length; i++) {
+			final var ch = text[off + i];
+			if (ch == '\\') i++;
+			else if (ch == delimiter) return i + 1;
+		}
+		return length;
+	}
+
+	/**
+	 * 行の中から指定された文字列を検索します。
+	 *
+	 * @param text   行の文字列を格納した配列
+	 * @param off    配列内での行の開始位置
+	 * @param length 行の長さ
+	 * @param target 検出する文字列
+	 * @param pos    検索の開始位置
+	 *
+	 * @return 見つかった位置 見つからない場合-1
+	 */
+	private static int indexOf(char[] text, int off, int length, String target, int pos) {
+		final var last = length - target.length();
+		for (var i = pos; i <= last; i++) {
+			if (startsWith(text, off, length, target, i)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * 行の指定位置が指定された文字列で始まるか返します。
+	 *
+	 * @param text   行の文字列を格納した配列
+	 * @param off    配列内での行の開始位置
+	 * @param length 行の長さ
+	 * @param target 検出する文字列
+	 * @param pos    比較の開始位置
+	 *
+	 * @return 一致する場合true
+	 */
+	private static boolean startsWith(char[] text, int off, int length, String target, int pos) {
+		final var len = target.length();
+		if (pos + len > length) return false;
+		for (var i = 0; i < len; i++) {
+			if (text[off + pos + i] != target.charAt(i)) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.util.Collection;
+
+/**
+ * キーワードの集合を文字配列の範囲で照合するためのハッシュ表です。
+ * <p>
+ * 照合時に文字列を生成しないため、大量の字句を解析する際にも一時オブジェクトが発生しません。
+ * 生成後の照合器は不変であり、複数のスレッドから同時に参照できます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class KeywordMatcher {
+	private static final KeywordMatcher EMPTY = new KeywordMatcher(null);
+	private final char[][] table;
+	private final int mask;
+	private final int minLength, maxLength;
+
+	/**
+	 * キーワードを列挙したコレクションから照合器を構築します。
+	 *
+	 * @param words キーワードのコレクション nullの場合は空
+	 */
+	private KeywordMatcher(Collection<String> words) {
+		var capacity = 8;
+		final var size = words != null ? words.size() : 0;
+		while (capacity < size * 2) capacity <<= 1;
+		table = new char[capacity][];
+		mask = capacity - 1;
+		var min = Integer.MAX_VALUE;
+		var max = 0;
+		if (words != null) for (var word : words) {
+			if (word == null || word.isEmpty()) continue;
+			final var chars = word.toCharArray();
+			var slot = hash(chars, 0, chars.length) & mask;
+			while (table[slot] != null && !equals(table[slot], chars, 0, chars.length)) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = chars;
+			min = Math.min(min, chars.length);
+			max = Math.max(max, chars.length);
+		}
+		minLength = min;
+		maxLength = max;
+	}
+
+	/**
+	 * キーワードを列挙したコレクションから照合器を生成します。
+	 *
+	 * @param words キーワードのコレクション nullの場合は空
+	 *
+	 * @return 照合器
+	 */
+	public static KeywordMatcher compile(Collection<String> words) {
+		if (words == null || words.isEmpty()) return EMPTY;
+		return new KeywordMatcher(words);
+	}
+
+	/**
+	 * 配列の指定範囲の文字列がキーワードに一致するか返します。
+	 *
+	 * @param text   文字配列
+	 * @param off    範囲の開始位置
+	 * @param length 範囲の長さ
+	 *
+	 * @return キーワードの場合true
+	 */
+	public boolean matches(char[] text, int off, int length) {
+		if (length < minLength || length > maxLength) return false;
+		var slot = hash(text, off, length) & mask;
+		char[] word;
+		while ((word = table[slot]) != null) {
+			if (equals(word, text, off, length)) return true;
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * 指定された文字列がキーワードに一致するか返します。
+	 *
+	 * @param token 調べる文字列
+	 *
+	 * @return キーワードの場合true
+	 */
+	public boolean matches(String token) {
+		return token != null && matches(token.toCharArray(), 0, token.length());
+	}
+
+	private static int hash(char[] text, int off, int length) {
+		var h = 0;
+		for (var i = 0; i < length; i++) h = 31 * h + text[off + i];
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equals(char[] word, char[] text, int off, int length) {
+		if (word.length != length) return false;
+		for (var i = 0; i < length; i++) {
+			if (word[i] != text[off + i]) return false;
+		}
+		return true;
+	}
+}
@@ -18,6 +18,7 @@ public class KeywordSet {
 	private String name;
 	private ArrayList<String> exts;
 	private ArrayList<String> keywords;
+	private ArrayList<SyntaxRule> rules;
 	private String commentBlockStart = null;
 	private String commentBlockEnd = null;
 	private String commentLineStart = null;
@@ -29,6 +30,7 @@ public class KeywordSet {
 		this.name = null;
 		this.exts = new ArrayList<>(0);
 		this.keywords = new ArrayList<>(0);
+		this.rules = new ArrayList<>(0);
 	}
 
 	/**
@@ -40,6 +42,7 @@ public class KeywordSet {
 		this.name = name;
 		this.exts = new ArrayList<>(0);
 		this.keywords = new ArrayList<>(0);
+		this.rules = new ArrayList<>(0);
 	}
 
 	/**
@@ -121,6 +124,57 @@ public class KeywordSet {
 		this.keywords = new ArrayList<>(list);
 	}
 
+	/**
+	 * 字句を切り出す規則のリストを返します。
+	 *
+	 * @return 規則のリスト
+	 *
+	 * @since 2026/10/17
+	 */
+	public List<SyntaxRule> getRules() {
+		return rules;
+	}
+
+	/**
+	 * 字句を切り出す規則のリストを設定します。
+	 *
+	 * @param rules 規則のリスト
+	 *
+	 * @since 2026/10/17
+	 */
+	public void setRules(List<SyntaxRule> rules) {
+		if (rules instanceof ArrayList) this.rules = (ArrayList<SyntaxRule>) rules;
+		else this.rules = new ArrayList<>(rules);
+	}
+
+	/**
+	 * このキーワードセットの設定に従って字句解析器を生成します。
+	 * 規則が設定されていない場合は{@link KeywordLexer}を、
+	 * 規則が設定されている場合は{@link RegexLexer}を生成します。
+	 *
+	 * @return 字句解析器
+	 *
+	 * @throws IllegalArgumentException 規則の正規表現が不正な場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public SyntaxLexer createLexer() {
+		if (rules.isEmpty()) return new KeywordLexer(this);
+		return new RegexLexer(this);
+	}
+
+	/**
+	 * 現在のキーワードのリストから照合器を生成します。
+	 * リストを変更した場合は、改めて照合器を生成する必要があります。
+	 *
+	 * @return キーワードの照合器
+	 *
+	 * @since 2026/10/17
+	 */
+	public KeywordMatcher compile() {
+		return KeywordMatcher.compile(keywords);
+	}
+
 	/**
 	 * キーワードセットの名前を返します。
 	 *
@@ -9,22 +9,29 @@ import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
-import java.io.*;
+import java.io.File;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.nio.charset.Charset;
-import java.util.List;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import javax.swing.*;
 
+import leaf.util.FileWalker;
 import leaf.util.Grep;
+import leaf.util.TrigramIndex;
 
 import static javax.swing.JFileChooser.APPROVE_OPTION;
 import static javax.swing.JFileChooser.DIRECTORIES_ONLY;
 
 /**
  * GREP検索機能をGUIアプリケーション向けに提供するダイアログです。
+ * <p>
+ * ダイアログは検索の条件を入力させるのみで、検索は{@link #grep(LeafGrepView)}で
+ * 指定された表示部品が背景のスレッドで実行し、結果を少しずつ表示します。
  *
  * @author 無線部開発班
  * @since 2010年9月4日
@@ -39,6 +46,8 @@ public final class LeafGrepDialog extends LeafDialog {
 	private JCheckBox ch_case;
 	private JCheckBox ch_regex;
 	private JCheckBox ch_dotall;
+	private JCheckBox ch_ignore;
+	private JCheckBox ch_index;
 	private JComboBox<String> combo_pattern;
 	private JComboBox<String> combo_file;
 	private JComboBox<String> combo_dir;
@@ -46,14 +55,13 @@ public final class LeafGrepDialog extends LeafDialog {
 	private JLabel label_pattern;
 	private JLabel label_file;
 	private JLabel label_dir;
-	private JPanel panel_card;
-	private JPanel card_1;
-	private JPanel card_2;
-	private CardLayout cardlayout;
-	private JProgressBar progress;
-	private LeafBusyLabel indicator;
-	private GrepWorker worker = null;
-	private StringWriter result = null;
+	private Pattern pattern;
+	private Pattern names;
+	private Path root;
+	private Charset charset;
+	private boolean subdirs;
+	private boolean ignore;
+	private boolean useIndex;
 	private boolean isApproved = CANCEL_OPTION;
 
 	/**
@@ -108,14 +116,64 @@ public final class LeafGrepDialog extends LeafDialog {
 	}
 
 	/**
-	 * GREP検索した結果を読みだすリーダーを返します。
+	 * ダイアログで指定された条件のGREP検索を、指定された表示部品で開始します。
+	 * 検索ボタンでダイアログが閉じられた後に呼び出します。
+	 *
+	 * @param view 結果を表示する部品
+	 *
+	 * @throws IllegalStateException 検索の条件が確定していない場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public void grep(LeafGrepView view) {
+		if (pattern == null) throw new IllegalStateException("no search");
+		view.grep(createWalker(), charset, pattern, useIndex ? TrigramIndex.forDirectory(root) : null);
+	}
+
+	/**
+	 * ダイアログで指定された条件でGREP検索して、結果を読み出すリーダーを返します。
+	 * 検索はこの場で完了するまで実行され、結果は従来の出力形式で1行ずつ返されます。
 	 *
 	 * @return 検索結果
+	 *
+	 * @throws IllegalStateException 検索の条件が確定していない場合
+	 *
+	 * @deprecated 結果を少しずつ表示する{@link #grep(LeafGrepView)}を使用してください
 	 */
+	@Deprecated
 	public Reader getResult() {
+		if (pattern == null) throw new IllegalStateException("no search");
+		final var result = new StringWriter();
+		try (var walker = createWalker()) {
+			new Grep(result).grep(walker.spliterator(), charset, pattern);
+		}
 		return new StringReader(result.toString());
 	}
 
+	/**
+	 * ダイアログで指定された条件でファイルを列挙する部品を生成します。
+	 */
+	private FileWalker createWalker() {
+		final var names = this.names;
+		final var subdirs = this.subdirs;
+		final var walker = new FileWalker(root).setFollowLinks(true);
+		walker.setFileFilter((path, attrs) -> names.matcher(path.getFileName().toString()).matches());
+		walker.setDirectoryFilter((path, attrs) -> subdirs);
+		if (ignore) walker.addExclude(".git/").setIgnoreFileName(".gitignore");
+		return walker;
+	}
+
+	/**
+	 * 直前に検索した正規表現パターンを返します。
+	 *
+	 * @return パターン 検索していない場合はnull
+	 *
+	 * @since 2026/10/17
+	 */
+	public Pattern getPattern() {
+		return pattern;
+	}
+
 	private String getText(JComboBox<String> combo) {
 		return (String) combo.getEditor().getItem();
 	}
@@ -139,24 +197,13 @@ public final class LeafGrepDialog extends LeafDialog {
 		add(combo_file);
 		combo_chset = new JComboBox<>();
 		add(combo_chset);
-		panel_card = new JPanel(cardlayout = new CardLayout());
-		add(panel_card);
-		card_1 = new JPanel(null);
-		card_2 = new JPanel(null);
-		panel_card.add(card_1, "rootdir");
-		panel_card.add(card_2, "progress");
 		label_dir = new JLabel(translate("label_root_directory"));
 		combo_dir = new JComboBox<>();
 		combo_dir.setEditable(true);
 		button_dir = new JButton("...");
-		card_1.add(label_dir);
-		card_1.add(combo_dir);
-		card_1.add(button_dir);
-		indicator = new LeafBusyLabel();
-		progress = new JProgressBar();
-		progress.setStringPainted(true);
-		card_2.add(indicator);
-		card_2.add(progress);
+		add(label_dir);
+		add(combo_dir);
+		add(button_dir);
 		ch_subdir = new JCheckBox(translate("check_search_in_sub_dirs"));
 		ch_subdir.setMnemonic(KeyEvent.VK_S);
 		ch_subdir.setSelected(true);
@@ -168,10 +215,16 @@ public final class LeafGrepDialog extends LeafDialog {
 		ch_regex.setSelected(true);
 		ch_dotall = new JCheckBox(translate("check_dotall"));
 		ch_dotall.setMnemonic(KeyEvent.VK_D);
+		ch_ignore = new JCheckBox(translate("check_ignore"));
+		ch_ignore.setMnemonic(KeyEvent.VK_I);
+		ch_index = new JCheckBox(translate("check_index"));
+		ch_index.setMnemonic(KeyEvent.VK_X);
 		add(ch_subdir);
 		add(ch_case);
+		add(ch_ignore);
 		add(ch_regex);
 		add(ch_dotall);
+		add(ch_index);
 		button_search = new JButton(translate("button_find"));
 		button_search.setMnemonic(KeyEvent.VK_F);
 		button_close = new JButton(translate("button_close"));
@@ -183,22 +236,15 @@ public final class LeafGrepDialog extends LeafDialog {
 		chooser.setLocale(getLocale());
 		chooser.updateUI();
 		layoutComponents();
-		combo_pattern.getEditor().addActionListener(e -> {
-			search();
-			isApproved = OK_OPTION;
-		});
+		combo_pattern.getEditor().addActionListener(e -> search());
 		combo_dir.getEditor().addActionListener(e -> {
 			if (!exists(new File(getText(combo_dir)))) selectDirectory();
 		});
 		button_dir.addActionListener(e -> selectDirectory());
 		ch_regex.addActionListener(e -> ch_dotall.setEnabled(ch_regex.isSelected()));
-		button_search.addActionListener(e -> {
-			search();
-			isApproved = OK_OPTION;
-		});
+		button_search.addActionListener(e -> search());
 		button_close.addActionListener(e -> {
 			isApproved = CANCEL_OPTION;
-			if (worker != null) worker.cancel(false);
 			dispose();
 		});
 	}
@@ -213,20 +259,18 @@ public final class LeafGrepDialog extends LeafDialog {
 		combo_file.setBounds(65, label_y, 325, pref);
 		combo_chset.setBounds(395, label_y, 100, pref);
 		label_y += pref + 5;
-		panel_card.setBounds(5, label_y, 490, pref);
-		card_1.setSize(460, pref);
-		card_2.setSize(460, pref);
-		label_dir.setBounds(0, 0, 60, pref);
-		combo_dir.setBounds(60, 0, 390, pref);
-		button_dir.setBounds(452, 0, 38, pref);
-		indicator.setBounds(0, Math.max(0, (pref - 16) / 2), 16, 16);
-		progress.setBounds(20, 0, 470, pref);
+		label_dir.setBounds(5, label_y, 60, pref);
+		combo_dir.setBounds(65, label_y, 390, pref);
+		button_dir.setBounds(457, label_y, 38, pref);
 		var ch_y = label_y + pref + 10;
 		ch_y += setBounds(ch_subdir, 5, ch_y, 210) + 5;
 		ch_y += setBounds(ch_case, 5, ch_y, 210) + 5;
-		ch_y = label_y + pref + 10;
-		ch_y += setBounds(ch_regex, 220, ch_y, 170) + 5;
-		ch_y += setBounds(ch_dotall, 220, ch_y, 170) + 10;
+		ch_y += setBounds(ch_ignore, 5, ch_y, 210) + 10;
+		var ch_right = label_y + pref + 10;
+		ch_right += setBounds(ch_regex, 220, ch_right, 170) + 5;
+		ch_right += setBounds(ch_dotall, 220, ch_right, 170) + 5;
+		ch_right += setBounds(ch_index, 220, ch_right, 170) + 10;
+		ch_y = Math.max(ch_y, ch_right);
 		var button_y = label_y + pref + 10;
 		button_y += setBounds(button_search, 395, button_y, 100) + 5;
 		button_y += setBounds(button_close, 395, button_y, 100) + 10;
@@ -251,17 +295,21 @@ public final class LeafGrepDialog extends LeafDialog {
 			addItem(combo_pattern, getText(combo_pattern));
 			addItem(combo_file, getText(combo_file));
 			addItem(combo_dir, getText(combo_dir));
-			if (!indicator.isRunning()) try {
-				result = new StringWriter();
-				worker = new GrepWorker(result, option);
-				worker.execute();
-				button_search.setEnabled(false);
-				cardlayout.last(panel_card);
-				indicator.start();
+			try {
+				pattern = Pattern.compile(getText(combo_pattern), option);
+				names = Pattern.compile(getText(combo_file));
 			} catch (PatternSyntaxException ex) {
 				showMessage(ex.getDescription());
-				result = null;
+				pattern = null;
+				return;
 			}
+			root = Paths.get(getText(combo_dir));
+			charset = (Charset) combo_chset.getSelectedItem();
+			subdirs = ch_subdir.isSelected();
+			ignore = ch_ignore.isSelected();
+			useIndex = ch_index.isSelected();
+			isApproved = OK_OPTION;
+			dispose();
 		}
 	}
 
@@ -333,87 +381,6 @@ public final class LeafGrepDialog extends LeafDialog {
 		@Override
 		public void windowClosing(WindowEvent e) {
 			isApproved = CANCEL_OPTION;
-			if (worker != null) worker.cancel(false);
-		}
-	}
-
-	private class GrepWorker extends SwingWorker<String, String> {
-		private final Writer writer;
-		private final Pattern pattern;
-		private final FileFilter filter;
-		private final Charset charset;
-		private final File root;
-
-		public GrepWorker(Writer writer, int option) throws PatternSyntaxException {
-			this.writer = writer;
-			this.root = new File(getText(combo_dir));
-			this.filter = new GrepFileFilter(getText(combo_file));
-			this.pattern = Pattern.compile(getText(combo_pattern), option);
-			this.charset = (Charset) combo_chset.getSelectedItem();
-			addPropertyChangeListener(new ProgressListener());
-		}
-
-		@Override
-		protected String doInBackground() {
-			try {
-				new GrepTask(writer).grep(root, filter, charset, pattern);
-			} catch (Exception ex) {
-				ex.printStackTrace();
-			}
-			return "Done";
-		}
-
-		@Override
-		protected void process(List<String> chunks) {
-			if (!chunks.isEmpty()) {
-				progress.setString(String.valueOf(chunks.get(0)));
-			}
-		}
-
-		@Override
-		protected void done() {
-			button_search.setEnabled(true);
-			indicator.stop();
-			progress.setValue(0);
-			cardlayout.first(panel_card);
-			dispose();
-			if (writer != null) try {
-				writer.close();
-			} catch (IOException ex) {
-			}
-		}
-
-		private class GrepTask extends Grep {
-			public GrepTask(Writer writer) {
-				super(writer);
-			}
-
-			@Override
-			public void progress(File file, int index, int step) {
-				setProgress(100 * index / step);
-				publish(file.getName());
-			}
-		}
-	}
-
-	private class ProgressListener implements PropertyChangeListener {
-		@Override
-		public void propertyChange(PropertyChangeEvent e) {
-			if (worker != null) progress.setValue(worker.getProgress());
-		}
-	}
-
-	private class GrepFileFilter implements FileFilter {
-		private final String pattern;
-
-		public GrepFileFilter(String pattern) {
-			this.pattern = pattern;
-		}
-
-		@Override
-		public boolean accept(File f) {
-			if (f.isDirectory()) return ch_subdir.isSelected();
-			return f.getName().matches(pattern);
 		}
 	}
 
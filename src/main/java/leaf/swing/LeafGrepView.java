@@ -0,0 +1,464 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.swing.*;
+
+import leaf.util.FileWalker;
+import leaf.util.Grep;
+import leaf.util.GrepHit;
+import leaf.util.LocalizeManager;
+import leaf.util.Task;
+import leaf.util.TrigramIndex;
+
+/**
+ * GREP検索の結果を、検索の実行中から少しずつ追加して一覧表示する部品です。
+ * <p>
+ * 検索は背景のスレッドで行われ、見つかった結果はまとめてイベントディスパッチスレッドに渡されて一覧の末尾に追加されます。
+ * 保持する結果の数には上限があり、上限に達すると検索は打ち切られます。
+ * 索引を指定した場合は、索引を更新してから索引で絞り込んだファイルのみを検索します。
+ * 結果をダブルクリックするか、Enterキーを押すとアクションイベントが通知されるので、
+ * {@link #getSelectedHit()}で結果を取得して該当する行を開くことができます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class LeafGrepView extends JComponent {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * 状態の表示を更新する間隔のミリ秒数です。
+	 */
+	private static final int STATUS_INTERVAL = 200;
+	private final LocalizeManager localize;
+	private final HitListModel model;
+	private final JList<GrepHit> list;
+	private final LeafBusyLabel status;
+	private final JButton stopButton;
+	private final Timer timer;
+	private int hitLimit = 100_000;
+	private Path root;
+	private GrepWorker worker;
+
+	/**
+	 * 空の表示部品を構築します。
+	 */
+	public LeafGrepView() {
+		setLayout(new BorderLayout());
+		localize = LocalizeManager.get(LeafGrepView.class);
+		list = new JList<>(model = new HitListModel()) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean getScrollableTracksViewportWidth() {
+				return true;
+			}
+		};
+		list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		list.setCellRenderer(new HitRenderer());
+		list.setFixedCellWidth(1);
+		list.setFixedCellHeight(list.getFontMetrics(list.getFont()).getHeight() + 2);
+		add(new JScrollPane(list), BorderLayout.CENTER);
+		status = new LeafBusyLabel();
+		stopButton = new JButton(localize.translate("button_stop"));
+		stopButton.setEnabled(false);
+		var bar = Box.createHorizontalBox();
+		bar.add(Box.createHorizontalStrut(5));
+		bar.add(status);
+		bar.add(Box.createHorizontalGlue());
+		bar.add(stopButton);
+		add(bar, BorderLayout.SOUTH);
+		stopButton.addActionListener(e -> cancel());
+		status.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				showErrors();
+			}
+		});
+		timer = new Timer(STATUS_INTERVAL, e -> updateStatus());
+		list.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2 && list.locationToIndex(e.getPoint()) >= 0) fireActionPerformed();
+			}
+		});
+		list.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "open");
+		list.getActionMap().put("open", new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (list.getSelectedIndex() >= 0) fireActionPerformed();
+			}
+		});
+	}
+
+	/**
+	 * 一覧を空にして、ディレクトリの走査とGREP検索を背景のスレッドで開始します。
+	 * 実行中の検索は中止されます。走査が終わると走査器は閉じられます。
+	 *
+	 * @param walker  検索するファイルの走査器
+	 * @param chset   文字セット
+	 * @param pattern 正規表現パターン
+	 */
+	public void grep(FileWalker walker, Charset chset, Pattern pattern) {
+		grep(walker, chset, pattern, null);
+	}
+
+	/**
+	 * 一覧を空にして、索引の更新とGREP検索を背景のスレッドで開始します。
+	 * 検索するファイルは走査器のフィルタと索引の両方で選ばれます。
+	 * 索引は走査器と同じ除外の規則とディレクトリのフィルタで、ファイルのフィルタを適用せずに更新されます。
+	 * 索引を書き出せない場合は、更新前の索引で絞り込み、その例外を状態の表示に示します。
+	 * 読み込めなかったファイルは、状態の表示をクリックすると例外とともに一覧で表示されます。
+	 *
+	 * @param walker  検索するファイルの走査器
+	 * @param chset   文字セット
+	 * @param pattern 正規表現パターン
+	 * @param index   絞り込みに用いる索引 絞り込まない場合はnull
+	 */
+	public void grep(FileWalker walker, Charset chset, Pattern pattern, TrigramIndex index) {
+		cancel();
+		model.clear();
+		root = walker.getRoot();
+		worker = new GrepWorker(walker, chset, pattern, index, hitLimit);
+		stopButton.setEnabled(true);
+		status.start();
+		timer.start();
+		updateStatus();
+		worker.execute();
+	}
+
+	/**
+	 * 実行中の検索を中止します。それまでに見つかった結果は一覧に残ります。
+	 */
+	public void cancel() {
+		if (worker != null) worker.stop();
+	}
+
+	/**
+	 * 検索を実行中か判定します。
+	 *
+	 * @return 実行中の場合true
+	 */
+	public boolean isRunning() {
+		return worker != null && !worker.isDone();
+	}
+
+	/**
+	 * 1回の検索で保持する結果の数の上限を設定します。次の検索から適用されます。
+	 *
+	 * @param limit 結果の数の上限
+	 *
+	 * @throws IllegalArgumentException 上限が0以下の場合
+	 */
+	public void setHitLimit(int limit) {
+		if (limit <= 0) throw new IllegalArgumentException("limit: " + limit);
+		this.hitLimit = limit;
+	}
+
+	/**
+	 * 1回の検索で保持する結果の数の上限を返します。
+	 *
+	 * @return 結果の数の上限
+	 */
+	public int getHitLimit() {
+		return hitLimit;
+	}
+
+	/**
+	 * 一覧に表示されている結果の数を返します。
+	 *
+	 * @return 結果の数
+	 */
+	public int getHitCount() {
+		return model.getSize();
+	}
+
+	/**
+	 * 指定された番号の結果を返します。
+	 *
+	 * @param index 0から始まる番号
+	 *
+	 * @return 結果
+	 */
+	public GrepHit getHitAt(int index) {
+		return model.getElementAt(index);
+	}
+
+	/**
+	 * 選択されている結果を返します。
+	 *
+	 * @return 結果 選択されていない場合はnull
+	 */
+	public GrepHit getSelectedHit() {
+		return list.getSelectedValue();
+	}
+
+	/**
+	 * 結果が開かれる際に通知を受け取るリスナーを追加します。
+	 *
+	 * @param l 追加するリスナー
+	 */
+	public void addActionListener(ActionListener l) {
+		listenerList.add(ActionListener.class, l);
+	}
+
+	/**
+	 * 指定されたリスナーを削除します。
+	 *
+	 * @param l 削除するリスナー
+	 */
+	public void removeActionListener(ActionListener l) {
+		listenerList.remove(ActionListener.class, l);
+	}
+
+	private void fireActionPerformed() {
+		var e = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "open");
+		for (var l : listenerList.getListeners(ActionListener.class)) l.actionPerformed(e);
+	}
+
+	/**
+	 * 検索の進捗と結果の数を表示します。
+	 * 索引の更新に失敗した場合はその例外を併記し、エラーがあればクリックで一覧を表示できることを示します。
+	 */
+	private void updateStatus() {
+		if (worker == null) return;
+		final var hits = model.getSize();
+		final String text;
+		if (worker.isIndexing) {
+			text = localize.translate("status_indexing", worker.written, worker.found, worker.current);
+		} else if (!worker.isDone()) {
+			text = localize.translate("status_running", hits, worker.written, worker.found, worker.current);
+		} else if (worker.isCancelled()) {
+			text = localize.translate("status_cancelled", hits, worker.written);
+		} else if (worker.isLimitReached) {
+			text = localize.translate("status_limit", hits, worker.written);
+		} else {
+			text = localize.translate("status_done", hits, worker.written, worker.errors);
+		}
+		final var indexError = worker.indexError;
+		if (indexError == null) status.setText(text);
+		else status.setText(text + "  " + localize.translate("status_index_failed", indexError));
+		status.setToolTipText(worker.hasErrors() ? localize.translate("tooltip_errors") : null);
+	}
+
+	/**
+	 * 索引の更新の失敗と、読み込めなかったファイルの絶対パスと例外を一覧で表示します。
+	 */
+	private void showErrors() {
+		if (worker == null || !worker.hasErrors()) return;
+		final var area = new JTextArea(String.join("\n", worker.getErrors()), 15, 60);
+		area.setEditable(false);
+		area.setCaretPosition(0);
+		final var title = localize.translate("title_errors");
+		JOptionPane.showMessageDialog(this, new JScrollPane(area), title, JOptionPane.WARNING_MESSAGE);
+	}
+
+	/**
+	 * 起点のディレクトリからの相対パスを返します。
+	 */
+	private String toDisplayPath(Path file) {
+		return root != null && file.startsWith(root) ? root.relativize(file).toString() : file.toString();
+	}
+
+	/**
+	 * 結果を末尾に追加していくリストのモデルです。
+	 */
+	private static final class HitListModel extends AbstractListModel<GrepHit> {
+		private static final long serialVersionUID = 1L;
+		private final ArrayList<GrepHit> hits = new ArrayList<>();
+
+		@Override
+		public int getSize() {
+			return hits.size();
+		}
+
+		@Override
+		public GrepHit getElementAt(int index) {
+			return hits.get(index);
+		}
+
+		/**
+		 * 結果をまとめて追加し、1回だけ変更を通知します。
+		 */
+		void append(List<GrepHit> chunk) {
+			if (chunk.isEmpty()) return;
+			final var first = hits.size();
+			hits.addAll(chunk);
+			fireIntervalAdded(this, first, hits.size() - 1);
+		}
+
+		void clear() {
+			final var size = hits.size();
+			if (size == 0) return;
+			hits.clear();
+			hits.trimToSize();
+			fireIntervalRemoved(this, 0, size - 1);
+		}
+	}
+
+	/**
+	 * 結果を「パス(行,桁): 内容」の形式で描画します。
+	 */
+	private final class HitRenderer extends DefaultListCellRenderer {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+			final var hit = (GrepHit) value;
+			final var sb = new StringBuilder();
+			sb.append(toDisplayPath(hit.getFile()));
+			sb.append('(').append(hit.getLine()).append(',').append(hit.getColumn()).append("): ");
+			if (hit.getTextOffset() > 0) sb.append("...");
+			sb.append(hit.getText().stripLeading().replace('\t', ' '));
+			super.getListCellRendererComponent(list, sb.toString(), index, isSelected, cellHasFocus);
+			setToolTipText(hit.getFile().toString());
+			return this;
+		}
+	}
+
+	/**
+	 * 背景のスレッドで検索し、結果をまとめて一覧に追加します。
+	 */
+	private final class GrepWorker extends SwingWorker<Void, GrepHit> {
+		private final FileWalker walker;
+		private final Charset chset;
+		private final Pattern pattern;
+		private final TrigramIndex index;
+		private final GrepTask task;
+		private final IndexTask indexTask;
+		private final List<String> failures = new ArrayList<>();
+		private volatile IOException indexError;
+		private volatile int written, found, errors;
+		private volatile String current = "";
+		private volatile boolean isLimitReached, isIndexing;
+
+		GrepWorker(FileWalker walker, Charset chset, Pattern pattern, TrigramIndex index, int limit) {
+			this.walker = walker;
+			this.chset = chset;
+			this.pattern = pattern;
+			this.index = index;
+			this.task = new GrepTask();
+			this.indexTask = new IndexTask();
+			task.setHitLimit(limit);
+		}
+
+		/**
+		 * 索引の更新に失敗したか、読み込めなかったファイルがあるか返します。
+		 */
+		boolean hasErrors() {
+			return indexError != null || errors > 0;
+		}
+
+		/**
+		 * 索引の更新の失敗と、読み込めなかったファイルを1行ずつ返します。
+		 */
+		List<String> getErrors() {
+			final var lines = new ArrayList<String>();
+			final var indexError = this.indexError;
+			if (indexError != null) lines.add(localize.translate("status_index_failed", indexError));
+			synchronized (failures) {
+				lines.addAll(failures);
+			}
+			return lines;
+		}
+
+		/**
+		 * 検索を中止します。
+		 */
+		void stop() {
+			indexTask.cancel();
+			task.cancel();
+			cancel(false);
+		}
+
+		@Override
+		protected Void doInBackground() {
+			if (index != null) {
+				isIndexing = true;
+				try {
+					index.update(walker.copy().setFileFilter((path, attrs) -> true), indexTask);
+				} catch (IOException ex) {
+					indexError = ex;
+				} finally {
+					written = found = 0;
+					current = "";
+					isIndexing = false;
+				}
+				walker.setFileFilter(walker.getFileFilter().and(index.filter(pattern, chset)));
+			}
+			try (walker) {
+				task.grep(walker.spliterator(), chset, pattern);
+				isLimitReached = task.isHitLimitReached();
+			}
+			return null;
+		}
+
+		@Override
+		protected void process(List<GrepHit> chunks) {
+			if (worker != this) return;
+			model.append(chunks);
+			if (isDone()) updateStatus();
+		}
+
+		@Override
+		protected void done() {
+			if (worker != this) return;
+			timer.stop();
+			status.stop();
+			stopButton.setEnabled(false);
+			updateStatus();
+		}
+
+		private final class IndexTask extends Task<Path> {
+			@Override
+			public void progress(Path file, int index, int step) {
+				written = index + 1;
+				found = step;
+				current = file.getFileName().toString();
+			}
+		}
+
+		private final class GrepTask extends Grep {
+			GrepTask() {
+				super(Runtime.getRuntime().availableProcessors(), true);
+			}
+
+			@Override
+			protected void found(List<GrepHit> hits) {
+				publish(hits.toArray(new GrepHit[0]));
+			}
+
+			@Override
+			protected void failed(Path file, Throwable ex) {
+				synchronized (failures) {
+					failures.add(file + " :" + ex);
+				}
+				errors++;
+			}
+
+			@Override
+			public void progress(File file, int index, int step) {
+				written = index + 1;
+				found = step;
+				current = file.getName();
+			}
+		}
+	}
+}
@@ -0,0 +1,546 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import javax.swing.*;
+
+import leaf.util.Dump;
+import leaf.util.LocalizeManager;
+
+/**
+ * ファイルを必要な範囲だけ読み込んで、表示されている行のみを描画する16進数ダンプの表示部品です。
+ * <p>
+ * ファイルの内容は文字列に変換されず、描画の際に表示範囲の行のみが変換表を用いて整形されます。
+ * 読み込んだ内容は直近の一定数のページのみが保持されるため、ファイルの大きさに関わらず使用するメモリは一定です。
+ * <p>
+ * ファイルは{@link #close()}が呼ばれるまで読み込み用に開かれたままになります。
+ * メモリにはマップされないため、閉じた時点でファイルへの参照は確実に解放されます。
+ * 表示中に他のプロセスがファイルを切り詰めた場合、失われた部分は0として表示されます。
+ * 指定位置への移動と、バイト列の検索を行うことができます。
+ * 選択範囲または表示されている行は、{@link Dump}の形式の文字列として複写できます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class LeafHexView extends JComponent {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * 1個のページの大きさを表すビット数です。
+	 */
+	private static final int PAGE_SHIFT = 16;
+	/**
+	 * 保持するページの個数です。
+	 */
+	private static final int CACHED_PAGES = 16;
+	/**
+	 * 検索の際に1回に読み込むバイト数です。
+	 */
+	private static final int SEARCH_BYTES = 1 << 20;
+	/**
+	 * 各バイトに対応する2桁の16進数の変換表です。
+	 */
+	private static final char[] HEX_TABLE;
+	private final LocalizeManager localize;
+	private final JScrollBar scroll;
+	private final Rows rows;
+	private final JTextField offsetField;
+	private final JTextField patternField;
+	private final JButton findButton;
+	private final Map<Long, byte[]> pages;
+	private FileChannel channel;
+	private SwingWorker<Long, Void> finder;
+	private long length;
+	private int columns = 16;
+	private long selectionStart = -1;
+	private int selectionLength;
+
+	static {
+		final var digits = "0123456789ABCDEF".toCharArray();
+		HEX_TABLE = new char[512];
+		for (var b = 0; b < 256; b++) {
+			HEX_TABLE[b * 2] = digits[b >> 4];
+			HEX_TABLE[b * 2 + 1] = digits[b & 0xF];
+		}
+	}
+
+	/**
+	 * 空の表示部品を構築します。
+	 */
+	public LeafHexView() {
+		setLayout(new BorderLayout());
+		localize = LocalizeManager.get(LeafHexView.class);
+		pages = new LinkedHashMap<>(CACHED_PAGES * 2, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+				return size() > CACHED_PAGES;
+			}
+		};
+		add(rows = new Rows(), BorderLayout.CENTER);
+		add(scroll = new JScrollBar(JScrollBar.VERTICAL), BorderLayout.EAST);
+		scroll.addAdjustmentListener(e -> rows.repaint());
+		offsetField = new JTextField(12);
+		patternField = new JTextField(24);
+		var bgoto = new JButton(localize.translate("button_goto"));
+		findButton = new JButton(localize.translate("button_find_next"));
+		var console = Box.createHorizontalBox();
+		console.add(Box.createHorizontalStrut(5));
+		console.add(new JLabel(localize.translate("label_offset")));
+		console.add(Box.createHorizontalStrut(5));
+		console.add(offsetField);
+		console.add(Box.createHorizontalStrut(5));
+		console.add(bgoto);
+		console.add(Box.createHorizontalStrut(15));
+		console.add(new JLabel(localize.translate("label_pattern")));
+		console.add(Box.createHorizontalStrut(5));
+		console.add(patternField);
+		console.add(Box.createHorizontalStrut(5));
+		console.add(findButton);
+		console.add(Box.createHorizontalStrut(5));
+		add(console, BorderLayout.NORTH);
+		bgoto.addActionListener(e -> gotoOffset());
+		offsetField.addActionListener(e -> gotoOffset());
+		findButton.addActionListener(e -> findNext());
+		patternField.addActionListener(e -> findNext());
+		rows.addMouseWheelListener(e -> scrollRows(e.getWheelRotation() * 3));
+		rows.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				updateScrollBar();
+			}
+		});
+		installKeys();
+	}
+
+	/**
+	 * ファイルを開いて表示します。表示中のファイルは閉じられます。
+	 *
+	 * @param file 表示するファイル
+	 *
+	 * @throws IOException ファイルを開けなかった場合
+	 */
+	public void open(Path file) throws IOException {
+		final var channel = FileChannel.open(file, StandardOpenOption.READ);
+		final long size;
+		try {
+			size = channel.size();
+			if ((size + columns - 1) / columns > Integer.MAX_VALUE) throw new IOException("file too large: " + file);
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+		close();
+		this.channel = channel;
+		this.length = size;
+		scroll.setValue(0);
+		updateScrollBar();
+		rows.repaint();
+	}
+
+	/**
+	 * 実行中の検索を中止してファイルを閉じ、空の表示に戻します。
+	 * 表示部品を破棄する前に必ず呼び出す必要があります。
+	 */
+	public void close() {
+		if (finder != null) finder.cancel(false);
+		finder = null;
+		findButton.setEnabled(true);
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+			}
+		}
+		channel = null;
+		pages.clear();
+		length = 0;
+		selectionStart = -1;
+		updateScrollBar();
+		rows.repaint();
+	}
+
+	/**
+	 * 表示しているファイルの大きさを返します。
+	 *
+	 * @return バイト数
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * 1行に表示するバイト数を返します。
+	 *
+	 * @return バイト数
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * 1行に表示するバイト数を設定します。
+	 *
+	 * @param columns 1以上のバイト数
+	 *
+	 * @throws IllegalArgumentException 行数が表示できる上限を超える場合
+	 */
+	public void setColumns(int columns) {
+		if (columns <= 0 || (length + columns - 1) / columns > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("columns: " + columns);
+		}
+		final var top = (long) scroll.getValue() * this.columns;
+		this.columns = columns;
+		updateScrollBar();
+		scroll.setValue((int) (top / columns));
+		rows.repaint();
+	}
+
+	/**
+	 * 指定位置のバイトを選択して、その行が表示されるようにスクロールします。
+	 *
+	 * @param offset ファイル内の位置
+	 * @param len    選択するバイト数
+	 *
+	 * @throws IndexOutOfBoundsException 位置がファイルの範囲外の場合
+	 */
+	public void select(long offset, int len) {
+		if (offset < 0 || offset >= length) throw new IndexOutOfBoundsException(Long.toString(offset));
+		selectionStart = offset;
+		selectionLength = len;
+		final var row = (int) (offset / columns);
+		final var first = scroll.getValue();
+		if (row < first || row >= first + getVisibleRows()) {
+			scroll.setValue(Math.max(0, row - getVisibleRows() / 2));
+		}
+		rows.repaint();
+	}
+
+	/**
+	 * 選択されている位置を返します。
+	 *
+	 * @return 選択位置 選択されていない場合は-1
+	 */
+	public long getSelectionStart() {
+		return selectionStart;
+	}
+
+	/**
+	 * 指定位置から後方にバイト列を検索します。
+	 * ページの保持とは独立した一定の大きさのバッファに、ファイルを順に読み込んで走査します。
+	 * 検索中に{@link #close()}が呼ばれた場合は検索を中断します。
+	 *
+	 * @param pattern 検索するバイト列
+	 * @param from    検索を開始する位置
+	 *
+	 * @return 見つかった位置 見つからない場合や中断された場合は-1
+	 *
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	public long search(byte[] pattern, long from) throws IOException {
+		return search(channel, length, pattern, from);
+	}
+
+	private static long search(FileChannel channel, long size, byte[] pattern, long from) throws IOException {
+		if (channel == null || pattern.length == 0) return -1;
+		final var buffer = ByteBuffer.allocate(Math.max(SEARCH_BYTES, pattern.length * 2));
+		final var array = buffer.array();
+		final var first = pattern[0];
+		try {
+			for (var base = Math.max(0, from); base + pattern.length <= size; ) {
+				buffer.clear();
+				while (buffer.hasRemaining() && channel.read(buffer, base + buffer.position()) > 0);
+				final var last = buffer.position() - pattern.length;
+				for (var i = 0; i <= last; i++) {
+					if (array[i] == first && matches(array, i, pattern)) return base + i;
+				}
+				if (buffer.hasRemaining()) break;
+				base += last + 1;
+			}
+		} catch (ClosedChannelException ex) {
+		}
+		return -1;
+	}
+
+	/**
+	 * 指定位置のバイト列がパターンと一致するか返します。
+	 */
+	private static boolean matches(byte[] array, int pos, byte[] pattern) {
+		for (var i = 1; i < pattern.length; i++) {
+			if (array[pos + i] != pattern[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 指定位置のバイトを、そのページが保持されていなければ読み込んで返します。
+	 */
+	private byte get(long pos) {
+		final var index = pos >>> PAGE_SHIFT;
+		var page = pages.get(index);
+		if (page == null) pages.put(index, page = readPage(index));
+		return page[(int) (pos & ((1 << PAGE_SHIFT) - 1))];
+	}
+
+	/**
+	 * 指定されたページを読み込みます。読み込めなかった部分は0のままになります。
+	 */
+	private byte[] readPage(long index) {
+		final var pos = index << PAGE_SHIFT;
+		final var page = new byte[(int) Math.min(1 << PAGE_SHIFT, length - pos)];
+		final var buffer = ByteBuffer.wrap(page);
+		try {
+			while (buffer.hasRemaining() && channel.read(buffer, pos + buffer.position()) > 0);
+		} catch (IOException ex) {
+		}
+		return page;
+	}
+
+	/**
+	 * 入力された16進数の位置に移動します。
+	 */
+	private void gotoOffset() {
+		try {
+			var text = offsetField.getText().trim();
+			if (text.startsWith("0x") || text.startsWith("0X")) text = text.substring(2);
+			select(Long.parseLong(text, 16), 1);
+			rows.requestFocusInWindow();
+		} catch (NumberFormatException | IndexOutOfBoundsException ex) {
+			JOptionPane.showMessageDialog(this, localize.translate("illegal_offset"));
+		}
+	}
+
+	/**
+	 * 入力された16進数のバイト列を、選択位置の次から背景処理で検索します。
+	 */
+	private void findNext() {
+		final var text = patternField.getText();
+		final byte[] pattern;
+		try {
+			pattern = parseBytes(text);
+		} catch (NumberFormatException ex) {
+			JOptionPane.showMessageDialog(this, localize.translate("illegal_pattern"));
+			return;
+		}
+		final var from = selectionStart >= 0 ? selectionStart + 1 : (long) scroll.getValue() * columns;
+		final var channel = this.channel;
+		final var size = this.length;
+		findButton.setEnabled(false);
+		finder = new SwingWorker<Long, Void>() {
+			@Override
+			protected Long doInBackground() throws IOException {
+				return search(channel, size, pattern, from);
+			}
+
+			@Override
+			protected void done() {
+				if (finder != this) return;
+				finder = null;
+				findButton.setEnabled(true);
+				try {
+					final long found = get();
+					if (found >= 0) select(found, pattern.length);
+					else JOptionPane.showMessageDialog(LeafHexView.this, localize.translate("not_found", text));
+				} catch (InterruptedException ex) {
+				} catch (ExecutionException ex) {
+					final var msg = localize.translate("failed_to_read", ex.getCause().getMessage());
+					JOptionPane.showMessageDialog(LeafHexView.this, msg);
+				}
+			}
+		};
+		finder.execute();
+	}
+
+	/**
+	 * 空白で区切られた、または連続した16進数の文字列をバイト列に変換します。
+	 */
+	private static byte[] parseBytes(String text) {
+		final var digits = text.replaceAll("\\s+", "");
+		if (digits.isEmpty() || digits.length() % 2 != 0) throw new NumberFormatException(text);
+		final var bytes = new byte[digits.length() / 2];
+		for (var i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(digits.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+
+	/**
+	 * 行数と表示範囲に合わせてスクロールバーを更新します。
+	 */
+	private void updateScrollBar() {
+		final var total = (int) ((length + columns - 1) / columns);
+		final var extent = Math.max(1, getVisibleRows());
+		scroll.setValues(Math.min(scroll.getValue(), Math.max(0, total - extent)), Math.min(extent, total), 0, total);
+		scroll.setBlockIncrement(extent);
+	}
+
+	/**
+	 * 指定行数だけスクロールします。
+	 */
+	private void scrollRows(int delta) {
+		scroll.setValue(scroll.getValue() + delta);
+	}
+
+	/**
+	 * 選択されているバイト列を、選択がない場合は表示されている行を、
+	 * {@link Dump}で16進数ダンプの文字列に変換してクリップボードに複写します。
+	 */
+	public void copy() {
+		final long from, to;
+		if (selectionStart >= 0) {
+			from = selectionStart;
+			to = Math.min(length, selectionStart + selectionLength);
+		} else {
+			from = (long) scroll.getValue() * columns;
+			to = Math.min(length, from + (long) getVisibleRows() * columns);
+		}
+		if (from >= to) return;
+		final var bytes = new byte[(int) (to - from)];
+		for (var i = 0; i < bytes.length; i++) bytes[i] = get(from + i);
+		final var text = new StringWriter();
+		try (var dump = new Dump(new ByteArrayInputStream(bytes), columns, false)) {
+			dump.transferTo(text);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		final var selection = new StringSelection(text.toString());
+		Toolkit.getDefaultToolkit().getSystemClipboard().setContents(selection, selection);
+	}
+
+	/**
+	 * 描画領域に収まる行数を返します。
+	 */
+	private int getVisibleRows() {
+		final var height = rows.getFontMetrics(rows.getFont()).getHeight();
+		return rows.getHeight() / Math.max(1, height);
+	}
+
+	/**
+	 * スクロールと複写のためのキー操作を登録します。
+	 */
+	private void installKeys() {
+		final var imap = rows.getInputMap(WHEN_FOCUSED);
+		final var amap = rows.getActionMap();
+		bind(imap, amap, KeyEvent.VK_UP, 0, "up", () -> scrollRows(-1));
+		bind(imap, amap, KeyEvent.VK_DOWN, 0, "down", () -> scrollRows(1));
+		bind(imap, amap, KeyEvent.VK_PAGE_UP, 0, "pageUp", () -> scrollRows(-getVisibleRows()));
+		bind(imap, amap, KeyEvent.VK_PAGE_DOWN, 0, "pageDown", () -> scrollRows(getVisibleRows()));
+		bind(imap, amap, KeyEvent.VK_HOME, KeyEvent.CTRL_DOWN_MASK, "top", () -> scroll.setValue(0));
+		bind(imap, amap, KeyEvent.VK_END, KeyEvent.CTRL_DOWN_MASK, "bottom", () -> scroll.setValue(scroll.getMaximum()));
+		bind(imap, amap, KeyEvent.VK_C, KeyEvent.CTRL_DOWN_MASK, "copy", this::copy);
+	}
+
+	private static void bind(InputMap imap, ActionMap amap, int key, int mod, String name, Runnable action) {
+		imap.put(KeyStroke.getKeyStroke(key, mod), name);
+		amap.put(name, new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				action.run();
+			}
+		});
+	}
+
+	/**
+	 * 表示範囲の行のみを描画する部品です。
+	 */
+	private final class Rows extends JComponent {
+		private static final long serialVersionUID = 1L;
+		private char[] line = new char[0];
+
+		Rows() {
+			setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+			setBackground(Color.WHITE);
+			setForeground(Color.BLACK);
+			setOpaque(true);
+			setFocusable(true);
+		}
+
+		@Override
+		protected void paintComponent(Graphics g) {
+			final var clip = g.getClipBounds();
+			g.setColor(getBackground());
+			g.fillRect(clip.x, clip.y, clip.width, clip.height);
+			final var fm = g.getFontMetrics(getFont());
+			final var height = fm.getHeight();
+			final var digits = Math.max(8, (64 - Long.numberOfLeadingZeros(Math.max(1, length - 1)) + 3) / 4);
+			final var hexStart = digits + 2;
+			final var textStart = hexStart + columns * 3 + 1;
+			if (line.length != textStart + columns) line = new char[textStart + columns];
+			final var first = scroll.getValue();
+			final var count = getHeight() / height + 1;
+			g.setFont(getFont());
+			for (var r = 0; r < count; r++) {
+				final var offset = (long) (first + r) * columns;
+				if (offset >= length) break;
+				final var n = (int) Math.min(columns, length - offset);
+				final var y = r * height;
+				if (y + height < clip.y || y > clip.y + clip.height) continue;
+				format(offset, n, digits, hexStart, textStart);
+				g.setColor(getForeground());
+				g.drawChars(line, 0, textStart + n, 2, y + fm.getAscent());
+				paintSelection(g, fm, offset, n, y, hexStart, textStart);
+			}
+		}
+
+		/**
+		 * 1行分の位置と16進数と文字を、再利用される配列に書き込みます。
+		 */
+		private void format(long offset, int n, int digits, int hexStart, int textStart) {
+			var v = offset;
+			for (var i = digits - 1; i >= 0; i--, v >>>= 4) {
+				line[i] = HEX_TABLE[(int) (v & 0xF) * 2 + 1];
+			}
+			Arrays.fill(line, digits, line.length, ' ');
+			for (var i = 0; i < n; i++) {
+				final var b = get(offset + i) & 0xFF;
+				line[hexStart + i * 3] = HEX_TABLE[b * 2];
+				line[hexStart + i * 3 + 1] = HEX_TABLE[b * 2 + 1];
+				line[textStart + i] = b >= 0x20 && b <= 0x7E ? (char) b : '.';
+			}
+		}
+
+		/**
+		 * 行に含まれる選択範囲を、強調表示の色で描画し直します。
+		 */
+		private void paintSelection(Graphics g, FontMetrics fm, long offset, int n, int y, int hexStart, int textStart) {
+			if (selectionStart < 0) return;
+			final var from = Math.max(selectionStart, offset);
+			final var to = Math.min(selectionStart + selectionLength, offset + n);
+			if (from >= to) return;
+			final var a = (int) (from - offset);
+			final var b = (int) (to - offset);
+			final var width = fm.charWidth('0');
+			final var hex = hexStart + a * 3;
+			final var hexLength = (b - a) * 3 - 1;
+			final var text = textStart + a;
+			g.setColor(SystemColor.textHighlight);
+			g.fillRect(2 + hex * width, y, hexLength * width, fm.getHeight());
+			g.fillRect(2 + text * width, y, (b - a) * width, fm.getHeight());
+			g.setColor(SystemColor.textHighlightText);
+			g.drawChars(line, hex, hexLength, 2 + hex * width, y + fm.getAscent());
+			g.drawChars(line, text, b - a, 2 + text * width, y + fm.getAscent());
+		}
+	}
+}
@@ -11,12 +11,14 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ItemEvent;
 import java.awt.event.KeyEvent;
+import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import javax.swing.*;
 import javax.swing.border.EtchedBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.JTextComponent;
 
 /**
@@ -249,14 +251,37 @@ public final class LeafReplaceDialog extends LeafDialog {
 		setContentSize(new Dimension(500, Math.max(button_y, ch_y) + 10));
 	}
 
+	/**
+	 * 対象範囲の全ての一致箇所を置換します。
+	 * 一致箇所は文書を複製せずに検索され、置換は一致箇所毎の最小限の編集として後方から適用されます。
+	 */
 	private void replaceAll() {
-		setRegion(radio_region_wholetext.isSelected());
-		updatePattern(false);
-		var repl = (ch_paste.isSelected()) ? getClipboardText() : getText(combo_replace);
-		textComp.setSelectionStart(offset);
-		textComp.setSelectionEnd(offset + region.length());
-		textComp.replaceSelection(matcher.replaceAll(repl));
+		final var pattern = compilePattern(false);
+		if (pattern == null) return;
+		final var repl = (ch_paste.isSelected()) ? getClipboardText() : getText(combo_replace);
+		if (repl == null) return;
+		final var doc = textComp.getDocument();
+		final var whole = radio_region_wholetext.isSelected();
+		final var start = whole ? 0 : textComp.getSelectionStart();
+		final var end = whole ? doc.getLength() : textComp.getSelectionEnd();
+		final var matches = new Matches();
+		doc.render(() -> matches.collect(pattern.matcher(new DocumentSequence(doc, start, end - start)), start, repl));
 		addItem(combo_replace, getText(combo_replace));
+		if (matches.count == 0) {
+			showMessage(translate("not_found", getText(combo_pattern)));
+			return;
+		}
+		try {
+			if (doc instanceof SyntaxDocument) {
+				((SyntaxDocument) doc).replace(matches.offsets, matches.lengths, matches.texts, matches.count);
+			} else for (var i = matches.count - 1; i >= 0; i--) {
+				doc.remove(matches.offsets[i], matches.lengths[i]);
+				doc.insertString(matches.offsets[i], matches.texts[i], null);
+			}
+		} catch (BadLocationException ex) {
+			throw new IllegalStateException(ex);
+		}
+		if (!whole) textComp.select(start, end + matches.delta);
 	}
 
 	private void replaceSelection() {
@@ -376,6 +401,19 @@ public final class LeafReplaceDialog extends LeafDialog {
 	 * @param isLiteralMode 正規表現検索を無効にする場合
 	 */
 	private void updatePattern(boolean isLiteralMode) {
+		final var pattern = compilePattern(isLiteralMode);
+		this.matcher = pattern != null ? pattern.matcher(this.region) : null;
+	}
+
+	/**
+	 * 検索条件から正規表現パターンを生成します。
+	 * 構文に誤りがある場合は、その旨を表示してnullを返します。
+	 *
+	 * @param isLiteralMode 正規表現検索を無効にする場合
+	 *
+	 * @return パターン
+	 */
+	private Pattern compilePattern(boolean isLiteralMode) {
 		var opt = 0;
 		if (!ch_case.isSelected()) {
 			opt |= Pattern.UNICODE_CASE;
@@ -385,11 +423,54 @@ public final class LeafReplaceDialog extends LeafDialog {
 		if (ch_dotall.isSelected()) opt |= Pattern.DOTALL;
 		var txt = getText(combo_pattern);
 		try {
-			var p = Pattern.compile(txt, opt);
-			this.matcher = p.matcher(this.region);
+			return Pattern.compile(txt, opt);
 		} catch (PatternSyntaxException ex) {
 			showMessage(ex.getDescription());
-			matcher = null;
+			return null;
+		}
+	}
+
+	/**
+	 * 全て置換する際の一致箇所と置換後の文字列の一覧です。
+	 */
+	private static final class Matches {
+		int[] offsets = new int[16];
+		int[] lengths = new int[16];
+		String[] texts = new String[16];
+		int count;
+		int delta;
+
+		/**
+		 * 全ての一致箇所と置換後の文字列を集めます。
+		 * 置換後の文字列がグループを参照しない場合は、文字列を一致箇所毎に生成しません。
+		 *
+		 * @param matcher 検索範囲に対する照合器
+		 * @param base    検索範囲の文書内の開始位置
+		 * @param repl    置換後の文字列
+		 */
+		void collect(Matcher matcher, int base, String repl) {
+			final var literal = repl.indexOf('$') < 0 && repl.indexOf('\\') < 0;
+			final var sb = new StringBuilder();
+			var last = 0;
+			while (matcher.find()) {
+				var text = repl;
+				if (!literal) {
+					sb.setLength(0);
+					matcher.appendReplacement(sb, repl);
+					text = sb.substring(matcher.start() - last);
+					last = matcher.end();
+				}
+				if (count == offsets.length) {
+					offsets = Arrays.copyOf(offsets, count * 2);
+					lengths = Arrays.copyOf(lengths, count * 2);
+					texts = Arrays.copyOf(texts, count * 2);
+				}
+				offsets[count] = base + matcher.start();
+				lengths[count] = matcher.end() - matcher.start();
+				texts[count] = text;
+				delta += text.length() - lengths[count];
+				count++;
+			}
 		}
 	}
 
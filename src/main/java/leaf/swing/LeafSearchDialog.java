@@ -9,16 +9,29 @@ import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
-import java.util.regex.Matcher;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import javax.swing.*;
 import javax.swing.border.EtchedBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.CaretEvent;
+import javax.swing.event.CaretListener;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
 import javax.swing.text.JTextComponent;
 
 /**
  * {@link JTextComponent}の文字列検索用のダイアログです。
+ * <p>
+ * 検索条件を入力する度に、選択範囲の先頭以降で最初の一致箇所を背景で検索して選択します。
+ * 入力が続いた場合は古い検索を取り消し、時間のかかり過ぎる検索は打ち切ります。
  *
  * @author 無線部開発班
  * @since 2010年5月22日
@@ -49,7 +62,15 @@ public final class LeafSearchDialog extends LeafDialog {
 		SEARCH_LAST
 	}
 	private static final int HISTORY_MAX = 30;
+	private static final Color HIGHLIGHT = new Color(255, 200, 0, 96);
+	/**
+	 * 入力中の検索条件で検索する時間の上限(ミリ秒)です。
+	 */
+	private static final long LIVE_TIMEOUT = 1000;
+	private final MatchListener listener = new MatchListener();
+	private final CaretListener liveListener = this::liveCaretUpdate;
 	private JButton button_close;
+	private JButton button_find_all;
 	private JButton button_first;
 	private JButton button_next;
 	private JCheckBox ch_case;
@@ -60,8 +81,13 @@ public final class LeafSearchDialog extends LeafDialog {
 	private JPanel panel_updown;
 	private JRadioButton radio_down;
 	private JRadioButton radio_up;
-	private Matcher matcher;
+	private DocumentSearch engine;
 	private JTextComponent textComp;
+	private JTextComponent highlighted;
+	private Object highlight;
+	private Object liveHighlight;
+	private boolean isUpdatingCombo = false;
+	private String matchStatus = "";
 
 	/**
 	 * このダイアログの所有者を指定してモーダレスダイアログを構築します。
@@ -93,6 +119,7 @@ public final class LeafSearchDialog extends LeafDialog {
 	private void addItem(JComboBox<String> combo, String text) {
 		DefaultComboBoxModel<String> model;
 		if (text != null && !text.isEmpty()) {
+			isUpdatingCombo = true;
 			model = (DefaultComboBoxModel<String>) combo.getModel();
 			model.removeElement(text);
 			model.insertElementAt(text, 0);
@@ -100,6 +127,7 @@ public final class LeafSearchDialog extends LeafDialog {
 				model.removeElementAt(HISTORY_MAX);
 			}
 			combo.setSelectedIndex(0);
+			isUpdatingCombo = false;
 		}
 	}
 
@@ -123,6 +151,10 @@ public final class LeafSearchDialog extends LeafDialog {
 	 */
 	public void setTextComponent(JTextComponent comp) {
 		final var old = this.textComp;
+		if (comp != old) {
+			hideLive();
+			hideAll();
+		}
 		this.textComp = comp;
 		firePropertyChange("textComponent", old, comp);
 	}
@@ -161,19 +193,30 @@ public final class LeafSearchDialog extends LeafDialog {
 		group.add(radio_down);
 		button_next = new JButton(translate("button_find_next"));
 		button_first = new JButton(translate("button_find_first"));
+		button_find_all = new JButton(translate("button_find_all"));
 		button_close = new JButton(translate("button_close"));
 		add(button_next);
 		add(button_first);
+		add(button_find_all);
 		add(button_close);
 		button_next.setMnemonic(KeyEvent.VK_N);
 		button_first.setMnemonic(KeyEvent.VK_F);
+		button_find_all.setMnemonic(KeyEvent.VK_A);
 		button_close.setMnemonic(KeyEvent.VK_C);
 		layoutComponents();
 		combo_pattern.getEditor().addActionListener(e -> search((radio_down.isSelected()) ? Ward.SEARCH_DOWNWARD : Ward.SEARCH_UPWARD));
 		ch_regex.addActionListener(e -> ch_dotall.setEnabled(ch_regex.isSelected()));
 		button_next.addActionListener(e -> search((radio_down.isSelected()) ? Ward.SEARCH_DOWNWARD : Ward.SEARCH_UPWARD));
 		button_first.addActionListener(e -> search((radio_down.isSelected()) ? Ward.SEARCH_FIRST : Ward.SEARCH_LAST));
+		button_find_all.addActionListener(e -> searchAll());
 		button_close.addActionListener(e -> dispose());
+		ch_case.addActionListener(e -> searchLive());
+		ch_regex.addActionListener(e -> searchLive());
+		ch_dotall.addActionListener(e -> searchLive());
+		final var editor = combo_pattern.getEditor().getEditorComponent();
+		if (editor instanceof JTextComponent) {
+			((JTextComponent) editor).getDocument().addDocumentListener(new LiveSearchListener());
+		}
 	}
 
 	private void layoutComponents() {
@@ -190,7 +233,8 @@ public final class LeafSearchDialog extends LeafDialog {
 		ch_y += setBounds(ch_dotall, 5, ch_y, 190) + 5;
 		var button_y = 10;
 		button_y += setBounds(button_next, 380, button_y, 115) + 3;
-		button_y += setBounds(button_first, 380, button_y, 115) + 23;
+		button_y += setBounds(button_first, 380, button_y, 115) + 3;
+		button_y += setBounds(button_find_all, 380, button_y, 115) + 23;
 		button_y += setBounds(button_close, 380, button_y, 115) + 10;
 		setContentSize(new Dimension(500, Math.max(button_y, ch_y) + 10));
 	}
@@ -208,6 +252,7 @@ public final class LeafSearchDialog extends LeafDialog {
 			showMessage(translate("search_pattern_empty"));
 			return -1;
 		} else {
+			hideLive();
 			addItem(combo_pattern, getText(combo_pattern));
 			updatePattern(!ch_regex.isSelected());
 			textComp.requestFocusInWindow();
@@ -230,10 +275,182 @@ public final class LeafSearchDialog extends LeafDialog {
 		}
 	}
 
+	/**
+	 * 入力中の検索条件で、選択範囲の先頭以降で最初の一致箇所を背景で検索します。
+	 * 見つかった一致箇所は選択され、ダイアログに焦点があっても見えるように強調表示されます。
+	 * 検索条件が正規表現として不正な場合は何もしません。
+	 */
+	private void searchLive() {
+		if (textComp == null || !isVisible()) return;
+		final var text = getText(combo_pattern);
+		if (text.isEmpty() || !updatePattern(!ch_regex.isSelected(), true)) {
+			if (engine != null) engine.cancelFind();
+			hideLive();
+			return;
+		}
+		final var comp = textComp;
+		engine.findLater(comp.getSelectionStart(), LIVE_TIMEOUT).whenComplete((found, ex) -> {
+			if (ex instanceof CancellationException || comp != textComp) return;
+			if (ex != null) {
+				hideLive();
+				setMatchStatus(translate(ex instanceof TimeoutException ? "search_timeout" : "not_found", text));
+			} else if (found == null) {
+				hideLive();
+				setMatchStatus(translate("not_found", text));
+			} else {
+				comp.select(found[0], found[1]);
+				showLive(found[0], found[1]);
+				if (highlighted == null) setMatchStatus("");
+			}
+		});
+	}
+
+	/**
+	 * 入力中の検索条件の一致箇所を強調表示します。
+	 */
+	private void showLive(int start, int end) {
+		final var painter = new DefaultHighlighter.DefaultHighlightPainter(textComp.getSelectionColor());
+		try {
+			if (liveHighlight == null) {
+				liveHighlight = textComp.getHighlighter().addHighlight(start, end, painter);
+				textComp.addCaretListener(liveListener);
+			} else {
+				textComp.getHighlighter().changeHighlight(liveHighlight, start, end);
+			}
+		} catch (BadLocationException ex) {
+			hideLive();
+		}
+	}
+
+	/**
+	 * 選択範囲が入力中の検索条件の一致箇所から外れた場合に強調表示を終了します。
+	 */
+	private void liveCaretUpdate(CaretEvent e) {
+		final var live = (Highlighter.Highlight) liveHighlight;
+		if (live == null) return;
+		final var start = textComp.getSelectionStart();
+		final var end = textComp.getSelectionEnd();
+		if (start != live.getStartOffset() || end != live.getEndOffset()) hideLive();
+	}
+
+	/**
+	 * 入力中の検索条件の一致箇所の強調表示を終了します。
+	 */
+	private void hideLive() {
+		if (liveHighlight != null && textComp != null) {
+			textComp.getHighlighter().removeHighlight(liveHighlight);
+			textComp.removeCaretListener(liveListener);
+		}
+		liveHighlight = null;
+	}
+
+	/**
+	 * 全ての一致箇所を背景で検索して強調表示し、文書が変更される度に更新します。
+	 * 一致箇所の個数は{@link #getMatchStatus()}で取得できます。
+	 *
+	 * @return 検索を開始した場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public boolean searchAll() {
+		if (getText(combo_pattern).isEmpty()) {
+			showMessage(translate("search_pattern_empty"));
+			return false;
+		}
+		hideLive();
+		addItem(combo_pattern, getText(combo_pattern));
+		updatePattern(!ch_regex.isSelected());
+		if (engine == null) return false;
+		showAll();
+		return true;
+	}
+
+	/**
+	 * 全ての一致箇所の強調表示を開始します。
+	 */
+	private void showAll() {
+		hideAll();
+		engine.addChangeListener(listener);
+		engine.setBackgroundScanEnabled(true);
+		textComp.addCaretListener(listener);
+		try {
+			highlight = textComp.getHighlighter().addHighlight(0, 0, new MatchHighlightPainter(engine, HIGHLIGHT));
+		} catch (BadLocationException ex) {
+			highlight = null;
+		}
+		highlighted = textComp;
+		highlighted.repaint();
+		updateMatchStatus();
+	}
+
+	/**
+	 * 全ての一致箇所の強調表示を終了します。
+	 */
+	private void hideAll() {
+		if (highlighted == null) return;
+		if (highlight != null) highlighted.getHighlighter().removeHighlight(highlight);
+		highlighted.removeCaretListener(listener);
+		highlighted.repaint();
+		if (engine != null) {
+			engine.removeChangeListener(listener);
+			engine.setBackgroundScanEnabled(false);
+		}
+		highlighted = null;
+		highlight = null;
+		setMatchStatus("");
+	}
+
+	/**
+	 * 一致箇所の個数と、選択範囲が一致箇所である場合はその番号を表す文字列を返します。
+	 * 全ての一致箇所を強調表示していない場合は、入力中の検索条件が見つからなかった場合の通知か空文字列を返します。
+	 *
+	 * @return 一致箇所の状況
+	 *
+	 * @since 2026/10/17
+	 */
+	public String getMatchStatus() {
+		return matchStatus;
+	}
+
+	private void setMatchStatus(String status) {
+		final var old = this.matchStatus;
+		this.matchStatus = status;
+		firePropertyChange("matchStatus", old, status);
+	}
+
+	private void updateMatchStatus() {
+		if (highlighted == null || engine == null) return;
+		final var total = engine.getMatchCount();
+		if (!engine.isComplete()) {
+			setMatchStatus(translate("match_scanning", total));
+			return;
+		}
+		final var index = engine.indexOf(highlighted.getSelectionStart(), highlighted.getSelectionEnd());
+		if (index >= 0) setMatchStatus(translate("match_index", index + 1, total));
+		else setMatchStatus(translate("match_count", total));
+	}
+
 	private boolean searchDownward(int position) {
-		if (matcher == null) return true;
-		if (matcher.find(position)) {
-			textComp.select(matcher.start(), matcher.end());
+		if (engine == null) return true;
+		return select(engine.find(position));
+	}
+
+	private boolean searchUpward(int caretPosition) {
+		if (engine == null) return true;
+		if (caretPosition < 0) caretPosition = textComp.getDocument().getLength();
+		return select(engine.findPrevious(caretPosition));
+	}
+
+	/**
+	 * 指定された一致箇所を選択します。
+	 *
+	 * @param found 一致箇所の開始位置と終了位置の配列 存在しない場合null
+	 *
+	 * @return 選択した場合true
+	 */
+	private boolean select(int[] found) {
+		if (found != null) {
+			textComp.select(found[0], found[1]);
 			return true;
 		} else {
 			showMessage(translate("not_found", getText(combo_pattern)));
@@ -241,26 +458,16 @@ public final class LeafSearchDialog extends LeafDialog {
 		}
 	}
 
-	private boolean searchUpward(int caretPosition) {
-		if (matcher == null) return true;
-		var found = false;
-		int start = 0, end = 0, mstart, mend;
-		while (matcher.find(end)) {
-			mstart = matcher.start();
-			mend = matcher.end();
-			if (mend <= caretPosition && textComp.getSelectionStart() != mstart) {
-				start = mstart;
-				end = mend;
-				found = true;
-			} else if (caretPosition < 0) {
-				start = mstart;
-				end = mend;
-				found = true;
-			} else break;
-		}
-		if (found) textComp.select(start, end);
-		else showMessage(translate("not_found", getText(combo_pattern)));
-		return found;
+	/**
+	 * ダイアログを閉じて、検索対象の文書の監視を終了します。
+	 */
+	@Override
+	public void dispose() {
+		hideLive();
+		hideAll();
+		if (engine != null) engine.dispose();
+		engine = null;
+		super.dispose();
 	}
 
 	private int setBounds(JComponent comp, int x, int y, int width) {
@@ -278,6 +485,19 @@ public final class LeafSearchDialog extends LeafDialog {
 	 * @param isLiteralMode 正規表現検索を無効にする場合
 	 */
 	private void updatePattern(boolean isLiteralMode) {
+		updatePattern(isLiteralMode, false);
+	}
+
+	/**
+	 * 正規表現パターンを更新します。
+	 * 入力中の検索条件の場合は、構文の誤りを通知せずに現在のパターンを維持します。
+	 *
+	 * @param isLiteralMode 正規表現検索を無効にする場合
+	 * @param isTyping      入力中の検索条件の場合
+	 *
+	 * @return 更新した場合true
+	 */
+	private boolean updatePattern(boolean isLiteralMode, boolean isTyping) {
 		var opt = 0;
 		if (!ch_case.isSelected()) {
 			opt |= Pattern.UNICODE_CASE;
@@ -286,12 +506,61 @@ public final class LeafSearchDialog extends LeafDialog {
 		if (isLiteralMode) opt |= Pattern.LITERAL;
 		if (ch_dotall.isSelected()) opt |= Pattern.DOTALL;
 		var patternText = getText(combo_pattern);
+		final var doc = textComp.getDocument();
+		final var shown = highlighted != null;
+		if (engine != null && engine.getDocument() != doc) {
+			hideAll();
+			engine.dispose();
+			engine = null;
+		}
 		try {
 			var pattern = Pattern.compile(patternText, opt);
-			matcher = pattern.matcher(textComp.getText());
+			if (engine == null) engine = new DocumentSearch(doc);
+			engine.setPattern(pattern);
+			if (shown && highlighted == null) showAll();
+			return true;
 		} catch (PatternSyntaxException ex) {
+			if (isTyping) return false;
 			showMessage(ex.getDescription());
-			matcher = null;
+			hideAll();
+			if (engine != null) engine.dispose();
+			engine = null;
+			return false;
+		}
+	}
+
+	/**
+	 * 一致箇所の変化と選択範囲の移動に合わせて、強調表示と一致箇所の状況を更新します。
+	 */
+	private final class MatchListener implements ChangeListener, CaretListener {
+		@Override
+		public void stateChanged(ChangeEvent e) {
+			if (highlighted != null) highlighted.repaint();
+			updateMatchStatus();
+		}
+
+		@Override
+		public void caretUpdate(CaretEvent e) {
+			updateMatchStatus();
+		}
+	}
+
+	/**
+	 * 検索条件が入力される度に、入力中の検索条件で検索します。
+	 */
+	private final class LiveSearchListener implements DocumentListener {
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			if (!isUpdatingCombo) SwingUtilities.invokeLater(() -> searchLive());
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			if (!isUpdatingCombo) SwingUtilities.invokeLater(() -> searchLive());
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
 		}
 	}
 
@@ -28,6 +28,10 @@ public class LeafTextPane extends JTextPane {
 	 */
 	public static final int CARET_REPLACE_MODE = 0;
 	private static final long serialVersionUID = 1L;
+	/**
+	 * 括弧の検索で1回に読み込む文字数です。
+	 */
+	private static final int BRACE_CHUNK = 8192;
 	private Color cursorColor = Color.BLUE;
 	private LeafCaret caret;
 	private int tabSize = 8;
@@ -176,7 +180,9 @@ public class LeafTextPane extends JTextPane {
 	 */
 	@Override
 	public String getText() {
-		return super.getText().replaceAll("(\r\n|\r)", "\n");
+		final var text = super.getText();
+		if (text.indexOf('\r') < 0) return text;
+		return text.replaceAll("(\r\n|\r)", "\n");
 	}
 
 	/**
@@ -404,29 +410,68 @@ public class LeafTextPane extends JTextPane {
 	}
 
 	private int searchBraceAfter(int index, char brace, char pair) {
-		final var text = getText();
-		int length = text.length(), nest = 1;
-		for (var i = index + 1; i < length; i++) {
-			var ch = text.charAt(i);
-			if (ch == pair) nest++;
-			if (ch == brace) nest--;
-			if (nest == 0) return i;
+		final var doc = getDocument();
+		final var seg = new Segment();
+		final var skip = isLiteralSkipped(index);
+		final var length = doc.getLength();
+		var nest = 1;
+		try {
+			for (var base = index + 1; base < length; base += BRACE_CHUNK) {
+				doc.getText(base, Math.min(BRACE_CHUNK, length - base), seg);
+				for (var i = 0; i < seg.count; i++) {
+					final var ch = seg.array[seg.offset + i];
+					if (ch != pair && ch != brace) continue;
+					if (skip && isLiteral(base + i)) continue;
+					if (ch == pair) nest++;
+					else if (--nest == 0) return base + i;
+				}
+			}
+		} catch (BadLocationException ex) {
 		}
 		return -1;
 	}
 
 	private int searchBraceBefore(int index, char brace, char pair) {
-		final var text = getText();
+		final var doc = getDocument();
+		final var seg = new Segment();
+		final var skip = isLiteralSkipped(index);
 		var nest = 1;
-		for (var i = index - 1; i >= 0; i--) {
-			var ch = text.charAt(i);
-			if (ch == pair) nest++;
-			if (ch == brace) nest--;
-			if (nest == 0) return i;
+		try {
+			for (var end = index; end > 0; end -= BRACE_CHUNK) {
+				final var base = Math.max(0, end - BRACE_CHUNK);
+				doc.getText(base, end - base, seg);
+				for (var i = seg.count - 1; i >= 0; i--) {
+					final var ch = seg.array[seg.offset + i];
+					if (ch != pair && ch != brace) continue;
+					if (skip && isLiteral(base + i)) continue;
+					if (ch == pair) nest++;
+					else if (--nest == 0) return base + i;
+				}
+			}
+		} catch (BadLocationException ex) {
 		}
 		return -1;
 	}
 
+	/**
+	 * 括弧の検索で文字列リテラルとコメントを読み飛ばすか返します。
+	 * 検索を開始する括弧自体がリテラルやコメントの中にある場合は読み飛ばしません。
+	 *
+	 * @param index 検索を開始する括弧の位置
+	 *
+	 * @return 読み飛ばす場合true
+	 */
+	private boolean isLiteralSkipped(int index) {
+		return getDocument() instanceof SyntaxDocument && !isLiteral(index);
+	}
+
+	private boolean isLiteral(int offset) {
+		final var doc = getDocument();
+		if (!(doc instanceof SyntaxDocument)) return false;
+		final var kind = ((SyntaxDocument) doc).getTokenKind(offset);
+		return kind == SyntaxLexer.KIND_QUOTE || kind == SyntaxLexer.KIND_COMMENT;
+	}
+
 	/**
 	 * 指定した位置にある括弧に対応する括弧の位置を検索して返します。
 	 *
@@ -72,6 +72,7 @@ public class LeafTextScrollPane extends JScrollPane {
 		setCorner(ScrollPaneConstants.UPPER_LEFT_CORNER, new JPanel());
 		setCorner(ScrollPaneConstants.UPPER_RIGHT_CORNER, new JPanel());
 		marks = new ArrayList<>();
+		getViewport().addChangeListener(e -> updateVisibleRange());
 	}
 
 	private BookMark getBookMark(int line) {
@@ -174,6 +175,19 @@ public class LeafTextScrollPane extends JScrollPane {
 		});
 	}
 
+	/**
+	 * 表示されている範囲を{@link SyntaxDocument}に通知して、優先的に強調表示させます。
+	 */
+	private void updateVisibleRange() {
+		final var doc = comp.getDocument();
+		if (doc instanceof SyntaxDocument) {
+			var rect = getViewport().getViewRect();
+			var start = comp.viewToModel2D(rect.getLocation());
+			var end = comp.viewToModel2D(new Point(rect.x + rect.width, rect.y + rect.height));
+			((SyntaxDocument) doc).setVisibleRange(start, end);
+		}
+	}
+
 	/**
 	 * 指定行にキャレットを移動します。行番号は1から始まります。
 	 *
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.util.concurrent.RecursiveAction;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
+
+/**
+ * コンテンツを走査して各行の開始位置を求めます。
+ * <p>
+ * コンテンツを一定の大きさの区間に分割し、
+ * 改行文字の計数と開始位置の書き込みの2段階をフォーク/ジョインで並列に走査します。
+ * 結果は文書を読み込む際に段落の要素を構築するためだけに用いられ、編集には追従しません。
+ * 要素は行毎に生成されるため、この配列を保持しても文書のヒープの使用量は行数に比例したままです。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+final class LineScanner {
+	/**
+	 * 並列に走査する区間の文字数です。
+	 */
+	private static final int CHUNK = 1 << 20;
+
+	private LineScanner() {
+	}
+
+	/**
+	 * コンテンツの各行の開始位置を返します。
+	 * 末尾の改行文字は行の区切りとみなされません。
+	 *
+	 * @param content コンテンツ
+	 *
+	 * @return 開始位置の配列
+	 */
+	static int[] scan(AbstractDocument.Content content) {
+		final var length = content.length();
+		final var chunks = Math.max(1, (length - 1 + CHUNK - 1) / CHUNK);
+		final var counts = new int[chunks];
+		new Scan(content, length - 1, 0, chunks, counts, null, null).invoke();
+		final var offsets = new int[chunks];
+		var total = 1;
+		for (var i = 0; i < chunks; i++) {
+			offsets[i] = total;
+			total += counts[i];
+		}
+		final var starts = new int[total];
+		new Scan(content, length - 1, 0, chunks, null, offsets, starts).invoke();
+		return starts;
+	}
+
+	/**
+	 * 区間の範囲を分割して改行文字を走査するタスクです。
+	 * 開始位置の配列が指定されない場合は、区間毎の改行文字の数を数えます。
+	 */
+	private static final class Scan extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final AbstractDocument.Content content;
+		private final int limit, first, last;
+		private final int[] counts, offsets, starts;
+
+		Scan(AbstractDocument.Content content, int limit, int first, int last, int[] counts, int[] offsets, int[] starts) {
+			this.content = content;
+			this.limit = limit;
+			this.first = first;
+			this.last = last;
+			this.counts = counts;
+			this.offsets = offsets;
+			this.starts = starts;
+		}
+
+		@Override
+		protected void compute() {
+			if (last - first > 1) {
+				final var mid = (first + last) >>> 1;
+				invokeAll(new Scan(content, limit, first, mid, counts, offsets, starts),
+				          new Scan(content, limit, mid, last, counts, offsets, starts));
+				return;
+			}
+			final var from = first * CHUNK;
+			final var to = Math.min(limit, from + CHUNK);
+			final var seg = new Segment();
+			seg.setPartialReturn(true);
+			var found = 0;
+			var index = starts != null ? offsets[first] : 0;
+			try {
+				for (var pos = from; pos < to; pos += seg.count) {
+					content.getChars(pos, to - pos, seg);
+					final var end = seg.offset + seg.count;
+					for (var i = seg.offset; i < end; i++) {
+						if (seg.array[i] != '\n') continue;
+						if (starts != null) starts[index++] = pos + i - seg.offset + 1;
+						else found++;
+					}
+				}
+			} catch (BadLocationException ex) {
+				throw new IllegalStateException(ex);
+			}
+			if (starts == null) counts[first] = found;
+		}
+	}
+}
@@ -6,6 +6,8 @@
 package leaf.swing;
 
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.net.MalformedURLException;
 import java.net.URL;
 import javax.swing.*;
@@ -25,7 +27,10 @@ public final class MainStatusBar extends StatusBar {
 	private static final String defaultURL = GoogleUtils.getNewsURL();
 	private final Properties properties;
 	private final JLabel[] labels;
+	private final JLabel search;
+	private final JProgressBar progress;
 	private final LeafNewsBar bar;
+	private Runnable cancel;
 
 	/**
 	 * ステータスバーを構築します。
@@ -44,6 +49,21 @@ public final class MainStatusBar extends StatusBar {
 		labels[1].setMaximumSize(dim1);
 		labels[0].setPreferredSize(dim0);
 		labels[1].setPreferredSize(dim1);
+		addComp(search = new JLabel("", JLabel.CENTER));
+		search.setMaximumSize(dim0);
+		search.setPreferredSize(dim0);
+		search.setVisible(false);
+		addComp(progress = new JProgressBar());
+		progress.setStringPainted(true);
+		progress.setMaximumSize(dim0);
+		progress.setPreferredSize(dim0);
+		progress.setVisible(false);
+		progress.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				if (cancel != null) cancel.run();
+			}
+		});
 	}
 
 	/**
@@ -113,4 +133,55 @@ public final class MainStatusBar extends StatusBar {
 		labels[index].setText(text);
 	}
 
+	/**
+	 * ステータスバーに検索の状況を表示します。
+	 * 空文字列を指定すると表示を隠します。
+	 *
+	 * @param text 表示文字列
+	 *
+	 * @since 2026/10/17
+	 */
+	public void setSearchText(String text) {
+		search.setText(text);
+		if (search.isVisible() == text.isEmpty()) {
+			search.setVisible(!text.isEmpty());
+			revalidate();
+		}
+	}
+
+	/**
+	 * ステータスバーに処理の進捗を表示します。
+	 * 全体の量に0以下を指定すると進捗の表示を隠して、取り消しの処理も解除します。
+	 *
+	 * @param value 完了した量
+	 * @param max   全体の量
+	 *
+	 * @since 2026/10/17
+	 */
+	public void setProgress(int value, int max) {
+		if (max <= 0) {
+			progress.setVisible(false);
+			setProgressCancelAction(null, null);
+			return;
+		}
+		progress.setMaximum(max);
+		progress.setValue(value);
+		progress.setString(value + "/" + max);
+		progress.setVisible(true);
+		revalidate();
+	}
+
+	/**
+	 * 進捗の表示をクリックした時に処理を取り消す動作を設定します。
+	 *
+	 * @param tip    ツールチップの文字列
+	 * @param action 取り消す動作 解除する場合null
+	 *
+	 * @since 2026/10/17
+	 */
+	public void setProgressCancelAction(String tip, Runnable action) {
+		this.cancel = action;
+		progress.setToolTipText(tip);
+	}
+
 }
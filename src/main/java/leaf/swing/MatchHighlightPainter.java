@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Shape;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+
+/**
+ * {@link DocumentSearch}の一致箇所のうち、表示されている範囲にあるものだけを強調表示します。
+ * <p>
+ * 強調表示は一致箇所の個数に関わらず1個だけ登録され、描画の度に
+ * 描画領域の先頭行と末尾行の位置から一致箇所を二分探索して、その間の一致箇所のみを描画します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+final class MatchHighlightPainter implements Highlighter.HighlightPainter {
+	private final DocumentSearch search;
+	private final DefaultHighlighter.DefaultHighlightPainter painter;
+
+	/**
+	 * 一致箇所と強調表示の色を指定して構築します。
+	 *
+	 * @param search 一致箇所
+	 * @param color  強調表示の色
+	 */
+	public MatchHighlightPainter(DocumentSearch search, Color color) {
+		this.search = search;
+		this.painter = new DefaultHighlighter.DefaultHighlightPainter(color);
+	}
+
+	@Override
+	public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+		final var area = c.getVisibleRect();
+		final var clip = g.getClipBounds();
+		if (clip != null) area.setBounds(area.intersection(clip));
+		if (area.isEmpty() || c.getDocument() != search.getDocument()) return;
+		final var root = c.getDocument().getDefaultRootElement();
+		final var top = c.viewToModel2D(new Point(area.x, area.y));
+		final var bottom = c.viewToModel2D(new Point(area.x + area.width, area.y + area.height));
+		if (top < 0 || bottom < 0) return;
+		final var from = root.getElement(root.getElementIndex(top)).getStartOffset();
+		final var to = root.getElement(root.getElementIndex(bottom)).getEndOffset();
+		final var count = search.getMatchCount();
+		for (var i = Math.max(0, search.previous(from)); i < count; i++) {
+			final var start = search.getStart(i);
+			final var end = search.getEnd(i);
+			if (start > to) break;
+			if (start < end && end > from) painter.paint(g, start, end, bounds, c);
+		}
+	}
+}
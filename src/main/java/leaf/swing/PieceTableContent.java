@@ -0,0 +1,835 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+import leaf.util.CharsetDetector;
+
+/**
+ * 元の文字列と追記専用のバッファを断片の並びで参照する、ピーステーブル方式のコンテンツです。
+ * <p>
+ * 元の文字列は複製されずに参照されます。
+ * 大きなファイルは全体を読み込まずに{@link FileCharSequence}で参照し、必要な区間だけを復号するため、
+ * 元の文字列が占めるヒープはファイルの大きさによらずほぼ一定です。
+ * 挿入された文字列は追記バッファの末尾に書き込まれ、断片の並びは位置をキーとする平衡木で管理されるため、
+ * 編集の計算量は断片の数の対数に比例します。
+ * <p>
+ * {@link Position}の扱いは{@link javax.swing.text.GapContent}と同じで、
+ * 位置は挿入された文字列の後ろに移動し、削除された範囲の位置は削除位置に集まります。
+ * 削除を取り消した場合は、削除範囲にあった位置が元に戻ります。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class PieceTableContent implements AbstractDocument.Content {
+	/**
+	 * 位置の管理に用いる仮想的な間隙の初期の長さです。
+	 */
+	private static final long MARK_GAP = 1L << 56;
+	/**
+	 * 配列を持たない元の文字列から、部分的な読み出しで1回に複写する文字数の上限です。
+	 */
+	private static final int PARTIAL_CHARS = 1 << 16;
+	/**
+	 * 全体を読み込まずに必要な区間だけを復号する、ファイルのバイト数の下限です。
+	 */
+	private static final long WINDOW_BYTES = 1L << 24;
+	private final CharSequence original;
+	private Charset charset;
+	private final char[] originalArray;
+	private final int originalOffset;
+	private char[] added;
+	private int addedLength;
+	private Piece root;
+	private int seed = 0x2545F491;
+
+	private Mark[] marks;
+	private int markCount;
+	private long gapStart, gapEnd;
+	private final ReferenceQueue<StickyPosition> queue;
+	private int unusedMarks;
+
+	/**
+	 * 空のコンテンツを構築します。
+	 */
+	public PieceTableContent() {
+		this("");
+	}
+
+	/**
+	 * 元の文字列を参照するコンテンツを構築します。
+	 * 文字列は複製されないため、構築後に変更してはなりません。
+	 * コンテンツの末尾には、文書の末尾を示す改行文字が追加されます。
+	 *
+	 * @param original 元の文字列
+	 */
+	public PieceTableContent(CharSequence original) {
+		this.original = original;
+		if (original instanceof CharBuffer && ((CharBuffer) original).hasArray()) {
+			final var buffer = (CharBuffer) original;
+			this.originalArray = buffer.array();
+			this.originalOffset = buffer.arrayOffset() + buffer.position();
+		} else {
+			this.originalArray = null;
+			this.originalOffset = 0;
+		}
+		this.added = new char[1024];
+		this.marks = new Mark[64];
+		this.gapStart = 0;
+		this.gapEnd = MARK_GAP;
+		this.queue = new ReferenceQueue<>();
+		final var length = original.length();
+		if (length > 0) root = new Piece(false, 0, length, nextPriority());
+		root = merge(root, new Piece(true, append("\n"), 1, nextPriority()));
+	}
+
+	/**
+	 * ファイルを読み込んでコンテンツを構築します。
+	 * <p>
+	 * ファイルが大きく、文字セットがASCIIと互換性を持ち状態を持たない場合は、
+	 * ファイルを1回だけ走査して区間の位置を記録し、文字は参照された時点で区間毎に復号します。
+	 * この場合、ファイルはコンテンツが参照されなくなるまで読み込み用に開かれたままになります。
+	 * <p>
+	 * それ以外の場合はファイル全体をヒープに読み込みます。
+	 * ファイルが7ビットの文字のみで構成され、文字セットがASCIIと互換性を持つ場合は、
+	 * 読み込んだバイト列を復号せずに、1バイトを1文字として参照します。
+	 * それ以外の場合は、ファイル全体を1個の配列に復号して、改行コードをLFに統一します。
+	 * いずれの場合もファイルはメモリにマップされません。
+	 *
+	 * @param file    読み込むファイル
+	 * @param charset 文字セット
+	 *
+	 * @return コンテンツ
+	 *
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	public static PieceTableContent load(Path file, Charset charset) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() >= WINDOW_BYTES && isWindowable(charset)) {
+				return loadWindowed(file, channel, charset);
+			}
+			return load(read(file, channel), charset);
+		}
+	}
+
+	/**
+	 * ファイルを読み込んで、先頭部分から推定した文字セットで復号します。
+	 * ファイルは1回だけ走査され、推定した文字セットは{@link #getCharset()}で取得できます。
+	 *
+	 * @param file     読み込むファイル
+	 * @param detector 文字セットの推定器
+	 *
+	 * @return コンテンツ
+	 *
+	 * @throws IOException 読み込みに失敗した場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public static PieceTableContent load(Path file, CharsetDetector detector) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() >= WINDOW_BYTES) {
+				final var charset = detector.detect(file);
+				if (isWindowable(charset)) return loadWindowed(file, channel, charset);
+				return load(read(file, channel), charset);
+			}
+			final var bytes = read(file, channel);
+			return load(bytes, detector.detect(bytes));
+		}
+	}
+
+	/**
+	 * 必要な区間だけを復号するコンテンツを構築します。
+	 * UTF-8のバイト順マークは読み飛ばされます。
+	 */
+	private static PieceTableContent loadWindowed(Path file, FileChannel channel, Charset charset) throws IOException {
+		final var head = ByteBuffer.allocate(3);
+		while (head.hasRemaining() && channel.read(head, head.position()) > 0);
+		final var offset = charset.equals(StandardCharsets.UTF_8) && hasUtf8Bom(head.flip()) ? 3 : 0;
+		final var content = new PieceTableContent(FileCharSequence.open(file, charset, offset));
+		content.charset = charset;
+		return content;
+	}
+
+	/**
+	 * 文字の境界から復号を再開できる文字セットか返します。
+	 * ISO-2022系の符号化方式はエスケープで状態が切り替わるため除外されます。
+	 */
+	private static boolean isWindowable(Charset charset) {
+		return isAsciiCompatible(charset) && !charset.name().toUpperCase().startsWith("ISO-2022");
+	}
+
+	/**
+	 * ファイル全体をヒープ上のバッファに読み込みます。
+	 * マップしたバッファを参照し続けると、Windowsではファイルを置き換えられず、
+	 * 他のプロセスがファイルを切り詰めた場合は参照した時点で異常終了するため、メモリにはマップしません。
+	 */
+	private static ByteBuffer read(Path file, FileChannel channel) throws IOException {
+		final var size = channel.size();
+		if (size >= Integer.MAX_VALUE) throw new IOException("file too large: " + file);
+		final var bytes = ByteBuffer.allocate((int) size);
+		while (bytes.hasRemaining() && channel.read(bytes) >= 0);
+		return bytes.flip();
+	}
+
+	/**
+	 * 読み込んだバイト列を指定された文字セットで復号します。
+	 * UTF-8のバイト順マークは読み飛ばされます。
+	 */
+	private static PieceTableContent load(ByteBuffer bytes, Charset charset) throws IOException {
+		if (charset.equals(StandardCharsets.UTF_8) && hasUtf8Bom(bytes)) bytes.position(3);
+		final PieceTableContent content;
+		if (isAsciiCompatible(charset) && isPlainAscii(bytes)) {
+			content = new PieceTableContent(new AsciiSequence(bytes, bytes.position(), bytes.remaining()));
+		} else {
+			final var decoder = charset.newDecoder();
+			decoder.onMalformedInput(CodingErrorAction.REPLACE);
+			decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			final var chars = decoder.decode(bytes);
+			final var array = chars.array();
+			final var offset = chars.arrayOffset() + chars.position();
+			final var end = offset + chars.remaining();
+			var w = offset;
+			for (var r = offset; r < end; r++) {
+				final var ch = array[r];
+				if (ch != '\r') array[w++] = ch;
+				else {
+					array[w++] = '\n';
+					if (r + 1 < end && array[r + 1] == '\n') r++;
+				}
+			}
+			content = new PieceTableContent(CharBuffer.wrap(array, offset, w - offset));
+		}
+		content.charset = charset;
+		return content;
+	}
+
+	/**
+	 * バイト列がUTF-8のバイト順マークで始まるか返します。
+	 */
+	private static boolean hasUtf8Bom(ByteBuffer bytes) {
+		return bytes.remaining() >= 3
+			&& bytes.get(0) == (byte) 0xEF
+			&& bytes.get(1) == (byte) 0xBB
+			&& bytes.get(2) == (byte) 0xBF;
+	}
+
+	/**
+	 * 文字セットが7ビットの文字をASCIIと同じ値に復号するか返します。
+	 */
+	private static boolean isAsciiCompatible(Charset charset) {
+		final var bytes = new byte[0x80];
+		for (var i = 0; i < bytes.length; i++) bytes[i] = (byte) i;
+		final var str = new String(bytes, charset);
+		if (str.length() != bytes.length) return false;
+		for (var i = 0; i < bytes.length; i++) {
+			if (str.charAt(i) != i) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * バイト列が、復帰とエスケープを除く7ビットの文字のみで構成されるか返します。
+	 * エスケープを含む場合は、ISO-2022-JPなどの符号化方式である可能性があります。
+	 */
+	private static boolean isPlainAscii(ByteBuffer bytes) {
+		final var limit = bytes.limit();
+		for (var i = bytes.position(); i < limit; i++) {
+			final var b = bytes.get(i);
+			if (b < 0 || b == '\r' || b == 0x1b) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * ファイルを読み込んだ際の文字セットを返します。
+	 *
+	 * @return 文字セット ファイルから読み込んでいない場合null
+	 *
+	 * @since 2026/10/17
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * 7ビットの文字のバイト列を、文字列として参照します。
+	 */
+	private static final class AsciiSequence implements CharSequence {
+		private final ByteBuffer bytes;
+		private final int offset;
+		private final int length;
+
+		AsciiSequence(ByteBuffer bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) bytes.get(offset + index);
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new AsciiSequence(bytes, offset + start, end - start);
+		}
+
+		void getChars(int begin, int end, char[] dst, int dstPos) {
+			for (var i = offset + begin; i < offset + end; i++) dst[dstPos++] = (char) bytes.get(i);
+		}
+
+		@Override
+		public String toString() {
+			final var chars = new char[length];
+			getChars(0, length, chars, 0);
+			return new String(chars);
+		}
+	}
+
+	/**
+	 * 断片の種類と範囲と、平衡木の節点としての情報を保持します。
+	 */
+	private static final class Piece {
+		final boolean isAdded;
+		final int start;
+		final int priority;
+		int length;
+		int size;
+		Piece left, right;
+
+		Piece(boolean isAdded, int start, int length, int priority) {
+			this.isAdded = isAdded;
+			this.start = start;
+			this.length = length;
+			this.size = length;
+			this.priority = priority;
+		}
+
+		void update() {
+			size = length + sizeOf(left) + sizeOf(right);
+		}
+	}
+
+	private static int sizeOf(Piece piece) {
+		return piece != null ? piece.size : 0;
+	}
+
+	private int nextPriority() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+
+	/**
+	 * 2個の平衡木を順番に連結します。
+	 */
+	private static Piece merge(Piece a, Piece b) {
+		if (a == null) return b;
+		if (b == null) return a;
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			a.update();
+			return a;
+		} else {
+			b.left = merge(a, b.left);
+			b.update();
+			return b;
+		}
+	}
+
+	/**
+	 * 平衡木を指定された文字数の位置で分割します。
+	 * 位置が断片の途中にある場合は断片を2個に分割します。
+	 *
+	 * @return 前半と後半の平衡木
+	 */
+	private Piece[] split(Piece t, int k) {
+		if (t == null) return new Piece[2];
+		final var ls = sizeOf(t.left);
+		if (k <= ls) {
+			final var pair = split(t.left, k);
+			t.left = pair[1];
+			t.update();
+			pair[1] = t;
+			return pair;
+		}
+		if (k >= ls + t.length) {
+			final var pair = split(t.right, k - ls - t.length);
+			t.right = pair[0];
+			t.update();
+			pair[0] = t;
+			return pair;
+		}
+		final var off = k - ls;
+		final var tail = new Piece(t.isAdded, t.start + off, t.length - off, nextPriority());
+		final var right = merge(tail, t.right);
+		t.length = off;
+		t.right = null;
+		t.update();
+		return new Piece[] {t, right};
+	}
+
+	/**
+	 * 文字列を追記バッファの末尾に書き込みます。
+	 *
+	 * @return 書き込んだ位置
+	 */
+	private int append(String str) {
+		final var start = addedLength;
+		final var len = str.length();
+		if (start + len > added.length) {
+			added = Arrays.copyOf(added, Math.max(start + len, added.length * 2));
+		}
+		str.getChars(0, len, added, start);
+		addedLength += len;
+		return start;
+	}
+
+	/**
+	 * 指定位置の直前の断片が追記バッファの末尾で終わる場合に、その断片を延長します。
+	 * 連続した入力が1個の断片にまとまるため、断片の数の増加が抑えられます。
+	 *
+	 * @return 延長した場合true
+	 */
+	private boolean extend(int where, int end, int len) {
+		if (where == 0) return false;
+		var t = root;
+		var pos = where;
+		while (t != null) {
+			final var ls = sizeOf(t.left);
+			if (pos <= ls) t = t.left;
+			else if (pos > ls + t.length) {
+				pos -= ls + t.length;
+				t = t.right;
+			} else break;
+		}
+		if (t == null || !t.isAdded || pos - sizeOf(t.left) != t.length || t.start + t.length != end) return false;
+		final var target = t;
+		t = root;
+		pos = where;
+		while (t != target) {
+			t.size += len;
+			final var ls = sizeOf(t.left);
+			if (pos <= ls) t = t.left;
+			else {
+				pos -= ls + t.length;
+				t = t.right;
+			}
+		}
+		t.length += len;
+		t.size += len;
+		return true;
+	}
+
+	@Override
+	public Position createPosition(int offset) throws BadLocationException {
+		if (offset < 0 || offset > length()) throw new BadLocationException("Invalid position", offset);
+		while (queue.poll() != null) unusedMarks++;
+		if (unusedMarks > Math.max(32, markCount / 2)) removeUnusedMarks();
+		final long index = offset < gapStart ? offset : offset + (gapEnd - gapStart);
+		var pos = lowerBound(index);
+		for (var i = pos; i < markCount && marks[i].index == index; i++) {
+			final var sticky = marks[i].get();
+			if (sticky != null) return sticky;
+		}
+		final var sticky = new StickyPosition();
+		final var mark = new Mark(sticky, index, queue);
+		sticky.mark = mark;
+		if (markCount == marks.length) marks = Arrays.copyOf(marks, markCount * 2);
+		System.arraycopy(marks, pos, marks, pos + 1, markCount - pos);
+		marks[pos] = mark;
+		markCount++;
+		return sticky;
+	}
+
+	@Override
+	public int length() {
+		return sizeOf(root);
+	}
+
+	@Override
+	public UndoableEdit insertString(int where, String str) throws BadLocationException {
+		if (where < 0 || where >= length()) throw new BadLocationException("Invalid insert", length());
+		insert(where, str);
+		return new InsertUndo(where, str.length());
+	}
+
+	@Override
+	public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+		if (where < 0 || nitems < 0 || where + nitems >= length()) {
+			throw new BadLocationException("Invalid remove", length() + 1);
+		}
+		final var str = getString(where, nitems);
+		final var edit = new RemoveUndo(where, str);
+		delete(where, nitems);
+		return edit;
+	}
+
+	@Override
+	public String getString(int where, int len) throws BadLocationException {
+		final var seg = new Segment();
+		getChars(where, len, seg);
+		return new String(seg.array, seg.offset, seg.count);
+	}
+
+	@Override
+	public void getChars(int where, int len, Segment txt) throws BadLocationException {
+		if (where < 0 || len < 0 || where + len > length()) throw new BadLocationException("Invalid location", length() + 1);
+		var t = root;
+		var pos = where;
+		while (t != null) {
+			final var ls = sizeOf(t.left);
+			if (pos < ls) t = t.left;
+			else if (pos >= ls + t.length) {
+				pos -= ls + t.length;
+				t = t.right;
+			} else break;
+		}
+		if (t != null) {
+			final var off = pos - sizeOf(t.left);
+			final var avail = t.length - off;
+			if (avail >= len || txt.isPartialReturn()) {
+				if (t.isAdded || originalArray != null) {
+					txt.array = t.isAdded ? added : originalArray;
+					txt.offset = (t.isAdded ? 0 : originalOffset) + t.start + off;
+					txt.count = Math.min(len, avail);
+					return;
+				}
+				if (txt.isPartialReturn() && original instanceof FileCharSequence) {
+					((FileCharSequence) original).getSegment(t.start + off, Math.min(len, avail), txt);
+					return;
+				}
+				len = Math.min(len, avail);
+				if (txt.isPartialReturn()) len = Math.min(len, PARTIAL_CHARS);
+			}
+		}
+		final var array = new char[len];
+		copy(root, where, where + len, array, 0);
+		txt.array = array;
+		txt.offset = 0;
+		txt.count = len;
+	}
+
+	/**
+	 * 平衡木の指定範囲の文字を配列に複写します。
+	 */
+	private void copy(Piece t, int from, int to, char[] dst, int dstPos) {
+		while (t != null && from < to) {
+			final var ls = sizeOf(t.left);
+			if (from < ls) {
+				final var end = Math.min(to, ls);
+				copy(t.left, from, end, dst, dstPos);
+				dstPos += end - from;
+				from = end;
+			}
+			if (from >= to) return;
+			if (from < ls + t.length) {
+				final var s = from - ls;
+				final var e = Math.min(to - ls, t.length);
+				copyPiece(t, s, e, dst, dstPos);
+				dstPos += e - s;
+				from = ls + e;
+			}
+			if (from >= to) return;
+			from -= ls + t.length;
+			to -= ls + t.length;
+			t = t.right;
+		}
+	}
+
+	private void copyPiece(Piece t, int s, int e, char[] dst, int dstPos) {
+		final var begin = t.start + s;
+		final var end = t.start + e;
+		if (t.isAdded) System.arraycopy(added, begin, dst, dstPos, end - begin);
+		else if (originalArray != null) {
+			System.arraycopy(originalArray, originalOffset + begin, dst, dstPos, end - begin);
+		} else if (original instanceof AsciiSequence) {
+			((AsciiSequence) original).getChars(begin, end, dst, dstPos);
+		} else if (original instanceof FileCharSequence) {
+			((FileCharSequence) original).getChars(begin, end, dst, dstPos);
+		} else if (original instanceof String) {
+			((String) original).getChars(begin, end, dst, dstPos);
+		} else {
+			for (var i = begin; i < end; i++) dst[dstPos++] = original.charAt(i);
+		}
+	}
+
+	/**
+	 * 位置の確認を行わずに文字列を挿入します。
+	 */
+	private void insert(int where, String str) {
+		final var len = str.length();
+		if (len == 0) return;
+		final var end = addedLength;
+		final var start = append(str);
+		if (!extend(where, end, len)) {
+			final var pair = split(root, where);
+			root = merge(merge(pair[0], new Piece(true, start, len, nextPriority())), pair[1]);
+		}
+		moveGap(where);
+		if (where == 0) {
+			for (var i = lowerBound(gapEnd); i < markCount && marks[i].index == gapEnd; i++) {
+				marks[i].index = 0;
+			}
+		}
+		gapStart += len;
+	}
+
+	/**
+	 * 位置の確認を行わずに文字列を削除します。
+	 */
+	private void delete(int where, int nitems) {
+		if (nitems == 0) return;
+		final var head = split(root, where);
+		final var tail = split(head[1], nitems);
+		root = merge(head[0], tail[1]);
+		moveGap(where);
+		final var end = gapEnd + nitems;
+		for (var i = lowerBound(gapEnd); i < markCount && marks[i].index < end; i++) {
+			marks[i].index = end;
+		}
+		gapEnd = end;
+	}
+
+	/**
+	 * 位置の管理に用いる仮想的な間隙を指定された位置に移動します。
+	 * 移動先と同じ位置にある位置は、間隙の後ろに配置されます。
+	 */
+	private void moveGap(int where) {
+		final var gap = gapEnd - gapStart;
+		if (where <= gapStart) {
+			final var to = upperBound(gapStart);
+			for (var i = lowerBound(where); i < to; i++) marks[i].index += gap;
+		} else {
+			final var to = lowerBound(where + gap);
+			for (var i = lowerBound(gapEnd); i < to; i++) marks[i].index -= gap;
+		}
+		gapStart = where;
+		gapEnd = where + gap;
+	}
+
+	/**
+	 * 指定された位置以上の位置を持つ最初の要素の番号を返します。
+	 */
+	private int lowerBound(long index) {
+		int low = 0, high = markCount;
+		while (low < high) {
+			final var mid = (low + high) >>> 1;
+			if (marks[mid].index < index) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * 指定された位置より大きな位置を持つ最初の要素の番号を返します。
+	 */
+	private int upperBound(long index) {
+		int low = 0, high = markCount;
+		while (low < high) {
+			final var mid = (low + high) >>> 1;
+			if (marks[mid].index <= index) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	private int offsetOf(long index) {
+		return (int) (index <= gapStart ? index : index - (gapEnd - gapStart));
+	}
+
+	/**
+	 * 参照されなくなった位置を削除します。
+	 */
+	private void removeUnusedMarks() {
+		var count = 0;
+		for (var i = 0; i < markCount; i++) {
+			if (marks[i].get() != null) marks[count++] = marks[i];
+		}
+		Arrays.fill(marks, count, markCount, null);
+		markCount = count;
+		unusedMarks = 0;
+	}
+
+	/**
+	 * 指定された範囲にある位置を、取り消しの際に復元するために記録します。
+	 */
+	private List<UndoPosRef> getPositionsInRange(int offset, int length) {
+		final var refs = new ArrayList<UndoPosRef>();
+		final var gap = gapEnd - gapStart;
+		final long from = offset <= gapStart ? offset : offset + gap;
+		final var end = offset + length;
+		final long to = end < gapStart ? end : end + gap;
+		final var last = upperBound(to);
+		for (var i = lowerBound(from); i < last; i++) {
+			final var offsetOfMark = offsetOf(marks[i].index);
+			if (offsetOfMark >= offset && offsetOfMark <= end) refs.add(new UndoPosRef(marks[i], offsetOfMark));
+		}
+		return refs;
+	}
+
+	/**
+	 * 記録した位置を復元して、位置の並びを整列し直します。
+	 */
+	private void updateUndoPositions(List<UndoPosRef> refs, int offset, int length) {
+		if (refs.isEmpty()) return;
+		final var gap = gapEnd - gapStart;
+		final var end = offset + length;
+		final var from = lowerBound(offset <= gapStart ? offset : offset + gap);
+		final var to = upperBound(end < gapStart ? end : end + gap);
+		for (var ref : refs) {
+			ref.mark.index = ref.offset < gapStart ? ref.offset : ref.offset + gap;
+		}
+		Arrays.sort(marks, from, to, (a, b) -> Long.compare(a.index, b.index));
+	}
+
+	/**
+	 * 位置の実体を保持し、参照されなくなった位置を検出するための弱参照です。
+	 */
+	private static final class Mark extends WeakReference<StickyPosition> {
+		long index;
+
+		Mark(StickyPosition position, long index, ReferenceQueue<StickyPosition> queue) {
+			super(position, queue);
+			this.index = index;
+		}
+	}
+
+	/**
+	 * 編集に追随して移動する位置です。
+	 */
+	private final class StickyPosition implements Position {
+		private Mark mark;
+
+		@Override
+		public int getOffset() {
+			return offsetOf(mark.index);
+		}
+
+		@Override
+		public String toString() {
+			return Integer.toString(getOffset());
+		}
+	}
+
+	/**
+	 * 取り消しの際に復元する位置とその位置を記録します。
+	 */
+	private static final class UndoPosRef {
+		final Mark mark;
+		final int offset;
+
+		UndoPosRef(Mark mark, int offset) {
+			this.mark = mark;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * 文字列の挿入を取り消す編集です。
+	 */
+	private final class InsertUndo extends AbstractUndoableEdit {
+		private static final long serialVersionUID = 1L;
+		private final int offset;
+		private final int length;
+		private String string;
+		private List<UndoPosRef> refs;
+
+		InsertUndo(int offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public void undo() throws CannotUndoException {
+			super.undo();
+			try {
+				refs = getPositionsInRange(offset, length);
+				string = getString(offset, length);
+				delete(offset, length);
+			} catch (BadLocationException ex) {
+				throw new CannotUndoException();
+			}
+		}
+
+		@Override
+		public void redo() throws CannotRedoException {
+			super.redo();
+			insert(offset, string);
+			string = null;
+			updateUndoPositions(refs, offset, length);
+			refs = null;
+		}
+	}
+
+	/**
+	 * 文字列の削除を取り消す編集です。
+	 */
+	private final class RemoveUndo extends AbstractUndoableEdit {
+		private static final long serialVersionUID = 1L;
+		private final int offset;
+		private final int length;
+		private String string;
+		private List<UndoPosRef> refs;
+
+		RemoveUndo(int offset, String string) {
+			this.offset = offset;
+			this.length = string.length();
+			this.string = string;
+			this.refs = getPositionsInRange(offset, length);
+		}
+
+		@Override
+		public void undo() throws CannotUndoException {
+			super.undo();
+			insert(offset, string);
+			updateUndoPositions(refs, offset, length);
+			refs = null;
+			string = null;
+		}
+
+		@Override
+		public void redo() throws CannotRedoException {
+			super.redo();
+			try {
+				string = getString(offset, length);
+				refs = getPositionsInRange(offset, length);
+				delete(offset, length);
+			} catch (BadLocationException ex) {
+				throw new CannotRedoException();
+			}
+		}
+	}
+}
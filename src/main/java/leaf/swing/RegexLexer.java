@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link SyntaxRule}の正規表現に従って字句を切り出す字句解析器です。
+ * <p>
+ * 状態毎に有効な規則を1個の正規表現に結合し、行内で最初に一致した規則を字句とします。
+ * 同じ位置で複数の規則が一致する場合は、先に登録された規則が優先されます。
+ * 初期状態で規則に一致しなかった部分はキーワードの照合に用いられ、
+ * それ以外の状態で一致しなかった部分は、その状態に遷移した規則の種別で強調されます。
+ * <p>
+ * 状態は入れ子にでき、状態の積み重ねを1個の整数に符号化して行末の状態とします。
+ * 状態は127種類まで、入れ子は4段まで有効で、それより深い遷移は最上段の状態を置き換えます。
+ * 長さ0の字句に一致した場合は無視されます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class RegexLexer implements SyntaxLexer {
+	private static final int STATE_BITS = 7;
+	private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+	private static final int MAX_DEPTH = 4;
+	private static final int STAY = -1, POP = -2;
+	private final KeywordMatcher keywords;
+	private final Pattern[] patterns;
+	private final int[][] groups, kinds, nexts;
+	private final int[] fills;
+	private final ThreadLocal<Matcher[]> matchers;
+
+	/**
+	 * 規則とキーワードを指定して字句解析器を構築します。
+	 *
+	 * @param rules    規則のリスト
+	 * @param keywords キーワードの照合器
+	 *
+	 * @throws IllegalArgumentException 正規表現が不正な場合や、状態が多すぎる場合
+	 */
+	public RegexLexer(List<SyntaxRule> rules, KeywordMatcher keywords) {
+		this.keywords = keywords != null ? keywords : KeywordMatcher.compile(null);
+		final var ids = new HashMap<String, Integer>();
+		final var names = new ArrayList<String>();
+		names.add(null);
+		ids.put(null, INITIAL_STATE);
+		for (var rule : rules) {
+			for (var name : new String[] {rule.getState(), rule.getNext()}) {
+				if (SyntaxRule.POP.equals(name) || ids.containsKey(name)) continue;
+				ids.put(name, names.size());
+				names.add(name);
+			}
+		}
+		final var count = names.size();
+		if (count > STATE_MASK + 1) throw new IllegalArgumentException("too many states: " + count);
+		patterns = new Pattern[count];
+		groups = new int[count][];
+		kinds = new int[count][];
+		nexts = new int[count][];
+		fills = new int[count];
+		for (var id = 0; id < count; id++) {
+			final var name = names.get(id);
+			final var regex = new StringBuilder();
+			final var group = new ArrayList<Integer>();
+			final var kind = new ArrayList<Integer>();
+			final var next = new ArrayList<Integer>();
+			var index = 1;
+			for (var rule : rules) {
+				if (id > 0 && name.equals(rule.getNext()) && fills[id] == KIND_NORMAL) {
+					fills[id] = SyntaxLexer.getKind(rule.getKind());
+				}
+				if (name == null ? rule.getState() != null : !name.equals(rule.getState())) continue;
+				final var pattern = Pattern.compile(rule.getPattern());
+				if (regex.length() > 0) regex.append('|');
+				regex.append('(').append(rule.getPattern()).append(')');
+				group.add(index);
+				index += 1 + pattern.matcher("").groupCount();
+				kind.add(SyntaxLexer.getKind(rule.getKind()));
+				final var target = rule.getNext();
+				if (target == null) next.add(STAY);
+				else if (SyntaxRule.POP.equals(target)) next.add(POP);
+				else next.add(ids.get(target));
+			}
+			if (!group.isEmpty()) patterns[id] = Pattern.compile(regex.toString());
+			groups[id] = toArray(group);
+			kinds[id] = toArray(kind);
+			nexts[id] = toArray(next);
+		}
+		matchers = ThreadLocal.withInitial(() -> new Matcher[count]);
+	}
+
+	/**
+	 * キーワードセットの設定に従って字句解析器を構築します。
+	 * キーワードセットの規則の後に、コメントの記号と文字列リテラルの規則が追加されます。
+	 *
+	 * @param set キーワードセット
+	 *
+	 * @throws IllegalArgumentException 正規表現が不正な場合や、状態が多すぎる場合
+	 */
+	public RegexLexer(KeywordSet set) {
+		this(withDefaultRules(set), set.compile());
+	}
+
+	private RegexLexer(RegexLexer lexer, KeywordMatcher keywords) {
+		this.keywords = keywords;
+		this.patterns = lexer.patterns;
+		this.groups = lexer.groups;
+		this.kinds = lexer.kinds;
+		this.nexts = lexer.nexts;
+		this.fills = lexer.fills;
+		this.matchers = ThreadLocal.withInitial(() -> new Matcher[patterns.length]);
+	}
+
+	private static List<SyntaxRule> withDefaultRules(KeywordSet set) {
+		final var rules = new ArrayList<SyntaxRule>(set.getRules());
+		final var line = set.getCommentLineStart();
+		final var start = set.getCommentBlockStart();
+		final var end = set.getCommentBlockEnd();
+		if (line != null && !line.isEmpty()) {
+			rules.add(new SyntaxRule(Pattern.quote(line) + ".*", "comment"));
+		}
+		if (start != null && !start.isEmpty() && end != null && !end.isEmpty()) {
+			rules.add(new SyntaxRule(Pattern.quote(start), "comment", null, "#comment"));
+			rules.add(new SyntaxRule(Pattern.quote(end), "comment", "#comment", SyntaxRule.POP));
+		}
+		rules.add(new SyntaxRule("\"(?:\\\\.|[^\"\\\\\\n])*\"?", "quote"));
+		rules.add(new SyntaxRule("'(?:\\\\.|[^'\\\\\\n])*'?", "quote"));
+		return rules;
+	}
+
+	/**
+	 * 規則を維持したまま、キーワードを置き換えた字句解析器を返します。
+	 *
+	 * @param keywords キーワードの照合器
+	 *
+	 * @return 新しい字句解析器
+	 */
+	public RegexLexer withKeywords(KeywordMatcher keywords) {
+		return new RegexLexer(this, keywords != null ? keywords : KeywordMatcher.compile(null));
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		final var array = new int[list.size()];
+		for (var i = 0; i < array.length; i++) array[i] = list.get(i);
+		return array;
+	}
+
+	@Override
+	public int lex(char[] text, int off, int length, int state, TokenSink out) {
+		final var seq = CharBuffer.wrap(text, off, length);
+		var pos = 0;
+		while (pos < length) {
+			final var top = state & STATE_MASK;
+			final var m = getMatcher(top, seq);
+			var start = length;
+			var end = length;
+			if (m != null) {
+				m.region(pos, length);
+				while (m.find()) {
+					if (m.end() == m.start()) continue;
+					start = m.start();
+					end = m.end();
+					break;
+				}
+			}
+			if (fills[top] == KIND_NORMAL) {
+				KeywordLexer.lexWords(text, off, pos, start, start, keywords, out);
+			} else if (start > pos) out.add(pos, start - pos, fills[top]);
+			if (start == length) return state;
+			var rule = 0;
+			while (m.start(groups[top][rule]) < 0) rule++;
+			if (kinds[top][rule] != KIND_NORMAL) out.add(start, end - start, kinds[top][rule]);
+			final var next = nexts[top][rule];
+			if (next == POP) state >>>= STATE_BITS;
+			else if (next != STAY) {
+				if (state < 1 << (STATE_BITS * (MAX_DEPTH - 1))) state = (state << STATE_BITS) | next;
+				else state = (state & ~STATE_MASK) | next;
+			}
+			pos = end;
+		}
+		return state;
+	}
+
+	/**
+	 * 現在のスレッドで再利用される、指定された状態の照合器を返します。
+	 *
+	 * @param state 状態
+	 * @param seq   照合する文字列
+	 *
+	 * @return 照合器 状態に規則がない場合null
+	 */
+	private Matcher getMatcher(int state, CharSequence seq) {
+		if (patterns[state] == null) return null;
+		final var cache = matchers.get();
+		var m = cache[state];
+		if (m == null) {
+			m = cache[state] = patterns[state].matcher(seq);
+			m.useAnchoringBounds(false);
+			m.useTransparentBounds(true);
+		} else m.reset(seq);
+		return m;
+	}
+}
@@ -5,51 +5,152 @@
 *******************************************************************************/
 package leaf.swing;
 
-import java.util.HashSet;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.text.*;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.CompoundEdit;
 
 /**
  * キーワード強調エンジンを搭載した書式付きドキュメントです。
  * キーワード・コメント・引用符色分けのほか、オートインデント機能を持ちます。
+ * <p>
+ * 各行の末尾における字句解析器の状態を保持しており、編集時には変更された行のみを
+ * 解析し直します。後続の行の再解析は、行末の状態が編集前と一致した時点で打ち切られます。
+ * <p>
+ * 文書全体の強調表示はイベントディスパッチスレッドの外で少しずつ字句解析され、
+ * 解析結果はまとめてイベントディスパッチスレッドで適用されます。
+ * {@link #setVisibleRange(int, int)}で指定された表示範囲の行が優先的に適用されます。
+ * <p>
+ * 強調表示は文字属性としてではなく、行毎の字句の配列として保持され、
+ * {@link TabCharacterView}が描画時に参照します。
  *
  * @author 無線部開発班
  * @since 2010年6月22日
  */
 @SuppressWarnings("serial")
 public class SyntaxDocument extends DefaultStyledDocument {
-	private static final String OPERANDS = ";:{}()[]+-/%<=>!?&|^~*.,";
-	private static final String QUOTATION = "\"'";
+	/**
+	 * 行末の状態が未解析であることを示します。
+	 */
+	private static final int STATE_UNKNOWN = -1;
+	/**
+	 * 編集時に同期的に解析する行数の上限です。
+	 */
+	private static final int SYNC_LINES = 64;
+	/**
+	 * 背景処理で1回の読み取りロック中に解析する行数の上限です。
+	 */
+	private static final int SLICE_LINES = 2000;
+	/**
+	 * 背景処理で1回の読み取りロック中に解析する時間の上限(ナノ秒)です。
+	 */
+	private static final long SLICE_NANOS = 5_000_000L;
+	/**
+	 * イベントディスパッチスレッドで1回に属性を適用する時間の上限(ナノ秒)です。
+	 */
+	private static final long APPLY_NANOS = 8_000_000L;
+	private static final ExecutorService executor;
+
+	static {
+		executor = Executors.newSingleThreadExecutor(task -> {
+			var thread = new Thread(task, SyntaxDocument.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
 	private final Element root;
-	private final MutableAttributeSet normal;
-	private final MutableAttributeSet keyword;
-	private final MutableAttributeSet quote;
-	private final MutableAttributeSet comment;
-	private final HashSet<String> keywords;
-	private String commentStart = null, commentEnd = null, commentSingle = null;
-
-	private boolean isMultiLineComment = false;
-	private boolean indentEnabled = false;
+	private final Color[] colors;
+	private final Segment segment;
+	private final Tokens tokens;
+	private KeywordMatcher keywords;
+	private volatile SyntaxLexer lexer;
+	private final ArrayDeque<Batch> pending;
+	private final Timer applier;
 
-	private boolean multiEnabled = false, singleEnabled = false;
+	private int[] states;
+	private int[][] spans;
+	private boolean indentEnabled = false;
 
 	private boolean isCompoundingUndoableEdit = false;
 	private CompoundEdit compoundEdit;
+	private boolean isReplacing = false;
+
+	private volatile int version = 0;
+	private volatile int generation = 0;
+	private boolean scheduled = false;
+	private boolean busy = false;
+	private int visibleFirst = 0, visibleLast = -1;
+	private volatile Viewport viewport;
 
 	/**
 	 * ドキュメントを生成します。
+	 * コンテンツには{@link PieceTableContent}が用いられます。
 	 */
 	public SyntaxDocument() {
+		this(new PieceTableContent());
+	}
+
+	/**
+	 * コンテンツを指定してドキュメントを生成します。
+	 * コンテンツが既に文字列を含む場合は、その文字列を複製せずに行の要素を構築します。
+	 *
+	 * @param content コンテンツ
+	 *
+	 * @since 2026/10/17
+	 */
+	public SyntaxDocument(Content content) {
+		super(content, new StyleContext());
 		root = getDefaultRootElement();
+		if (content.length() > 1) loadLines();
 		putProperty(DefaultEditorKit.EndOfLineStringProperty, "\n");
-		normal = new SimpleAttributeSet();
-		keyword = new SimpleAttributeSet();
-		quote = new SimpleAttributeSet();
-		comment = new SimpleAttributeSet();
+		colors = new Color[SyntaxLexer.KIND_NAMES.length];
+		keywords = KeywordMatcher.compile(null);
+		lexer = new KeywordLexer(keywords, null, null, null);
+		segment = new Segment();
+		tokens = new Tokens();
+		pending = new ArrayDeque<>();
+		applier = new Timer(10, e -> applyPendingBatches());
+		states = new int[64];
+		spans = new int[64][];
 		update();
-		keywords = new HashSet<>();
+	}
+
+	/**
+	 * コンテンツを並列に走査して求めた行の開始位置に従って、段落の要素を直接構築します。
+	 * 文字列の挿入を経由しないため、文字列の複製と編集イベントが発生しません。
+	 * <p>
+	 * 行毎に段落と葉の要素、および葉の両端の位置を生成するため、ヒープの使用量は行数に比例します。
+	 * 要素の更新とビューの構築が行毎の要素を前提とするため、開始位置の配列から要素を遅延して生成することはしません。
+	 */
+	private void loadLines() {
+		writeLock();
+		try {
+			final var starts = LineScanner.scan(getContent());
+			final var length = getContent().length();
+			final var attr = root.getElement(0).getAttributes();
+			final var elems = new Element[starts.length];
+			for (var i = 0; i < elems.length; i++) {
+				final var line = (BranchElement) createBranchElement(root, attr);
+				final var end = i + 1 < starts.length ? starts[i + 1] : length;
+				final var leaf = createLeafElement(line, null, starts[i], end);
+				line.replace(0, 0, new Element[] {leaf});
+				elems[i] = line;
+			}
+			((BranchElement) root).replace(0, root.getElementCount(), elems);
+		} finally {
+			writeUnlock();
+		}
 	}
 
 	/**
@@ -65,192 +166,134 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	}
 
 	/**
-	 * 指定位置以降を走査し、次のコメント開始符号もしくは終了符号まで属性を適用します。
+	 * 指定行を字句解析して、行末における字句解析器の状態を返します。
+	 * 行の内容は{@link Segment}を介して参照され、文書全体は複製されません。
 	 *
-	 * @param content ドキュメント内の文字列を直接指定してください。
-	 * @param offset  開始位置
+	 * @param line  適用する行
+	 * @param state 行頭における字句解析器の状態
 	 *
-	 * @since 2010年9月9日
-	 */
-	private void applyHighlightingAfter(String content, int offset) throws BadLocationException {
-		int start = -1, end = -1;
-		if (multiEnabled) {
-			start = indexOf(content, commentStart, offset);
-			end = indexOf(content, commentEnd, offset);
-		}
-		if (start < 0) start = content.length();
-		if (end < 0) end = content.length();
-		var min = Math.min(start, end);
-		if (min < offset) return;
-		final var line = root.getElementIndex(offset);
-		final var endLine = root.getElementIndex(min);
-		for (var i = line + 1; i <= endLine; i++) {
-			applyHighlightingAtLine(content, i);
-		}
-	}
-
-	/**
-	 * 指定行に属性を適用します。
-	 *
-	 * @param content ドキュメント内の文字列を直接指定してください
-	 * @param line    適用する行
+	 * @return 行末における字句解析器の状態
 	 *
 	 * @throws BadLocationException オフセットが無効な位置を示している場合
 	 */
-	private void applyHighlightingAtLine(String content, int line) throws BadLocationException {
-		var startOffset = root.getElement(line).getStartOffset();
-		var endOffset = root.getElement(line).getEndOffset();
-		final var length = endOffset - startOffset;
-		if (endOffset >= content.length()) endOffset = content.length() - 1;
-		if (existsMultiLineCommentEndAt(content, startOffset, endOffset) || isMultiLineComment || existsMultiLineCommentStartAt(content, startOffset, endOffset)) {
-			setCharacterAttributes(startOffset, endOffset - startOffset, comment, false);
-			return;
-		}
-		setCharacterAttributes(startOffset, length, normal, false);
-		if (singleEnabled) {
-			final var index = content.indexOf(commentSingle, startOffset);
-			if ((index >= 0) && (index < endOffset)) {
-				setCharacterAttributes(index, endOffset - index + 1, comment, false);
-				endOffset = index - 1;
-			}
-		}
-		while (startOffset <= endOffset) {
-			while (isDelimiter(content.substring(startOffset, startOffset + 1))) {
-				if (startOffset < endOffset) startOffset++;
-				else return;
-			}
-			if (isQuoteDelimiter(content.substring(startOffset, startOffset + 1))) {
-				startOffset = checkQuoteToken(content, startOffset, endOffset);
-			} else {
-				startOffset = checkKeywordToken(content, startOffset, endOffset);
-			}
+	private int applyHighlightingAtLine(int line, int state) throws BadLocationException {
+		final var elem = root.getElement(line);
+		final var base = elem.getStartOffset();
+		final var length = Math.min(elem.getEndOffset(), getLength()) - base;
+		tokens.clear();
+		if (length > 0) {
+			getText(base, length, segment);
+			state = lexer.lex(segment.array, segment.offset, length, state, tokens);
 		}
+		spans[line] = tokens.size > 0 ? tokens.toArray() : null;
+		return state;
 	}
 
 	/**
-	 * 指定位置内の文字列を走査し、キーワードを検索します。
-	 * 見つかった場合、キーワードに強調属性を適用したうえで、その位置で走査を終了します。
+	 * 指定範囲の行の強調表示が変更されたことをビューに通知します。
+	 * 文字属性は変更されないため、編集履歴には記録されません。
 	 *
-	 * @param content     ドキュメント内の文字列を直接指定してください
-	 * @param startOffset 開始位置
-	 * @param endOffset   終了位置
-	 *
-	 * @return 走査の終了位置
+	 * @param first 最初の行
+	 * @param last  最後の行
 	 */
-	private int checkKeywordToken(String content, int startOffset, int endOffset) {
-		var endOfToken = startOffset + 1;
-		while (endOfToken <= endOffset) {
-			if (isDelimiter(content.substring(endOfToken, endOfToken + 1))) break;
-			endOfToken++;
+	private void fireHighlightUpdate(int first, int last) {
+		final var start = root.getElement(first).getStartOffset();
+		final var end = Math.min(root.getElement(last).getEndOffset(), getLength());
+		writeLock();
+		try {
+			var e = new DefaultDocumentEvent(start, end - start, DocumentEvent.EventType.CHANGE);
+			e.end();
+			fireChangedUpdate(e);
+		} finally {
+			writeUnlock();
 		}
-		var token = content.substring(startOffset, endOfToken);
-		if (isKeyword(token)) setCharacterAttributes(startOffset, endOfToken - startOffset, keyword, false);
-		return endOfToken + 1;
 	}
 
 	/**
-	 * 指定位置より後の文字列を走査し、複数行コメントの終了位置を検出します。
-	 * 見つかった場合、走査開始位置から後のコメントに強調属性を適用します。
-	 *
-	 * @param content ドキュメント内の文字列を直接指定してください
-	 * @param line    開始行番号
-	 *
-	 * @since 2010年9月9日
+	 * 保留されている解析結果を、表示範囲の行を優先して時間の許す限り適用します。
 	 */
-	private void checkMultiLineCommentAfter(String content, int offset) {
-		if (!multiEnabled) return;
-		final var end = indexOf(content, commentEnd, offset);
-		if (end < 0) return;
-		final var start = lastIndexOf(content, commentStart, end);
-		if ((start < 0) || (start <= offset)) {
-			setCharacterAttributes(offset, end - offset, comment, false);
+	private void applyPendingBatches() {
+		final var limit = System.nanoTime() + APPLY_NANOS;
+		while (!pending.isEmpty() && System.nanoTime() < limit) {
+			final var batch = pollBatch();
+			if (batch.version != version) {
+				pending.clear();
+				schedule();
+				break;
+			}
+			final var size = batch.states.length;
+			System.arraycopy(batch.states, 0, states, batch.first, size);
+			System.arraycopy(batch.tokens, 0, spans, batch.first, size);
+			fireHighlightUpdate(batch.first, batch.first + size - 1);
+			if (batch.isLast) busy = false;
 		}
+		if (pending.isEmpty()) applier.stop();
 	}
 
 	/**
-	 * 指定位置より前の文字列を走査し、複数行コメントの開始位置を検出します。
-	 * 見つかった場合、コメントに強調属性を適用し、コメント属性であることを返します。
+	 * 保留されている解析結果のうち、表示範囲に重なるものを優先して取り出します。
 	 *
-	 * @param content ドキュメント内の文字列を直接指定してください
-	 * @param line    開始行番号
-	 *
-	 * @return コメント属性に含まれる場合true
-	 *
-	 * @since 2010年9月9日
+	 * @return 次に適用する解析結果
 	 */
-	private boolean checkMultiLineCommentBefore(String content, int offset) {
-		if (!multiEnabled) return false;
-		final var start = lastIndexOf(content, commentStart, offset - 1);
-		if (start < 0) return false;
-		final var end = indexOf(content, commentEnd, start);
-		if ((end < offset) && (end > 0)) return false;
-		setCharacterAttributes(start, offset - start, comment, false);
-		return true;
+	private Batch pollBatch() {
+		for (var batch : pending) {
+			final var last = batch.first + batch.states.length - 1;
+			if (batch.first <= visibleLast && last >= visibleFirst) {
+				pending.remove(batch);
+				return batch;
+			}
+		}
+		return pending.poll();
 	}
 
 	/**
-	 * 指定位置内の文字列を走査し、文字列リテラル属性の終了位置を検出します。
-	 * 見つかった場合、リテラルに強調属性を適用し、その位置で走査を終了します。
+	 * 指定された字句の種別に対応する表示色を返します。
 	 *
-	 * @param content     ドキュメント内の文字列を直接指定してください
-	 * @param startOffset 開始位置
-	 * @param endOffset   終了位置
+	 * @param kind 字句の種別
 	 *
-	 * @return 走査の終了位置
-	 *
-	 * @since 2010年9月9日
+	 * @return 表示色
 	 */
-	private int checkQuoteToken(String content, int startOffset, int endOffset) {
-		final var delimiter = content.charAt(startOffset);
-		final var escaped = toEscapedString(delimiter);
-		int end = startOffset, index = content.indexOf(escaped, end + 1);
-		//エスケープ文字を飛ばす
-		while ((index >= 0) && (index < endOffset)) {
-			end = index + 1;
-			index = content.indexOf(escaped, end);
-		}
-		//最終的な終了位置を検索
-		index = content.indexOf(delimiter, end + 1);
-		if ((index >= 0) && (index < endOffset)) end = index + 1; // 2011年12月26日解決
-		else end = endOffset + ((endOffset == content.length() - 1) ? 1 : 0);
-		setCharacterAttributes(startOffset, end - startOffset, quote, false);
-		return end + 1;
+	Color getTokenColor(int kind) {
+		return colors[kind];
 	}
 
 	/**
-	 * 指定位置内の文字列を走査し、複数行コメントの終了を検出します。
+	 * 指定された位置にある字句の種別を返します。
+	 * 行の検索と行内の字句の二分探索により、文字属性を参照せずに判定します。
+	 * 解析が完了していない行では{@link SyntaxLexer#KIND_NORMAL}を返します。
 	 *
-	 * @param content     ドキュメント内の文字列を直接指定してください
-	 * @param startOffset 開始位置
-	 * @param endOffset   終了位置
+	 * @param offset 文書内の位置
 	 *
-	 * @return コメントの終了を検出した場合true
+	 * @return 字句の種別
 	 *
-	 * @since 2010年9月9日
+	 * @since 2026/10/17
 	 */
-	private boolean existsMultiLineCommentEndAt(String content, int startOffset, int endOffset) {
-		if (!multiEnabled) return false;
-		final var index = indexOf(content, commentEnd, startOffset);
-		if ((index >= 0) && (index < endOffset)) return !(isMultiLineComment = false);
-		else return false;
+	public int getTokenKind(int offset) {
+		final var line = root.getElementIndex(offset);
+		final var tokens = getTokens(line);
+		if (tokens == null) return SyntaxLexer.KIND_NORMAL;
+		final var pos = offset - root.getElement(line).getStartOffset();
+		int low = 0, high = tokens.length / 2 - 1;
+		while (low <= high) {
+			final var mid = (low + high) >>> 1;
+			final var start = tokens[mid * 2];
+			if (pos < start) high = mid - 1;
+			else if (pos >= start + (tokens[mid * 2 + 1] >> 3)) low = mid + 1;
+			else return tokens[mid * 2 + 1] & 7;
+		}
+		return SyntaxLexer.KIND_NORMAL;
 	}
 
 	/**
-	 * 指定位置内の文字列を走査し、複数行コメントの開始を検出します。
-	 *
-	 * @param content     ドキュメント内の文字列を直接指定してください
-	 * @param startOffset 開始位置
-	 * @param endOffset   終了位置
+	 * 指定行の字句の配列を返します。
+	 * 配列には行頭からの位置と、長さを3ビット左シフトして種別を加えた値が交互に並びます。
 	 *
-	 * @return コメントの開始を検出した場合true
+	 * @param line 行番号
 	 *
-	 * @since 2010年9月9日
+	 * @return 字句の配列 強調する字句がない場合null
 	 */
-	private boolean existsMultiLineCommentStartAt(String content, int startOffset, int endOffset) {
-		if (!multiEnabled) return false;
-		final var index = indexOf(content, commentStart, startOffset);
-		if ((index >= 0) && (index < endOffset)) return isMultiLineComment = true;
-		else return false;
+	int[] getTokens(int line) {
+		return line < root.getElementCount() ? spans[line] : null;
 	}
 
 	/**
@@ -260,6 +303,7 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	 */
 	@Override
 	protected void fireUndoableEditUpdate(UndoableEditEvent e) {
+		if (isReplacing) return;
 		if (isCompoundingUndoableEdit) compoundEdit.addEdit(e.getEdit());
 		else super.fireUndoableEditUpdate(e);
 	}
@@ -276,8 +320,12 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	public void remove(int offset, int length) throws BadLocationException {
 		this.compoundEdit = new CompoundEdit();
 		this.isCompoundingUndoableEdit = true;
+		final var line = root.getElementIndex(offset);
+		final var count = root.getElementCount();
 		super.remove(offset, length);
-		processChangedLines(offset, 0);
+		version++;
+		removeLines(line, count - root.getElementCount());
+		processChangedLines(line, line);
 		this.isCompoundingUndoableEdit = false;
 		this.compoundEdit.end();
 		fireUndoableEditUpdate(new UndoableEditEvent(this, this.compoundEdit));
@@ -298,14 +346,100 @@ public class SyntaxDocument extends DefaultStyledDocument {
 		this.compoundEdit = new CompoundEdit();
 		this.isCompoundingUndoableEdit = true;
 		if (str.equals("\n")) str = indent(offset);
+		final var line = root.getElementIndex(offset);
+		final var count = root.getElementCount();
 		super.insertString(offset, str, attr);
-		processChangedLines(offset, str.length());
+		version++;
+		final var added = root.getElementCount() - count;
+		insertLines(line, added);
+		processChangedLines(line, line + added);
 		this.isCompoundingUndoableEdit = false;
 		this.compoundEdit.end();
 		fireUndoableEditUpdate(new UndoableEditEvent(this, this.compoundEdit));
 		this.compoundEdit = null;
 	}
 
+	/**
+	 * 昇順に並んだ重複しない複数の範囲の文字列を、後方から順に置換します。
+	 * <p>
+	 * 各範囲は個別の削除と挿入として適用されるため、文書全体が複製されることはありません。
+	 * 強調表示は全ての範囲を置換した後で、変更された最初の行から最後の行までを1回だけ解析し直します。
+	 * 置換全体は1個の編集として元に戻すことができ、その編集は置換前後の文字列のみを保持します。
+	 *
+	 * @param offsets 置換する範囲の開始位置
+	 * @param lengths 置換する範囲の長さ
+	 * @param texts   置換後の文字列
+	 * @param count   置換する範囲の個数
+	 *
+	 * @throws BadLocationException 範囲が無効な位置を示している場合
+	 * @throws IllegalArgumentException 範囲が昇順でないか重複している場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public void replace(int[] offsets, int[] lengths, String[] texts, int count) throws BadLocationException {
+		if (count <= 0) return;
+		final var seg = new Segment();
+		final var removed = new StringBuilder();
+		final var inserted = new StringBuilder();
+		final var removedEnds = new int[count];
+		final var insertedEnds = new int[count];
+		for (var i = 0; i < count; i++) {
+			if (i > 0 && offsets[i] < offsets[i - 1] + lengths[i - 1]) {
+				throw new IllegalArgumentException("overlapped at " + offsets[i]);
+			}
+			getText(offsets[i], lengths[i], seg);
+			removed.append(seg.array, seg.offset, seg.count);
+			inserted.append(texts[i]);
+			removedEnds[i] = removed.length();
+			insertedEnds[i] = inserted.length();
+		}
+		final var edit = new ReplaceEdit(offsets, removed.toString(), removedEnds, inserted.toString(), insertedEnds);
+		replace(edit.before, edit.removed, edit.removedEnds, edit.inserted, edit.insertedEnds);
+		super.fireUndoableEditUpdate(new UndoableEditEvent(this, edit));
+	}
+
+	/**
+	 * 置換前の文字列の終了位置の配列に従って各範囲を削除し、置換後の文字列を後方から順に挿入します。
+	 * 編集は元に戻す操作として通知されず、強調表示は最後に1回だけ更新されます。
+	 *
+	 * @param offsets      置換する範囲の開始位置
+	 * @param removed      置換前の文字列を連結した文字列
+	 * @param removedEnds  置換前の各文字列の終了位置
+	 * @param inserted     置換後の文字列を連結した文字列
+	 * @param insertedEnds 置換後の各文字列の終了位置
+	 *
+	 * @throws BadLocationException 範囲が無効な位置を示している場合
+	 */
+	private void replace(int[] offsets, String removed, int[] removedEnds, String inserted, int[] insertedEnds) throws BadLocationException {
+		int first = 0, last = -1;
+		isReplacing = true;
+		try {
+			for (var i = offsets.length - 1; i >= 0; i--) {
+				final var offset = offsets[i];
+				final var length = removedEnds[i] - (i > 0 ? removedEnds[i - 1] : 0);
+				final var text = inserted.substring(i > 0 ? insertedEnds[i - 1] : 0, insertedEnds[i]);
+				final var line = root.getElementIndex(offset);
+				final var before = root.getElementCount();
+				if (length > 0) {
+					super.remove(offset, length);
+					removeLines(line, before - root.getElementCount());
+				}
+				final var middle = root.getElementCount();
+				if (!text.isEmpty()) {
+					super.insertString(offset, text, null);
+					insertLines(line, root.getElementCount() - middle);
+				}
+				version++;
+				final var added = root.getElementCount() - middle;
+				last = last < 0 ? line + added : Math.max(line + added, last + root.getElementCount() - before);
+				first = line;
+			}
+		} finally {
+			isReplacing = false;
+		}
+		processChangedLines(first, Math.min(last, root.getElementCount() - 1));
+	}
+
 	/**
 	 * ドキュメントへのコンテンツの挿入に際して自動でインデントを補完します。
 	 *
@@ -328,23 +462,94 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	}
 
 	/**
-	 * 指定位置内の文字列を走査し、指定された文字列を文字列リテラル外で含む
-	 * 行を検出します。見つかった場合、その文字列の位置を返します。
+	 * 指定した行の直前に、未解析の行の状態を挿入します。
+	 * 分割された行の末尾には、分割前の行末の状態が残ります。
 	 *
-	 * @param content ドキュメント内の文字列を直接指定してください
-	 * @param target  検出する文字列
-	 * @param offset  開始位置
+	 * @param line  挿入位置となる行
+	 * @param count 挿入する行数
+	 */
+	private void insertLines(int line, int count) {
+		final var total = root.getElementCount();
+		if (states.length < total) {
+			states = Arrays.copyOf(states, Math.max(total, states.length * 2));
+			spans = Arrays.copyOf(spans, states.length);
+		}
+		if (count <= 0) return;
+		final var tail = total - count - line;
+		if (tail > 0) {
+			System.arraycopy(states, line, states, line + count, tail);
+			System.arraycopy(spans, line, spans, line + count, tail);
+		}
+		Arrays.fill(states, line, line + count, STATE_UNKNOWN);
+		Arrays.fill(spans, line, line + count, null);
+	}
+
+	/**
+	 * 指定した行から始まる行の状態を削除します。
+	 * 結合された行には、結合された最後の行の行末の状態が残ります。
 	 *
-	 * @since 2010年9月9日
+	 * @param line  削除を開始する行
+	 * @param count 削除する行数
+	 */
+	private void removeLines(int line, int count) {
+		if (count <= 0) return;
+		final var tail = root.getElementCount() - line;
+		if (tail > 0) {
+			System.arraycopy(states, line + count, states, line, tail);
+			System.arraycopy(spans, line + count, spans, line, tail);
+		}
+		Arrays.fill(spans, line + Math.max(0, tail), line + Math.max(0, tail) + count, null);
+	}
+
+	/**
+	 * 元に戻す操作とやり直す操作による挿入の場合は、通知の後で強調表示を更新します。
+	 *
+	 * @param e イベント
+	 */
+	@Override
+	protected void fireInsertUpdate(DocumentEvent e) {
+		super.fireInsertUpdate(e);
+		if (!isCompoundingUndoableEdit && !isReplacing) updateHighlightingByEdit(e);
+	}
+
+	/**
+	 * 元に戻す操作とやり直す操作による削除の場合は、通知の後で強調表示を更新します。
+	 *
+	 * @param e イベント
+	 */
+	@Override
+	protected void fireRemoveUpdate(DocumentEvent e) {
+		super.fireRemoveUpdate(e);
+		if (!isCompoundingUndoableEdit && !isReplacing) updateHighlightingByEdit(e);
+	}
+
+	/**
+	 * {@link #insertString}と{@link #remove}を経由しない編集に合わせて、行の状態を更新します。
+	 * 置き換えられた段落の状態は未解析とし、後続の行の状態と比較して再解析を打ち切ります。
+	 *
+	 * @param e イベント
 	 */
-	private int indexOf(String content, String target, int offset) {
-		int index;
-		while ((index = content.indexOf(target, offset)) >= 0) {
-			var elem = getCharacterElement(index);
-			if (elem.getAttributes().isEqual(quote)) offset = index + 1;
-			else return index;
+	private void updateHighlightingByEdit(DocumentEvent e) {
+		version++;
+		final var change = e.getChange(root);
+		final var line = root.getElementIndex(e.getOffset());
+		var first = line;
+		var last = line;
+		if (change != null) {
+			final var index = change.getIndex();
+			final var removed = change.getChildrenRemoved().length;
+			final var added = change.getChildrenAdded().length;
+			if (added > removed) insertLines(index, added - removed);
+			else removeLines(index, removed - added);
+			first = Math.min(line, index);
+			last = Math.max(line, Math.min(index + added, root.getElementCount()) - 1);
+			Arrays.fill(states, first, last + 1, STATE_UNKNOWN);
+		}
+		try {
+			processChangedLines(first, last);
+		} catch (BadLocationException ex) {
+			throw new IllegalStateException(ex);
 		}
-		return index;
 	}
 
 	/**
@@ -375,7 +580,18 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	 * @return 区切り文字の場合true
 	 */
 	protected boolean isDelimiter(String str) {
-		return (Character.isWhitespace(str.charAt(0)) || OPERANDS.contains(str));
+		return isDelimiter(str.charAt(0));
+	}
+
+	/**
+	 * 指定された文字が区切り文字かどうか返します。
+	 *
+	 * @param ch 調べる文字
+	 *
+	 * @return 区切り文字の場合true
+	 */
+	protected boolean isDelimiter(char ch) {
+		return KeywordLexer.isDelimiter(ch);
 	}
 
 	/**
@@ -386,7 +602,7 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	 * @return キーワードの場合true
 	 */
 	public boolean isKeyword(String token) {
-		return keywords.contains(token);
+		return keywords.matches(token);
 	}
 
 	/**
@@ -399,47 +615,110 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	 * @since 2010年9月9日
 	 */
 	protected boolean isQuoteDelimiter(String str) {
-		return QUOTATION.contains(str);
+		return isQuoteDelimiter(str.charAt(0));
 	}
 
 	/**
-	 * 指定位置内の文字列を走査し、指定された文字列を開始位置または終了位置に含む
-	 * 行を検出します。見つかった場合、その文字列の位置を返します。
+	 * 指定された文字が文字列リテラルの区切り文字かどうか返します。
 	 *
-	 * @param content ドキュメント内の文字列を直接指定してください
-	 * @param target  検出する文字列
-	 * @param offset  開始位置
+	 * @param ch 調べる文字
 	 *
-	 * @since 2010年9月9日
+	 * @return 区切り文字の場合true
 	 */
-	private int lastIndexOf(String content, String target, int offset) {
-		int index;
-		while ((index = content.lastIndexOf(target, offset)) >= 0) {
-			var elem = getCharacterElement(index);
-			if (elem.getAttributes().isEqual(quote)) offset = index - 1;
-			else return index;
-		}
-		return index;
+	protected boolean isQuoteDelimiter(char ch) {
+		return KeywordLexer.isQuoteDelimiter(ch);
 	}
 
 	/**
-	 * ドキュメントの変更部分に新しい属性を割り当てます。
+	 * 変更された行に新しい属性を割り当てます。
+	 * 変更範囲より後の行は、行末の状態が変更前と一致するまで解析し直します。
+	 * 変更範囲が広い場合や、未解析の行に達した場合は背景処理に委ねます。
 	 *
-	 * @param offset 変更開始位置
-	 * @param length 変更文字列の長さ
+	 * @param first 変更された最初の行
+	 * @param last  変更された最後の行
 	 *
 	 * @throws BadLocationException オフセットが無効な位置を示している場合
 	 */
-	private void processChangedLines(int offset, int length) throws BadLocationException {
-		final var startLine = root.getElementIndex(offset);
-		final var endLine = root.getElementIndex(offset + length);
-		final var content = getText(0, getLength());
-		isMultiLineComment = checkMultiLineCommentBefore(content, offset);
-		for (var i = startLine; i <= endLine; i++) {
-			applyHighlightingAtLine(content, i);
+	private void processChangedLines(int first, int last) throws BadLocationException {
+		final var count = root.getElementCount();
+		var state = first > 0 ? states[first - 1] : SyntaxLexer.INITIAL_STATE;
+		if (state == STATE_UNKNOWN || last - first > SYNC_LINES) {
+			Arrays.fill(states, first, last + 1, STATE_UNKNOWN);
+			schedule();
+			return;
 		}
-		if (isMultiLineComment) checkMultiLineCommentAfter(content, offset + length);
-		else applyHighlightingAfter(content, offset + length);
+		var line = first;
+		for (; line < count; line++) {
+			final var old = states[line];
+			if (line > last && old == STATE_UNKNOWN) {
+				schedule();
+				break;
+			}
+			state = states[line] = applyHighlightingAtLine(line, state);
+			if (line >= last && old == state) break;
+		}
+		fireHighlightUpdate(first, Math.min(line, count - 1));
+		if (busy) schedule();
+	}
+
+	/**
+	 * 未解析の行を解析する背景処理の開始を予約します。
+	 * 予約はイベントディスパッチスレッドで処理され、連続した予約は1回にまとめられます。
+	 */
+	private void schedule() {
+		if (scheduled) return;
+		scheduled = busy = true;
+		SwingUtilities.invokeLater(this::startHighlighting);
+	}
+
+	/**
+	 * 最初の未解析の行から文書末尾までを解析する背景処理を開始します。
+	 * 実行中の背景処理と保留されている解析結果は破棄されます。
+	 */
+	private void startHighlighting() {
+		scheduled = false;
+		pending.clear();
+		generation++;
+		final var count = root.getElementCount();
+		var first = 0;
+		while (first < count && states[first] != STATE_UNKNOWN) first++;
+		if (first == count) {
+			busy = false;
+			return;
+		}
+		final var state = first > 0 ? states[first - 1] : SyntaxLexer.INITIAL_STATE;
+		executor.execute(new HighlightTask(generation, version, first, state));
+		requestViewport();
+	}
+
+	/**
+	 * 優先して強調表示を適用する表示範囲を設定します。
+	 *
+	 * @param start 表示範囲の開始位置
+	 * @param end   表示範囲の終了位置
+	 *
+	 * @since 2026/10/17
+	 */
+	public void setVisibleRange(int start, int end) {
+		visibleFirst = root.getElementIndex(Math.max(0, start));
+		visibleLast = root.getElementIndex(Math.max(start, end));
+		requestViewport();
+	}
+
+	/**
+	 * 表示範囲に未解析の行がある場合、背景処理にその範囲を先に解析するように要求します。
+	 * 解析の起点には、表示範囲より前で行末の状態が既知である最も近い行を用います。
+	 */
+	private void requestViewport() {
+		if (!busy) return;
+		final var last = Math.min(visibleLast, root.getElementCount() - 1);
+		var first = visibleFirst;
+		while (first <= last && states[first] != STATE_UNKNOWN) first++;
+		if (first > last) return;
+		var known = first - 1;
+		while (known >= 0 && states[known] == STATE_UNKNOWN) known--;
+		final var state = known >= 0 ? states[known] : SyntaxLexer.INITIAL_STATE;
+		viewport = new Viewport(version, known + 1, state, first, last);
 	}
 
 	/**
@@ -452,10 +731,8 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	 */
 	public void setKeywordSet(KeywordSet set) {
 		if (set != null) {
-			setSingleLineCommentStartDelimiter(set.getCommentLineStart());
-			setMultiLineCommentStartDelimiter(set.getCommentBlockStart());
-			setMultiLineCommentEndDelimiter(set.getCommentBlockEnd());
-			setKeywords(set.getKeywords());
+			keywords = set.compile();
+			setLexer(set.createLexer());
 		} else setKeywords(null);
 	}
 
@@ -466,68 +743,308 @@ public class SyntaxDocument extends DefaultStyledDocument {
 	 * @param list キーワードを列挙したリスト
 	 */
 	public void setKeywords(List<String> list) {
-		keywords.clear();
-		if (list != null) keywords.addAll(list);
+		keywords = KeywordMatcher.compile(list);
+		if (lexer instanceof KeywordLexer) {
+			setLexer(((KeywordLexer) lexer).withKeywords(keywords));
+		} else if (lexer instanceof RegexLexer) {
+			setLexer(((RegexLexer) lexer).withKeywords(keywords));
+		} else setLexer(new KeywordLexer(keywords, null, null, null));
 	}
 
 	/**
-	 * 複数行コメントの終了符号を設定します。
+	 * 強調表示に用いる字句解析器を返します。
 	 *
-	 * @param commentEnd コメントの終了符号
+	 * @return 字句解析器
+	 *
+	 * @since 2026/10/17
 	 */
-	private void setMultiLineCommentEndDelimiter(String commentEnd) {
-		if (commentEnd == null || commentEnd.isEmpty()) this.commentEnd = null;
-		else this.commentEnd = commentEnd;
-		multiEnabled = (this.commentStart != null && this.commentEnd != null);
+	public SyntaxLexer getLexer() {
+		return lexer;
 	}
 
 	/**
-	 * 複数行コメントの開始符号を設定します。
+	 * 強調表示に用いる字句解析器を設定して、文書全体を解析し直します。
+	 *
+	 * @param lexer 字句解析器
 	 *
-	 * @param commentStart コメントの開始符号
+	 * @since 2026/10/17
 	 */
-	private void setMultiLineCommentStartDelimiter(String commentStart) {
-		if (commentStart == null || commentStart.isEmpty()) this.commentStart = null;
-		else this.commentStart = commentStart;
-		multiEnabled = (this.commentStart != null && this.commentEnd != null);
+	public void setLexer(SyntaxLexer lexer) {
+		if (lexer == null) throw new NullPointerException();
+		this.lexer = lexer;
+		invalidate();
 	}
 
 	/**
-	 * １行コメントの開始符号を設定します。
-	 *
-	 * @param commentSingle コメントの開始符号
+	 * 設定を{@link SyntaxManager}から読み込んで表示を更新します。
 	 */
-	private void setSingleLineCommentStartDelimiter(String commentSingle) {
-		if (commentSingle == null || commentSingle.isEmpty()) this.commentSingle = null;
-		else this.commentSingle = commentSingle;
-		singleEnabled = (this.commentSingle != null);
+	public void update() {
+		for (var kind = 0; kind < colors.length; kind++) {
+			colors[kind] = SyntaxManager.getColor(SyntaxLexer.KIND_NAMES[kind]);
+		}
+		invalidate();
 	}
 
 	/**
-	 * 指定された特殊文字のエスケープ表現を返します。
-	 *
-	 * @param ch 特殊文字
-	 *
-	 * @return エスケープされた文字列
-	 *
-	 * @since 2010年9月9日
+	 * 全ての行を未解析として、保留されている解析結果を破棄してから解析し直します。
 	 */
-	protected String toEscapedString(char ch) {
-		var value = new char[]{'\\', ch};
-		return new String(value);
+	private void invalidate() {
+		insertLines(0, 0);
+		Arrays.fill(states, STATE_UNKNOWN);
+		pending.clear();
+		version++;
+		schedule();
 	}
 
 	/**
-	 * 設定を{@link SyntaxManager}から読み込んで表示を更新します。
+	 * {@link #replace(int[], int[], String[], int)}による置換を元に戻す編集です。
+	 * 置換前後の文字列はそれぞれ1個の文字列に連結して保持されます。
 	 */
-	public void update() {
-		StyleConstants.setForeground(normal, SyntaxManager.getColor("normal"));
-		StyleConstants.setForeground(keyword, SyntaxManager.getColor("keyword"));
-		StyleConstants.setForeground(quote, SyntaxManager.getColor("quote"));
-		StyleConstants.setForeground(comment, SyntaxManager.getColor("comment"));
-		try {
-			processChangedLines(0, getLength());
-		} catch (Exception ex) {
+	private final class ReplaceEdit extends AbstractUndoableEdit {
+		private static final long serialVersionUID = 1L;
+		final int[] before, after;
+		final String removed, inserted;
+		final int[] removedEnds, insertedEnds;
+
+		ReplaceEdit(int[] offsets, String removed, int[] removedEnds, String inserted, int[] insertedEnds) {
+			final var count = removedEnds.length;
+			this.before = Arrays.copyOf(offsets, count);
+			this.after = new int[count];
+			this.removed = removed;
+			this.inserted = inserted;
+			this.removedEnds = removedEnds;
+			this.insertedEnds = insertedEnds;
+			for (var i = 0; i < count; i++) {
+				after[i] = before[i] + (i > 0 ? insertedEnds[i - 1] - removedEnds[i - 1] : 0);
+			}
+		}
+
+		@Override
+		public void undo() {
+			super.undo();
+			try {
+				replace(after, inserted, insertedEnds, removed, removedEnds);
+			} catch (BadLocationException ex) {
+				throw new CannotUndoException();
+			}
+		}
+
+		@Override
+		public void redo() {
+			super.redo();
+			try {
+				replace(before, removed, removedEnds, inserted, insertedEnds);
+			} catch (BadLocationException ex) {
+				throw new CannotRedoException();
+			}
+		}
+	}
+
+	/**
+	 * 字句解析の結果を行頭からの位置と、長さと種別を詰めた値の組で格納するバッファです。
+	 */
+	private static final class Tokens implements SyntaxLexer.TokenSink {
+		private int[] data = new int[32];
+		private int size = 0;
+
+		@Override
+		public void add(int start, int length, int kind) {
+			if (size + 2 > data.length) data = Arrays.copyOf(data, data.length * 2);
+			data[size++] = start;
+			data[size++] = length << 3 | kind;
+		}
+
+		public void clear() {
+			size = 0;
+		}
+
+		public int[] toArray() {
+			return Arrays.copyOf(data, size);
+		}
+	}
+
+	/**
+	 * 背景処理で連続する行を解析した結果です。
+	 */
+	private static final class Batch {
+		private final int version;
+		private final int first;
+		private final int[] states;
+		private final int[][] tokens;
+		private final boolean isLast;
+
+		public Batch(int version, int first, int[] states, int[][] tokens, boolean isLast) {
+			this.version = version;
+			this.first = first;
+			this.states = states;
+			this.tokens = tokens;
+			this.isLast = isLast;
+		}
+	}
+
+	/**
+	 * 先に解析するように要求された表示範囲と、解析の起点となる行と状態です。
+	 */
+	private static final class Viewport {
+		private final int version;
+		private final int start;
+		private final int state;
+		private final int first;
+		private final int last;
+
+		public Viewport(int version, int start, int state, int first, int last) {
+			this.version = version;
+			this.start = start;
+			this.state = state;
+			this.first = first;
+			this.last = last;
+		}
+	}
+
+	/**
+	 * 未解析の行を読み取りロックの下で少しずつ解析する背景処理です。
+	 * 表示範囲の解析が要求された場合は、先頭からの解析を中断してその範囲を先に解析します。
+	 */
+	private final class HighlightTask implements Runnable {
+		private final Segment text = new Segment();
+		private final Tokens out = new Tokens();
+		private final int generation;
+		private final int version;
+		private int line;
+		private int state;
+		private Batch batch;
+		private Viewport request;
+		private int ahead;
+		private int aheadState;
+
+		public HighlightTask(int generation, int version, int line, int state) {
+			this.generation = generation;
+			this.version = version;
+			this.line = line;
+			this.state = state;
+		}
+
+		@Override
+		public void run() {
+			do {
+				if (generation != SyntaxDocument.this.generation) return;
+				if (!lexViewport()) return;
+				batch = null;
+				render(this::slice);
+				if (batch == null) return;
+				publish(batch, false);
+			} while (!batch.isLast);
+		}
+
+		/**
+		 * 解析結果をイベントディスパッチスレッドに渡します。
+		 *
+		 * @param result 解析結果
+		 * @param first  他の結果より先に適用する場合true
+		 */
+		private void publish(Batch result, boolean first) {
+			SwingUtilities.invokeLater(() -> {
+				if (generation != SyntaxDocument.this.generation) return;
+				if (first) pending.addFirst(result);
+				else pending.add(result);
+				applier.start();
+			});
+		}
+
+		/**
+		 * 表示範囲の解析が要求されていれば、既知の状態から表示範囲の直前まで状態のみを求めてから、表示範囲を解析します。
+		 * 起点には、要求された起点と、この処理の現在の行と、中断した表示範囲の解析の途中の行のうち、表示範囲に最も近いものを用います。
+		 * 表示範囲の行の結果のみを渡し、その前の行は通常の解析で改めて求めます。
+		 *
+		 * @return 解析を続ける場合true 文書が変更された場合false
+		 */
+		private boolean lexViewport() {
+			for (var next = viewport; next != null; next = viewport) {
+				viewport = null;
+				if (next.version != version || next.first <= line) continue;
+				if (request == null || ahead > next.first) {
+					ahead = line;
+					aheadState = state;
+				}
+				if (next.start > ahead) {
+					ahead = next.start;
+					aheadState = next.state;
+				}
+				request = next;
+				while (request != null && viewport == null) {
+					if (generation != SyntaxDocument.this.generation) return false;
+					batch = null;
+					render(this::skim);
+					if (request == null && batch == null) return false;
+				}
+				if (batch != null) publish(batch, true);
+			}
+			request = null;
+			return true;
+		}
+
+		/**
+		 * 表示範囲に向けて状態のみを求め、表示範囲に達した場合はその範囲を解析します。
+		 */
+		private void skim() {
+			if (version != SyntaxDocument.this.version) {
+				request = null;
+				return;
+			}
+			final var limit = System.nanoTime() + SLICE_NANOS;
+			try {
+				for (; ahead < request.first; ahead++) {
+					if (System.nanoTime() >= limit) return;
+					aheadState = lex(ahead, aheadState);
+				}
+				final var last = Math.min(request.last, Math.min(root.getElementCount() - 1, ahead + SLICE_LINES - 1));
+				final var states = new int[last - ahead + 1];
+				final var tokens = new int[states.length][];
+				for (var i = 0; i < states.length; i++) {
+					states[i] = aheadState = lex(ahead + i, aheadState);
+					tokens[i] = out.size > 0 ? out.toArray() : null;
+				}
+				batch = new Batch(version, ahead, states, tokens, false);
+			} catch (BadLocationException ex) {
+			}
+			request = null;
+		}
+
+		/**
+		 * 指定行を解析して、字句を{@link #out}に格納します。
+		 *
+		 * @return 行末の状態
+		 */
+		private int lex(int line, int state) throws BadLocationException {
+			final var elem = root.getElement(line);
+			final var base = elem.getStartOffset();
+			final var length = Math.min(elem.getEndOffset(), getLength()) - base;
+			out.clear();
+			if (length > 0) {
+				getText(base, length, text);
+				state = lexer.lex(text.array, text.offset, length, state, out);
+			}
+			return state;
+		}
+
+		private void slice() {
+			if (version != SyntaxDocument.this.version) return;
+			final var count = root.getElementCount();
+			final var limit = System.nanoTime() + SLICE_NANOS;
+			final var first = line;
+			final var end = Math.min(count, first + SLICE_LINES);
+			final var states = new int[end - first];
+			final var tokens = new int[end - first][];
+			try {
+				for (; line < end && (line == first || System.nanoTime() < limit); line++) {
+					states[line - first] = state = lex(line, state);
+					tokens[line - first] = out.size > 0 ? out.toArray() : null;
+				}
+			} catch (BadLocationException ex) {
+				return;
+			}
+			final var size = line - first;
+			batch = new Batch(version, first, Arrays.copyOf(states, size), Arrays.copyOf(tokens, size), line == count);
 		}
 	}
 
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+/**
+ * {@link SyntaxDocument}が強調表示に用いる字句解析器のインターフェースです。
+ * <p>
+ * 字句解析器は1行ずつ呼び出され、行頭における状態から行末における状態を返します。
+ * 状態は0以上の整数で表現され、同じ状態から同じ行を解析すれば必ず同じ結果を返す必要があります。
+ * これにより、ドキュメントは行末の状態を保存しておき、文書の途中から解析を再開できます。
+ * 字句解析器は背景処理のスレッドからも呼び出されるため、スレッドセーフでなければなりません。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public interface SyntaxLexer {
+	/**
+	 * 文書の先頭における字句解析器の状態です。
+	 */
+	int INITIAL_STATE = 0;
+	/**
+	 * 強調されない字句の種別です。
+	 */
+	int KIND_NORMAL = 0;
+	/**
+	 * キーワードの種別です。
+	 */
+	int KIND_KEYWORD = 1;
+	/**
+	 * 文字列リテラルの種別です。
+	 */
+	int KIND_QUOTE = 2;
+	/**
+	 * コメントの種別です。
+	 */
+	int KIND_COMMENT = 3;
+	/**
+	 * 数値リテラルの種別です。
+	 */
+	int KIND_NUMBER = 4;
+
+	/**
+	 * 字句の種別の名前を並べた配列で、{@link SyntaxManager}の配色の名前に対応します。
+	 */
+	String[] KIND_NAMES = {
+		"normal", "keyword", "quote", "comment", "number"
+	};
+
+	/**
+	 * 行を字句解析して、強調する字句を出力先に追加します。
+	 *
+	 * @param text   行の文字列を格納した配列
+	 * @param off    配列内での行の開始位置
+	 * @param length 行の長さ
+	 * @param state  行頭における字句解析器の状態
+	 * @param out    字句の出力先
+	 *
+	 * @return 行末における字句解析器の状態
+	 */
+	int lex(char[] text, int off, int length, int state, TokenSink out);
+
+	/**
+	 * 種別の名前に対応する字句の種別を返します。
+	 *
+	 * @param name 種別の名前
+	 *
+	 * @return 字句の種別 該当しない場合{@link #KIND_NORMAL}
+	 */
+	static int getKind(String name) {
+		for (var kind = 0; kind < KIND_NAMES.length; kind++) {
+			if (KIND_NAMES[kind].equals(name)) return kind;
+		}
+		return KIND_NORMAL;
+	}
+
+	/**
+	 * 字句解析器が出力する字句を受け取ります。
+	 */
+	@FunctionalInterface
+	interface TokenSink {
+		/**
+		 * 字句を追加します。字句は行頭から順に追加されます。
+		 *
+		 * @param start  行頭からの字句の位置
+		 * @param length 字句の長さ
+		 * @param kind   字句の種別
+		 */
+		void add(int start, int length, int kind);
+	}
+}
@@ -28,6 +28,7 @@ public class SyntaxManager {
 		colors.put("keyword", Color.BLUE);
 		colors.put("quote", Color.RED);
 		colors.put("comment", new Color(0, 150, 0));
+		colors.put("number", new Color(150, 0, 150));
 	}
 
 	private List<KeywordSet> keywordsets = null;
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.swing;
+
+/**
+ * {@link RegexLexer}が字句を切り出す規則となるオブジェクトです。
+ * <p>
+ * 規則は正規表現と字句の種別の組からなり、規則が有効な状態と、
+ * 字句を検出した後に遷移する状態を名前で指定できます。
+ * 遷移先に状態の名前を指定すると現在の状態の上に積まれ、
+ * {@link #POP}を指定すると現在の状態から抜けて1個前の状態に戻ります。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class SyntaxRule {
+	/**
+	 * 現在の状態から抜けることを示す遷移先の名前です。
+	 */
+	public static final String POP = "#pop";
+	private String pattern;
+	private String kind;
+	private String state;
+	private String next;
+
+	/**
+	 * 空の規則を生成します。
+	 */
+	public SyntaxRule() {
+		this(null, null);
+	}
+
+	/**
+	 * 初期状態で有効な規則を生成します。
+	 *
+	 * @param pattern 字句の正規表現
+	 * @param kind    字句の種別の名前
+	 */
+	public SyntaxRule(String pattern, String kind) {
+		this(pattern, kind, null, null);
+	}
+
+	/**
+	 * 状態と遷移先を指定して規則を生成します。
+	 *
+	 * @param pattern 字句の正規表現
+	 * @param kind    字句の種別の名前
+	 * @param state   規則が有効な状態の名前 初期状態の場合null
+	 * @param next    字句の後に遷移する状態の名前 遷移しない場合null
+	 */
+	public SyntaxRule(String pattern, String kind, String state, String next) {
+		this.pattern = pattern;
+		this.kind = kind;
+		this.state = state;
+		this.next = next;
+	}
+
+	/**
+	 * 字句の種別の名前を返します。
+	 *
+	 * @return {@link SyntaxLexer#KIND_NAMES}のいずれかの名前
+	 */
+	public String getKind() {
+		return kind;
+	}
+
+	/**
+	 * 字句の種別の名前を設定します。
+	 *
+	 * @param kind {@link SyntaxLexer#KIND_NAMES}のいずれかの名前
+	 */
+	public void setKind(String kind) {
+		this.kind = kind;
+	}
+
+	/**
+	 * 字句を検出した後に遷移する状態の名前を返します。
+	 *
+	 * @return 遷移先の名前 遷移しない場合null
+	 */
+	public String getNext() {
+		return next;
+	}
+
+	/**
+	 * 字句を検出した後に遷移する状態の名前を設定します。
+	 *
+	 * @param next 遷移先の名前 遷移しない場合null
+	 */
+	public void setNext(String next) {
+		this.next = next;
+	}
+
+	/**
+	 * 字句の正規表現を返します。
+	 *
+	 * @return 正規表現
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * 字句の正規表現を設定します。
+	 *
+	 * @param pattern 正規表現
+	 */
+	public void setPattern(String pattern) {
+		this.pattern = pattern;
+	}
+
+	/**
+	 * この規則が有効な状態の名前を返します。
+	 *
+	 * @return 状態の名前 初期状態の場合null
+	 */
+	public String getState() {
+		return state;
+	}
+
+	/**
+	 * この規則が有効な状態の名前を設定します。
+	 *
+	 * @param state 状態の名前 初期状態の場合null
+	 */
+	public void setState(String state) {
+		this.state = state;
+	}
+
+	/**
+	 * この規則の文字列による表現を返します。
+	 *
+	 * @return 文字列による表現
+	 */
+	public String toString() {
+		return pattern;
+	}
+}
@@ -7,10 +7,15 @@ package leaf.swing;
 
 import java.awt.*;
 import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
 import javax.swing.text.LabelView;
+import javax.swing.text.LayeredHighlighter;
 
 /**
  * 水平タブを可視化する{@link LabelView}の実装です。
+ * <p>
+ * {@link SyntaxDocument}の要素を表示する場合は、ドキュメントが保持する字句の配列を
+ * 参照して、字句毎に表示色を切り替えながら文字列を描画します。
  *
  * @author 無線部開発班
  * @since 2012年12月28日
@@ -30,7 +35,11 @@ public class TabCharacterView extends LabelView {
 
 	@Override
 	public void paint(Graphics g, Shape a) {
-		super.paint(g, a);
+		final var doc = getDocument();
+		final var painter = getGlyphPainter();
+		if (doc instanceof SyntaxDocument && painter != null) {
+			paintTokens(g, a, (SyntaxDocument) doc, painter);
+		} else super.paint(g, a);
 		var alloc = a.getBounds();
 		var met = g.getFontMetrics();
 		var text = getText(getStartOffset(), getEndOffset()).toString();
@@ -47,4 +56,73 @@ public class TabCharacterView extends LabelView {
 			sumOfTabs += tabWidth;
 		}
 	}
+
+	/**
+	 * ドキュメントの字句の配列に従って、字句毎に表示色を切り替えて描画します。
+	 *
+	 * @param g       グラフィックス
+	 * @param a       ビューの領域
+	 * @param doc     ドキュメント
+	 * @param painter 文字列の描画に用いるペインタ
+	 */
+	private void paintTokens(Graphics g, Shape a, SyntaxDocument doc, GlyphPainter painter) {
+		final var p0 = getStartOffset();
+		final var p1 = getEndOffset();
+		final var bg = getBackground();
+		if (bg != null) {
+			var alloc = a.getBounds();
+			g.setColor(bg);
+			g.fillRect(alloc.x, alloc.y, alloc.width, alloc.height);
+		}
+		int s0 = p1, s1 = p1;
+		Color selected = null;
+		final var c = getContainer();
+		if (c instanceof JTextComponent) {
+			var tc = (JTextComponent) c;
+			var h = tc.getHighlighter();
+			if (h instanceof LayeredHighlighter) {
+				((LayeredHighlighter) h).paintLayeredHighlights(g, p0, p1, a, tc, this);
+			}
+			var caret = tc.getCaret();
+			if (caret != null && caret.isSelectionVisible()) {
+				s0 = tc.getSelectionStart();
+				s1 = tc.getSelectionEnd();
+				selected = tc.getSelectedTextColor();
+			}
+		}
+		final var root = doc.getDefaultRootElement();
+		final var line = root.getElementIndex(p0);
+		final var base = root.getElement(line).getStartOffset();
+		final var tokens = doc.getTokens(line);
+		final var size = tokens != null ? tokens.length : 0;
+		var pos = p0;
+		var i = 0;
+		while (pos < p1) {
+			while (i < size && base + tokens[i] + (tokens[i + 1] >> 3) <= pos) i += 2;
+			int end, kind;
+			if (i < size && base + tokens[i] <= pos) {
+				end = base + tokens[i] + (tokens[i + 1] >> 3);
+				kind = tokens[i + 1] & 7;
+			} else {
+				end = i < size ? base + tokens[i] : p1;
+				kind = SyntaxLexer.KIND_NORMAL;
+			}
+			end = Math.min(end, p1);
+			final var fg = doc.getTokenColor(kind);
+			if (selected != null && s0 < end && s1 > pos) {
+				final var from = Math.max(pos, s0);
+				final var to = Math.min(end, s1);
+				paintText(g, a, painter, pos, from, fg);
+				paintText(g, a, painter, from, to, selected);
+				paintText(g, a, painter, to, end, fg);
+			} else paintText(g, a, painter, pos, end, fg);
+			pos = end;
+		}
+	}
+
+	private void paintText(Graphics g, Shape a, GlyphPainter painter, int p0, int p1, Color fg) {
+		if (p0 >= p1) return;
+		g.setColor(fg != null ? fg : getForeground());
+		painter.paint(this, g, a, p0, p1);
+	}
 }
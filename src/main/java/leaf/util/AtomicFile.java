@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 書き込みの途中で中断されても元のファイルを破損しないファイルの保存を実現します。
+ * <p>
+ * 内容は同じディレクトリの一時ファイルに書き込まれ、記憶装置への書き出しを待ってから
+ * 元のファイルの名前に置き換えられます。元のファイルが存在する場合はそのパーミッションを引き継ぎ、
+ * シンボリックリンクの場合はリンク先のファイルを置き換えます。
+ * <p>
+ * {@link #commitLater()}による確定は背景処理のスレッドで行われ、
+ * 同じファイルに対する確定は要求された順に実行されます。
+ * 確定が失敗しても、同じファイルに対する後続の確定は実行されます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class AtomicFile {
+	private static final ExecutorService executor;
+	private static final Map<Path, CompletableFuture<Void>> pending;
+
+	static {
+		final var threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		executor = Executors.newFixedThreadPool(threads, task -> {
+			var thread = new Thread(task, AtomicFile.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		pending = new ConcurrentHashMap<>();
+	}
+
+	private final Path target;
+	private Path temp;
+	private FileChannel channel;
+
+	/**
+	 * 保存先のファイルを指定して構築します。
+	 *
+	 * @param target 保存先のファイル
+	 *
+	 * @throws IOException シンボリックリンクの解決に失敗した場合
+	 */
+	public AtomicFile(Path target) throws IOException {
+		final var path = target.toAbsolutePath();
+		this.target = Files.exists(path) ? path.toRealPath() : path;
+	}
+
+	/**
+	 * 保存先のファイルを返します。
+	 *
+	 * @return 保存先のファイル
+	 */
+	public Path getTarget() {
+		return target;
+	}
+
+	/**
+	 * 一時ファイルを作成して、書き込み用のチャネルを返します。
+	 * チャネルは{@link #commit()}または{@link #abort()}で閉じられます。
+	 *
+	 * @return 一時ファイルのチャネル
+	 *
+	 * @throws IOException 保存先に書き込めない場合や、一時ファイルを作成できない場合
+	 */
+	public FileChannel open() throws IOException {
+		if (channel != null) throw new IllegalStateException("already opened");
+		if (Files.exists(target) && !Files.isWritable(target)) throw new AccessDeniedException(target.toString());
+		final var name = "." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+		temp = target.resolveSibling(name);
+		channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		return channel;
+	}
+
+	/**
+	 * 一時ファイルを記憶装置に書き出して、保存先のファイルを置き換えます。
+	 * 置き換えに失敗した場合は一時ファイルを削除します。
+	 *
+	 * @throws IOException 書き出しや置き換えに失敗した場合
+	 */
+	public void commit() throws IOException {
+		if (channel == null) throw new IllegalStateException("not opened");
+		try {
+			try (var ch = channel) {
+				ch.force(true);
+			}
+			copyPermissions();
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			forceDirectory();
+		} catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(temp);
+			throw ex;
+		}
+	}
+
+	/**
+	 * 背景処理のスレッドで{@link #commit()}を実行します。
+	 * 同じファイルに対して先に要求された確定が完了してから実行されます。
+	 *
+	 * @return 確定の完了を示すオブジェクト
+	 */
+	public CompletableFuture<Void> commitLater() {
+		return schedule(this::commit);
+	}
+
+	/**
+	 * 背景処理のスレッドで一時ファイルを作成して内容を書き込み、{@link #commit()}を実行します。
+	 * 同じファイルに対して先に要求された確定が完了してから実行されるため、
+	 * このメソッドを呼び出した時点の順序で保存先のファイルが置き換えられます。
+	 * 書き込みに失敗した場合は一時ファイルを破棄します。
+	 * 実行の開始前に返り値を取り消した場合は、何もせずに終了します。
+	 *
+	 * @param writer 内容を書き込む処理
+	 *
+	 * @return 確定の完了を示すオブジェクト
+	 */
+	public CompletableFuture<Void> commitLater(ChannelWriter writer) {
+		return schedule(() -> {
+			try {
+				writer.write(open());
+			} catch (IOException | RuntimeException ex) {
+				abort();
+				throw ex;
+			}
+			commit();
+		});
+	}
+
+	/**
+	 * 同じファイルに対する処理の後に続けて、背景処理のスレッドで処理を実行します。
+	 *
+	 * @param action 実行する処理
+	 *
+	 * @return 処理の完了を示すオブジェクト
+	 */
+	private CompletableFuture<Void> schedule(Action action) {
+		final var result = new CompletableFuture<Void>();
+		final var tail = pending.compute(target, (path, prev) -> {
+			final var before = prev != null ? prev.exceptionally(ex -> null) : CompletableFuture.<Void>completedFuture(null);
+			return before.thenRunAsync(() -> {
+				if (result.isDone()) return;
+				try {
+					action.run();
+					result.complete(null);
+				} catch (IOException | RuntimeException ex) {
+					result.completeExceptionally(ex);
+					throw new CompletionException(ex);
+				}
+			}, executor);
+		});
+		tail.whenComplete((v, ex) -> pending.remove(target, tail));
+		return result;
+	}
+
+	/**
+	 * 一時ファイルを破棄して、保存先のファイルを変更せずに終了します。
+	 */
+	public void abort() {
+		try {
+			if (channel != null) channel.close();
+			if (temp != null) Files.deleteIfExists(temp);
+		} catch (IOException ex) {
+		}
+	}
+
+	/**
+	 * 背景処理で確定を待っている全てのファイルの保存が完了するまで待機します。
+	 * 保存に失敗したファイルがある場合は、全ての完了を待ってから最初の失敗を通知します。
+	 *
+	 * @throws IOException 保存に失敗したファイルがある場合
+	 */
+	public static void awaitPending() throws IOException {
+		IOException failure = null;
+		for (var future : pending.values()) {
+			try {
+				future.join();
+			} catch (CompletionException | CancellationException ex) {
+				if (failure != null) continue;
+				final var cause = ex.getCause();
+				failure = cause instanceof IOException ? (IOException) cause : new IOException(cause != null ? cause : ex);
+			}
+		}
+		if (failure != null) throw failure;
+	}
+
+	/**
+	 * 元のファイルのパーミッションを一時ファイルに設定します。
+	 */
+	private void copyPermissions() throws IOException {
+		if (!Files.exists(target)) return;
+		final var source = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+		final var dest = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+		if (source != null && dest != null) {
+			dest.setPermissions(source.readAttributes().permissions());
+		}
+	}
+
+	/**
+	 * 名前の置き換えを記憶装置に書き出します。
+	 * ディレクトリを開けないファイルシステムでは何もしません。
+	 */
+	private void forceDirectory() {
+		try (var dir = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+			dir.force(true);
+		} catch (IOException ex) {
+		}
+	}
+
+	/**
+	 * 一時ファイルのチャネルに内容を書き込む処理です。
+	 */
+	@FunctionalInterface
+	public interface ChannelWriter {
+		/**
+		 * チャネルに内容を書き込みます。チャネルは閉じません。
+		 *
+		 * @param channel 一時ファイルのチャネル
+		 *
+		 * @throws IOException 入出力エラーが発生した場合
+		 */
+		void write(FileChannel channel) throws IOException;
+	}
+
+	/**
+	 * 背景処理のスレッドで実行される入出力処理です。
+	 */
+	private interface Action {
+		void run() throws IOException;
+	}
+}
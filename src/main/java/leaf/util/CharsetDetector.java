@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * バイト列の先頭部分を1回だけ走査して、文字セットを推定します。
+ * <p>
+ * バイト順マークを最優先し、次にゼロの出現位置からUTF-16を判定します。
+ * 8ビットの文字を含まない場合はエスケープシーケンスの有無からISO-2022-JPを判定し、
+ * 含む場合はUTF-8とShift_JISとEUC-JPの妥当性を並行して検査します。
+ * Shift_JISとEUC-JPの両方として妥当な場合は、平仮名と片仮名の出現頻度で判定します。
+ * <p>
+ * 走査するバイト数には上限があるため、ファイルの大きさに関わらず一定の時間で終了します。
+ * 候補が減るか仮名が現れる度に判定を試み、候補が1個に絞られた時点で走査を打ち切るため、
+ * 多くの場合は先頭の数百バイトで判定が終わります。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class CharsetDetector {
+	/**
+	 * 走査するバイト数の上限です。
+	 */
+	private static final int LIMIT = 1 << 16;
+	/**
+	 * UTF-8の状態遷移表です。状態1から3は後続バイトの残り数で、4は不正を表します。
+	 * 状態5から8は、冗長な表現とサロゲートと範囲外の符号位置を除くために2バイト目の範囲が限られる状態です。
+	 */
+	private static final byte[] UTF8;
+	/**
+	 * Shift_JISの状態遷移表です。1と2は2バイト目を待つ状態で、2は仮名の先行バイトの直後です。
+	 */
+	private static final byte[] SJIS;
+	/**
+	 * EUC-JPの状態遷移表です。1と2は後続バイトの残り数で、3は仮名の先行バイトの直後です。
+	 */
+	private static final byte[] EUC;
+	private static final int UTF8_INVALID = 4;
+	private static final int UTF8_E0 = 5, UTF8_ED = 6, UTF8_F0 = 7, UTF8_F4 = 8;
+	/**
+	 * 候補が1個に絞られても判定を確定しない、8ビットの文字のバイト数です。
+	 */
+	private static final int MIN_EVIDENCE = 64;
+	private static final int SJIS_KANA = 2, SJIS_INVALID = 3;
+	private static final int EUC_KANA = 3, EUC_INVALID = 4;
+	private final Charset fallback;
+
+	static {
+		UTF8 = new byte[9 << 8];
+		SJIS = new byte[4 << 8];
+		EUC = new byte[5 << 8];
+		Arrays.fill(UTF8, (byte) UTF8_INVALID);
+		Arrays.fill(SJIS, (byte) SJIS_INVALID);
+		Arrays.fill(EUC, (byte) EUC_INVALID);
+		for (var b = 0; b < 0x100; b++) {
+			if (b < 0x80) UTF8[b] = 0;
+			else if (b >= 0xC2 && b <= 0xDF) UTF8[b] = 1;
+			else if (b == 0xE0) UTF8[b] = UTF8_E0;
+			else if (b == 0xED) UTF8[b] = UTF8_ED;
+			else if (b >= 0xE1 && b <= 0xEF) UTF8[b] = 2;
+			else if (b == 0xF0) UTF8[b] = UTF8_F0;
+			else if (b == 0xF4) UTF8[b] = UTF8_F4;
+			else if (b >= 0xF1 && b <= 0xF3) UTF8[b] = 3;
+			for (var state = 1; state <= 3; state++) {
+				if ((b & 0xC0) == 0x80) UTF8[state << 8 | b] = (byte) (state - 1);
+			}
+			if (b >= 0xA0 && b <= 0xBF) UTF8[UTF8_E0 << 8 | b] = 1;
+			if (b >= 0x80 && b <= 0x9F) UTF8[UTF8_ED << 8 | b] = 1;
+			if (b >= 0x90 && b <= 0xBF) UTF8[UTF8_F0 << 8 | b] = 2;
+			if (b >= 0x80 && b <= 0x8F) UTF8[UTF8_F4 << 8 | b] = 2;
+			if (b < 0x80 || (b >= 0xA1 && b <= 0xDF)) SJIS[b] = 0;
+			else if (b == 0x82 || b == 0x83) SJIS[b] = SJIS_KANA;
+			else if ((b >= 0x81 && b <= 0x9F) || (b >= 0xE0 && b <= 0xFC)) SJIS[b] = 1;
+			if (b >= 0x40 && b <= 0xFC && b != 0x7F) {
+				SJIS[1 << 8 | b] = 0;
+				SJIS[SJIS_KANA << 8 | b] = 0;
+			}
+			if (b < 0x80) EUC[b] = 0;
+			else if (b == 0xA4 || b == 0xA5) EUC[b] = EUC_KANA;
+			else if (b >= 0xA1 && b <= 0xFE) EUC[b] = 1;
+			else if (b == 0x8E) EUC[b] = 1;
+			else if (b == 0x8F) EUC[b] = 2;
+			if (b >= 0xA1 && b <= 0xFE) {
+				EUC[1 << 8 | b] = 0;
+				EUC[2 << 8 | b] = 1;
+				EUC[EUC_KANA << 8 | b] = 0;
+			}
+		}
+	}
+
+	/**
+	 * 判定できない場合の文字セットを指定して構築します。
+	 *
+	 * @param fallback 判定できない場合の文字セット
+	 */
+	public CharsetDetector(Charset fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * 判定できない場合の文字セットを返します。
+	 *
+	 * @return 判定できない場合の文字セット
+	 */
+	public Charset getFallback() {
+		return fallback;
+	}
+
+	/**
+	 * ファイルの先頭部分を読み込んで文字セットを推定します。
+	 *
+	 * @param file ファイル
+	 *
+	 * @return 文字セット
+	 *
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	public Charset detect(Path file) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final var buffer = ByteBuffer.allocate((int) Math.min(LIMIT, channel.size()));
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) ;
+			buffer.flip();
+			return detect(buffer, buffer.limit() < channel.size());
+		}
+	}
+
+	/**
+	 * バイト列の位置から限界までの先頭部分を走査して文字セットを推定します。
+	 * バッファの位置や限界は変更されません。
+	 *
+	 * @param bytes バイト列
+	 *
+	 * @return 文字セット
+	 */
+	public Charset detect(ByteBuffer bytes) {
+		return detect(bytes, bytes.remaining() > LIMIT);
+	}
+
+	/**
+	 * バイト列の先頭部分を走査して文字セットを推定します。
+	 *
+	 * @param bytes バイト列
+	 * @param cut   後続のバイト列が存在する場合true
+	 *
+	 * @return 文字セット
+	 */
+	private Charset detect(ByteBuffer bytes, boolean cut) {
+		final var n = Math.min(LIMIT, bytes.remaining());
+		final byte[] buf;
+		final int off;
+		if (bytes.hasArray()) {
+			buf = bytes.array();
+			off = bytes.arrayOffset() + bytes.position();
+		} else {
+			bytes.duplicate().get(buf = new byte[n]);
+			off = 0;
+		}
+		if (n >= 3 && buf[off] == (byte) 0xEF && buf[off + 1] == (byte) 0xBB && buf[off + 2] == (byte) 0xBF) {
+			return StandardCharsets.UTF_8;
+		}
+		if (n >= 2 && ((buf[off] == (byte) 0xFE && buf[off + 1] == (byte) 0xFF) || (buf[off] == (byte) 0xFF && buf[off + 1] == (byte) 0xFE))) {
+			return StandardCharsets.UTF_16;
+		}
+		int evenZeros = 0, oddZeros = 0, escapes = 0, high = 0;
+		int utf8 = 0, sjis = 0, euc = 0, sjisKana = 0, eucKana = 0;
+		for (var i = 0; i < n; i++) {
+			final var b = buf[off + i] & 0xFF;
+			if (b == 0) {
+				if ((i & 1) == 0) evenZeros++;
+				else oddZeros++;
+			} else if (b == 0x1B && i + 2 < n && isJisEscape(buf[off + i + 1], buf[off + i + 2])) escapes++;
+			if (b < 0x80 && (utf8 | sjis | euc) == 0) continue;
+			high += b >>> 7;
+			final int u = UTF8[utf8 << 8 | b], s = SJIS[sjis << 8 | b], e = EUC[euc << 8 | b];
+			var changed = high == MIN_EVIDENCE;
+			if (u == UTF8_INVALID && utf8 != UTF8_INVALID) changed = true;
+			if (s == SJIS_INVALID && sjis != SJIS_INVALID) changed = true;
+			if (e == EUC_INVALID && euc != EUC_INVALID) changed = true;
+			if (s == SJIS_KANA) {
+				sjisKana++;
+				changed = true;
+			}
+			if (e == EUC_KANA) {
+				eucKana++;
+				changed = true;
+			}
+			utf8 = u;
+			sjis = s;
+			euc = e;
+			if (changed && evenZeros + oddZeros == 0 && isDecided(utf8, sjis, euc, sjisKana, eucKana, high)) {
+				cut = true;
+				break;
+			}
+		}
+		if (!cut) {
+			if (utf8 != 0) utf8 = UTF8_INVALID;
+			if (sjis != 0) sjis = SJIS_INVALID;
+			if (euc != 0) euc = EUC_INVALID;
+		}
+		if (evenZeros + oddZeros > 0) {
+			if (evenZeros == 0 && oddZeros >= n / 16) return StandardCharsets.UTF_16LE;
+			if (oddZeros == 0 && evenZeros >= n / 16) return StandardCharsets.UTF_16BE;
+			return fallback;
+		}
+		if (high == 0) {
+			if (escapes > 0) return forName("ISO-2022-JP");
+			return fallback;
+		}
+		final var isUtf8 = utf8 != UTF8_INVALID;
+		final var isSjis = sjis != SJIS_INVALID;
+		final var isEuc = euc != EUC_INVALID;
+		if (isUtf8) return StandardCharsets.UTF_8;
+		if (isSjis && isEuc) return forName(eucKana > sjisKana ? "EUC-JP" : "Windows-31J");
+		if (isSjis) return forName("Windows-31J");
+		if (isEuc) return forName("EUC-JP");
+		return fallback;
+	}
+
+	/**
+	 * 全ての候補が否定されたか、十分な量の8ビットの文字を読んで候補が1個に絞られたか、
+	 * Shift_JISとEUC-JPの仮名の出現頻度に大きな差が付いたか返します。
+	 */
+	private static boolean isDecided(int utf8, int sjis, int euc, int sjisKana, int eucKana, int high) {
+		var count = 0;
+		if (utf8 != UTF8_INVALID) count++;
+		if (sjis != SJIS_INVALID) count++;
+		if (euc != EUC_INVALID) count++;
+		if (count == 0) return true;
+		if (count == 1) return high >= MIN_EVIDENCE;
+		if (count > 2 || utf8 != UTF8_INVALID) return false;
+		return eucKana > 8 * sjisKana + 64 || sjisKana > 8 * eucKana + 64;
+	}
+
+	/**
+	 * ESCに続く2バイトがISO-2022-JPの文字集合を指示するか返します。
+	 */
+	private static boolean isJisEscape(byte b1, byte b2) {
+		if (b1 == '$') return b2 == 'B' || b2 == '@';
+		if (b1 == '(') return b2 == 'B' || b2 == 'J';
+		return false;
+	}
+
+	/**
+	 * 名前で文字セットを返します。利用できない場合は判定できない場合の文字セットを返します。
+	 */
+	private Charset forName(String name) {
+		return Charset.isSupported(name) ? Charset.forName(name) : fallback;
+	}
+}
@@ -11,24 +11,69 @@ import java.io.Reader;
 
 /**
  * ストリームの内容を16進数ダンプに変換して出力します。
+ * <p>
+ * ストリームは大きな単位でまとめて読み込まれ、各バイトは変換表を用いて16進数に変換されます。
+ * 出力先の配列に1行分の空きがある場合は直接書き込み、空きがない場合のみ
+ * 1行分の保留領域に書き込んでから少しずつ複写するため、読み込み中に文字列は生成されません。
  *
  * @author 無線部開発班
  * @since 2012年3月19日
  */
 public class Dump extends Reader {
+	/**
+	 * ストリームから1回に読み込むバイト数です。
+	 */
+	private static final int BLOCK_SIZE = 1 << 16;
+	/**
+	 * 各バイトに対応する2桁の16進数の変換表です。
+	 */
+	private static final char[] HEX_TABLE;
 	private final InputStream stream;
-	private StringBuilder sb;
+	private final int columns;
+	private final boolean offsets;
 	private byte[] buffer;
+	private int bufferStart, bufferEnd;
+	private char[] pending;
+	private int pendingStart, pendingEnd;
+	private long position;
+
+	static {
+		final var digits = "0123456789ABCDEF".toCharArray();
+		HEX_TABLE = new char[512];
+		for (var b = 0; b < 256; b++) {
+			HEX_TABLE[b * 2] = digits[b >> 4];
+			HEX_TABLE[b * 2 + 1] = digits[b & 0xF];
+		}
+	}
 
 	/**
 	 * 入力を指定してリーダーを構築します。
+	 * 1行に16バイトを表示し、位置は表示しません。
 	 *
 	 * @param stream 入力
 	 */
 	public Dump(InputStream stream) {
+		this(stream, 16, false);
+	}
+
+	/**
+	 * 入力と1行のバイト数と位置の表示の有無を指定してリーダーを構築します。
+	 *
+	 * @param stream  入力
+	 * @param columns 1行に表示するバイト数
+	 * @param offsets 行頭に位置を表示する場合true
+	 *
+	 * @throws IllegalArgumentException バイト数が0以下の場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public Dump(InputStream stream, int columns, boolean offsets) {
+		if (columns <= 0) throw new IllegalArgumentException("columns: " + columns);
 		this.stream = stream;
-		sb = new StringBuilder();
-		buffer = new byte[16];
+		this.columns = columns;
+		this.offsets = offsets;
+		this.buffer = new byte[Math.max(BLOCK_SIZE, columns)];
+		this.pending = new char[getRowLength(columns, Long.MAX_VALUE)];
 	}
 
 	/**
@@ -44,38 +89,106 @@ public class Dump extends Reader {
 	 */
 	@Override
 	public int read(char[] cbuf, int off, int len) throws IOException {
-		var returnVal = 0;
-		if (sb.length() > 0) {
-			final var buflen = Math.min(len, sb.length());
-			for (var i = 0; i < buflen; i++) {
-				cbuf[off + i] = sb.charAt(i);
+		var total = 0;
+		while (len > 0) {
+			if (pendingStart < pendingEnd) {
+				final var n = Math.min(len, pendingEnd - pendingStart);
+				System.arraycopy(pending, pendingStart, cbuf, off, n);
+				pendingStart += n;
+				off += n;
+				len -= n;
+				total += n;
+				continue;
+			}
+			if (!fill()) break;
+			final var n = Math.min(columns, bufferEnd - bufferStart);
+			final var rowLength = getRowLength(n, position);
+			if (rowLength <= len) {
+				format(cbuf, off, n);
+				off += rowLength;
+				len -= rowLength;
+				total += rowLength;
+			} else {
+				format(pending, 0, n);
+				pendingStart = 0;
+				pendingEnd = rowLength;
 			}
-			sb.delete(0, buflen);
-			len -= buflen;
-			off += buflen;
-			returnVal += buflen;
+			bufferStart += n;
+			position += n;
+		}
+		return total > 0 ? total : -1;
+	}
+
+	/**
+	 * 1行分のバイトが揃うまでストリームから読み込みます。
+	 *
+	 * @return 読み込まれたバイトが残っている場合true
+	 *
+	 * @throws IOException 入出力エラーが発生した場合
+	 */
+	private boolean fill() throws IOException {
+		if (bufferEnd - bufferStart >= columns) return true;
+		final var rest = bufferEnd - bufferStart;
+		System.arraycopy(buffer, bufferStart, buffer, 0, rest);
+		bufferStart = 0;
+		bufferEnd = rest;
+		while (bufferEnd < columns) {
+			final var size = stream.read(buffer, bufferEnd, buffer.length - bufferEnd);
+			if (size < 0) break;
+			bufferEnd += size;
 		}
-		int size;
-		while ((size = stream.read(buffer)) > 0) {
-			for (var i = 0; i < size; i++) {
-				var b = buffer[i] & 0xFF;
-				sb.append(Integer.toHexString(b >> 4).toUpperCase());
-				sb.append(Integer.toHexString(b % 16).toUpperCase());
-				sb.append(' ');
+		return bufferEnd > 0;
+	}
+
+	/**
+	 * 位置と、指定されたバイト数の行を出力した場合の文字数を返します。
+	 *
+	 * @param n      行のバイト数
+	 * @param offset 行頭の位置
+	 *
+	 * @return 改行文字を含む文字数
+	 */
+	private int getRowLength(int n, long offset) {
+		final var prefix = offsets ? getOffsetDigits(offset) + 2 : 0;
+		return prefix + columns * 3 + 1 + n + 1;
+	}
+
+	/**
+	 * 位置を表示する桁数を返します。32ビットに収まる場合は8桁です。
+	 */
+	private static int getOffsetDigits(long offset) {
+		return Math.max(8, (64 - Long.numberOfLeadingZeros(offset) + 3) / 4);
+	}
+
+	/**
+	 * 読み込み済みのバイトから1行分を整形して配列に書き込みます。
+	 *
+	 * @param dst 書き込み先
+	 * @param off 書き込み開始位置
+	 * @param n   行のバイト数
+	 */
+	private void format(char[] dst, int off, int n) {
+		if (offsets) {
+			final var digits = getOffsetDigits(position);
+			var v = position;
+			for (var i = digits - 1; i >= 0; i--, v >>>= 4) {
+				dst[off + i] = HEX_TABLE[(int) (v & 0xF) * 2 + 1];
 			}
-			sb.append(" ".repeat(Math.max(0, 3 * (16 - size))));
-			sb.append(' ');
-			for (var i = 0; i < size; i++) sb.append(toChar(buffer[i]));
-			sb.append('\n');
-			if (sb.length() > len) break;
+			dst[off + digits] = ' ';
+			dst[off + digits + 1] = ' ';
+			off += digits + 2;
 		}
-		final var lastlen = Math.min(len, sb.length());
-		for (var i = 0; i < lastlen; i++) {
-			cbuf[off + i] = sb.charAt(i);
+		final var buf = buffer;
+		final var start = bufferStart;
+		for (var i = 0; i < n; i++) {
+			final var b = (buf[start + i] & 0xFF) * 2;
+			dst[off++] = HEX_TABLE[b];
+			dst[off++] = HEX_TABLE[b + 1];
+			dst[off++] = ' ';
 		}
-		sb.delete(0, lastlen);
-		returnVal += lastlen;
-		return (returnVal > 0) ? returnVal : -1;
+		for (var i = 3 * (columns - n); i >= 0; i--) dst[off++] = ' ';
+		for (var i = 0; i < n; i++) dst[off++] = toChar(buf[start + i]);
+		dst[off] = '\n';
 	}
 
 	/**
@@ -85,8 +198,8 @@ public class Dump extends Reader {
 	 */
 	@Override
 	public void close() throws IOException {
-		sb = null;
 		buffer = null;
+		pending = null;
 		stream.close();
 	}
 
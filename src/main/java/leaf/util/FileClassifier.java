@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 拡張子とファイルの先頭部分の内容から、ファイルの種別を判定します。
+ * <p>
+ * 拡張子が登録されている場合はハッシュ表から種別を直接返し、ファイルを読みません。
+ * 登録されていない場合は先頭の数KBのみを読み込み、画像形式のマジックナンバー、
+ * ヌル文字と制御文字の密度、UTF-16のバイト配置からテキスト、画像、バイナリを判別します。
+ *
+ * @param <T> 種別を表す型
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class FileClassifier<T> {
+	/**
+	 * 内容を調べるために読み込むバイト数です。
+	 */
+	private static final int SNIFF_SIZE = 4096;
+	private static final byte[][] IMAGE_MAGICS = {
+		{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'},
+		{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},
+		{'G', 'I', 'F', '8', '7', 'a'},
+		{'G', 'I', 'F', '8', '9', 'a'},
+		{'I', 'I', '*', 0},
+		{'M', 'M', 0, '*'},
+	};
+	private final Map<String, T> extensions;
+	private final T text, image, binary;
+
+	/**
+	 * 内容から判定した場合に返す種別を指定して構築します。
+	 *
+	 * @param text   テキストの場合の種別
+	 * @param image  画像の場合の種別
+	 * @param binary バイナリの場合の種別
+	 */
+	public FileClassifier(T text, T image, T binary) {
+		this.extensions = new HashMap<>();
+		this.text = text;
+		this.image = image;
+		this.binary = binary;
+	}
+
+	/**
+	 * 拡張子に対する種別を登録します。既に登録されている拡張子は変更しません。
+	 *
+	 * @param extension 拡張子
+	 * @param type      種別
+	 */
+	public void put(String extension, T type) {
+		extensions.putIfAbsent(extension.toLowerCase(Locale.ROOT), type);
+	}
+
+	/**
+	 * 登録されている全ての拡張子を削除します。
+	 */
+	public void clear() {
+		extensions.clear();
+	}
+
+	/**
+	 * ファイルの種別を判定します。
+	 * 拡張子が登録されていない場合は、ファイルの先頭部分を読み込んで判定します。
+	 *
+	 * @param file ファイル
+	 *
+	 * @return 種別
+	 *
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	public T classify(Path file) throws IOException {
+		final var name = file.getFileName();
+		if (name != null) {
+			final var str = name.toString();
+			final var index = str.lastIndexOf('.');
+			if (index >= 0) {
+				final var type = extensions.get(str.substring(index + 1).toLowerCase(Locale.ROOT));
+				if (type != null) return type;
+			}
+		}
+		return sniff(file);
+	}
+
+	/**
+	 * 拡張子を用いずに、ファイルの先頭部分の内容のみから種別を判定します。
+	 *
+	 * @param file ファイル
+	 *
+	 * @return 種別
+	 *
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	public T sniff(Path file) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final var buffer = ByteBuffer.allocate(SNIFF_SIZE);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) ;
+			return sniff(buffer.array(), buffer.position());
+		}
+	}
+
+	/**
+	 * バイト列の内容から種別を判定します。
+	 *
+	 * @param buf バイト列
+	 * @param n   有効なバイト数
+	 *
+	 * @return 種別
+	 */
+	private T sniff(byte[] buf, int n) {
+		for (var magic : IMAGE_MAGICS) {
+			if (startsWith(buf, n, magic)) return image;
+		}
+		if (isBitmap(buf, n)) return image;
+		if (n >= 2 && ((buf[0] == (byte) 0xFE && buf[1] == (byte) 0xFF) || (buf[0] == (byte) 0xFF && buf[1] == (byte) 0xFE))) {
+			return text;
+		}
+		int evenZeros = 0, oddZeros = 0, controls = 0;
+		for (var i = 0; i < n; i++) {
+			final var b = buf[i];
+			if (b == 0) {
+				if ((i & 1) == 0) evenZeros++;
+				else oddZeros++;
+			} else if (b >= 0 && b < 0x20 && !isTextControl(b)) controls++;
+		}
+		if (evenZeros + oddZeros > 0) {
+			final var utf16 = (evenZeros == 0 || oddZeros == 0) && evenZeros + oddZeros >= n / 16;
+			return utf16 ? text : binary;
+		}
+		return controls * 32 > n ? binary : text;
+	}
+
+	/**
+	 * BMP形式のヘッダか返します。
+	 * 文字列の"BM"と区別するため、予約領域が0であることも確認します。
+	 */
+	private static boolean isBitmap(byte[] buf, int n) {
+		if (n < 14 || buf[0] != 'B' || buf[1] != 'M') return false;
+		return buf[6] == 0 && buf[7] == 0 && buf[8] == 0 && buf[9] == 0;
+	}
+
+	/**
+	 * テキストに含まれ得る制御文字か返します。
+	 * エスケープはISO-2022-JPのために許容されます。
+	 */
+	private static boolean isTextControl(byte b) {
+		return b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x1B;
+	}
+
+	/**
+	 * バイト列が指定された並びで始まるか返します。
+	 */
+	private static boolean startsWith(byte[] buf, int n, byte[] magic) {
+		if (n < magic.length) return false;
+		for (var i = 0; i < magic.length; i++) {
+			if (buf[i] != magic[i]) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ディレクトリ内のファイルを深さ優先で少しずつ列挙します。
+ * <p>
+ * 列挙は{@link Spliterator}として要求される度に進み、開いているディレクトリの一覧だけを保持するため、
+ * 最初のファイルは走査の完了を待たずに得られ、全てのファイルを記憶することもありません。
+ * 各項目の属性は1回だけ読み込まれ、フィルタにそのまま渡されます。
+ * <p>
+ * シンボリックリンクを辿る場合は、祖先のディレクトリと同じファイルキーを持つディレクトリには入らないため、
+ * リンクが循環していても列挙は終了します。辿らない場合、シンボリックリンクは列挙されません。
+ * <p>
+ * 除外の規則は.gitignoreと同じ書式で指定でき、ディレクトリ毎の除外ファイルを読み込むこともできます。
+ * 除外ファイルの規則はそのディレクトリ以下に適用され、後に書かれた規則ほど優先されます。
+ * 読み込めないディレクトリは無視されます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class FileWalker implements Closeable {
+	private final Path root;
+	private boolean followLinks = false;
+	private BiPredicate<Path, BasicFileAttributes> fileFilter = (path, attrs) -> true;
+	private BiPredicate<Path, BasicFileAttributes> directoryFilter = (path, attrs) -> true;
+	private final List<Rule> excludes = new ArrayList<>();
+	private String ignoreFileName;
+	private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+	private boolean started = false;
+	private boolean opened = false;
+
+	/**
+	 * 起点のディレクトリを指定して構築します。
+	 *
+	 * @param root 起点ディレクトリ
+	 */
+	public FileWalker(Path root) {
+		this.root = root.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * 起点のディレクトリを返します。
+	 *
+	 * @return 正規化された絶対パス
+	 */
+	public Path getRoot() {
+		return root;
+	}
+
+	/**
+	 * 同じ起点と設定を持つ、まだ列挙していない走査器を返します。
+	 * フィルタと除外の規則は共有されます。
+	 *
+	 * @return 新しい走査器
+	 */
+	public FileWalker copy() {
+		final var copy = new FileWalker(root);
+		copy.followLinks = followLinks;
+		copy.fileFilter = fileFilter;
+		copy.directoryFilter = directoryFilter;
+		copy.excludes.addAll(excludes);
+		copy.ignoreFileName = ignoreFileName;
+		return copy;
+	}
+
+	/**
+	 * シンボリックリンクを辿るか指定します。既定では辿りません。
+	 *
+	 * @param followLinks 辿る場合true
+	 *
+	 * @return このオブジェクト
+	 */
+	public FileWalker setFollowLinks(boolean followLinks) {
+		this.followLinks = followLinks;
+		return this;
+	}
+
+	/**
+	 * 列挙するファイルを選ぶフィルタを指定します。
+	 *
+	 * @param filter ファイルと属性を受け取り、列挙する場合trueを返すフィルタ
+	 *
+	 * @return このオブジェクト
+	 */
+	public FileWalker setFileFilter(BiPredicate<Path, BasicFileAttributes> filter) {
+		this.fileFilter = filter;
+		return this;
+	}
+
+	/**
+	 * 列挙するファイルを選ぶフィルタを返します。
+	 *
+	 * @return フィルタ
+	 */
+	public BiPredicate<Path, BasicFileAttributes> getFileFilter() {
+		return fileFilter;
+	}
+
+	/**
+	 * 中に入るディレクトリを選ぶフィルタを指定します。起点のディレクトリには適用されません。
+	 *
+	 * @param filter ディレクトリと属性を受け取り、中に入る場合trueを返すフィルタ
+	 *
+	 * @return このオブジェクト
+	 */
+	public FileWalker setDirectoryFilter(BiPredicate<Path, BasicFileAttributes> filter) {
+		this.directoryFilter = filter;
+		return this;
+	}
+
+	/**
+	 * 中に入るディレクトリを選ぶフィルタを返します。
+	 *
+	 * @return フィルタ
+	 */
+	public BiPredicate<Path, BasicFileAttributes> getDirectoryFilter() {
+		return directoryFilter;
+	}
+
+	/**
+	 * .gitignoreと同じ書式の除外の規則を、起点のディレクトリに対する規則として追加します。
+	 * 空行と#で始まる行は無視されます。
+	 *
+	 * @param pattern 規則
+	 *
+	 * @return このオブジェクト
+	 */
+	public FileWalker addExclude(String pattern) {
+		final var rule = Rule.parse(pattern, "");
+		if (rule != null) excludes.add(rule);
+		return this;
+	}
+
+	/**
+	 * 各ディレクトリで読み込む除外ファイルの名前を指定します。
+	 *
+	 * @param name 除外ファイルの名前 読み込まない場合はnull
+	 *
+	 * @return このオブジェクト
+	 */
+	public FileWalker setIgnoreFileName(String name) {
+		this.ignoreFileName = name;
+		return this;
+	}
+
+	/**
+	 * ファイルを列挙する{@link Spliterator}を返します。
+	 * 列挙は1回だけ行えます。
+	 *
+	 * @return ファイルの列挙
+	 */
+	public Spliterator<Path> spliterator() {
+		if (started) throw new IllegalStateException("already walked");
+		started = true;
+		return new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super Path> action) {
+				final var next = next();
+				if (next == null) return false;
+				action.accept(next);
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * ファイルを列挙するストリームを返します。
+	 * ストリームを閉じると、開いているディレクトリも閉じられます。
+	 *
+	 * @return ファイルの列挙
+	 */
+	public Stream<Path> stream() {
+		return StreamSupport.stream(spliterator(), false).onClose(this::close);
+	}
+
+	/**
+	 * 開いている全てのディレクトリを閉じます。
+	 */
+	@Override
+	public void close() {
+		while (!stack.isEmpty()) stack.pop().close();
+	}
+
+	/**
+	 * 次のファイルを返します。
+	 *
+	 * @return ファイル 列挙が終了した場合null
+	 */
+	private Path next() {
+		if (!opened) {
+			opened = true;
+			try {
+				final var attrs = Files.readAttributes(root, BasicFileAttributes.class);
+				if (!attrs.isDirectory()) return attrs.isRegularFile() && fileFilter.test(root, attrs) ? root : null;
+				enter(root, attrs, null);
+			} catch (IOException | SecurityException ex) {
+				return null;
+			}
+		}
+		while (!stack.isEmpty()) {
+			final var frame = stack.peek();
+			if (!frame.entries.hasNext()) {
+				stack.pop().close();
+				continue;
+			}
+			final var path = frame.entries.next();
+			final var attrs = readAttributes(path);
+			if (attrs == null) continue;
+			if (attrs.isDirectory()) {
+				if (isExcluded(frame, path, true) || !directoryFilter.test(path, attrs)) continue;
+				if (followLinks && isLoop(frame, path, attrs)) continue;
+				enter(path, attrs, frame);
+			} else if (attrs.isRegularFile()) {
+				if (!isExcluded(frame, path, false) && fileFilter.test(path, attrs)) return path;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 項目の属性を読み込みます。
+	 *
+	 * @return 属性 読み込めないか、シンボリックリンクを辿らない場合のリンクはnull
+	 */
+	private BasicFileAttributes readAttributes(Path path) {
+		try {
+			final BasicFileAttributes attrs;
+			if (followLinks) attrs = Files.readAttributes(path, BasicFileAttributes.class);
+			else attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			return attrs.isSymbolicLink() ? null : attrs;
+		} catch (IOException | SecurityException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * 祖先のディレクトリに同じディレクトリがあるか判定します。
+	 */
+	private boolean isLoop(Frame parent, Path dir, BasicFileAttributes attrs) {
+		final var key = attrs.fileKey();
+		for (var frame = parent; frame != null; frame = frame.parent) {
+			if (isSameDirectory(dir, key, frame.dir, frame.key)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 2個のディレクトリが同じか判定します。
+	 * いずれかのファイルキーが取得できない環境では、{@link Files#isSameFile(Path, Path)}で比較します。
+	 *
+	 * @param dir         ディレクトリ
+	 * @param key         ディレクトリのファイルキー 取得できない場合はnull
+	 * @param ancestor    祖先のディレクトリ
+	 * @param ancestorKey 祖先のディレクトリのファイルキー 取得できない場合はnull
+	 *
+	 * @return 同じディレクトリの場合true 比較できない場合はfalse
+	 */
+	static boolean isSameDirectory(Path dir, Object key, Path ancestor, Object ancestorKey) {
+		if (key != null && ancestorKey != null) return key.equals(ancestorKey);
+		try {
+			return Files.isSameFile(dir, ancestor);
+		} catch (IOException | SecurityException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * ディレクトリを開いて列挙を開始します。開けない場合は無視します。
+	 */
+	private void enter(Path dir, BasicFileAttributes attrs, Frame parent) {
+		try {
+			final var stream = Files.newDirectoryStream(dir);
+			final var frame = new Frame(dir, attrs.fileKey(), stream, parent);
+			if (parent == null) frame.rules.addAll(excludes);
+			if (ignoreFileName != null) frame.rules.addAll(readIgnoreFile(dir));
+			stack.push(frame);
+		} catch (IOException | SecurityException ex) {
+		}
+	}
+
+	/**
+	 * ディレクトリの除外ファイルを読み込みます。
+	 */
+	private List<Rule> readIgnoreFile(Path dir) {
+		final var rules = new ArrayList<Rule>();
+		final var file = dir.resolve(ignoreFileName);
+		try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+			final var base = root.relativize(dir).toString().replace(dir.getFileSystem().getSeparator(), "/");
+			lines.forEach(line -> {
+				final var rule = Rule.parse(line, base);
+				if (rule != null) rules.add(rule);
+			});
+		} catch (IOException | UncheckedIOException ex) {
+		}
+		return rules;
+	}
+
+	/**
+	 * 起点から辿った全ての規則を適用して、項目が除外されるか判定します。
+	 * 後に適用された規則ほど優先されます。
+	 */
+	private boolean isExcluded(Frame frame, Path path, boolean isDirectory) {
+		if (!frame.hasRules()) return false;
+		final var relative = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+		final var chain = new ArrayDeque<Frame>();
+		for (var f = frame; f != null; f = f.parent) chain.push(f);
+		var excluded = false;
+		for (var f : chain) {
+			for (var rule : f.rules) {
+				if (rule.matches(relative, isDirectory)) excluded = !rule.negated;
+			}
+		}
+		return excluded;
+	}
+
+	/**
+	 * 開いているディレクトリと、そこで読み込まれた除外の規則です。
+	 */
+	private static final class Frame {
+		final Path dir;
+		final Object key;
+		final DirectoryStream<Path> stream;
+		final Iterator<Path> entries;
+		final Frame parent;
+		final List<Rule> rules = new ArrayList<>();
+
+		Frame(Path dir, Object key, DirectoryStream<Path> stream, Frame parent) {
+			this.dir = dir;
+			this.key = key;
+			this.stream = stream;
+			this.entries = stream.iterator();
+			this.parent = parent;
+		}
+
+		boolean hasRules() {
+			for (var f = this; f != null; f = f.parent) if (!f.rules.isEmpty()) return true;
+			return false;
+		}
+
+		void close() {
+			try {
+				stream.close();
+			} catch (IOException ex) {
+			}
+		}
+	}
+
+	/**
+	 * .gitignoreと同じ書式の除外の規則です。
+	 */
+	private static final class Rule {
+		final Pattern pattern;
+		final boolean negated;
+		final boolean directoryOnly;
+
+		private Rule(Pattern pattern, boolean negated, boolean directoryOnly) {
+			this.pattern = pattern;
+			this.negated = negated;
+			this.directoryOnly = directoryOnly;
+		}
+
+		/**
+		 * 規則を解釈します。
+		 *
+		 * @param line 規則
+		 * @param base 規則が置かれたディレクトリの、起点からの相対パス
+		 *
+		 * @return 規則 空行や注釈の場合はnull
+		 */
+		static Rule parse(String line, String base) {
+			var text = line.strip();
+			if (text.isEmpty() || text.startsWith("#")) return null;
+			final var negated = text.startsWith("!");
+			if (negated) text = text.substring(1);
+			if (text.startsWith("\\")) text = text.substring(1);
+			final var directoryOnly = text.endsWith("/");
+			if (directoryOnly) text = text.substring(0, text.length() - 1);
+			if (text.isEmpty()) return null;
+			final var anchored = text.contains("/");
+			if (text.startsWith("/")) text = text.substring(1);
+			final var regex = new StringBuilder();
+			if (!base.isEmpty()) regex.append(Pattern.quote(base + "/"));
+			if (!anchored) regex.append("(?:.*/)?");
+			regex.append(toRegex(text));
+			return new Rule(Pattern.compile(regex.toString()), negated, directoryOnly);
+		}
+
+		/**
+		 * グロブを正規表現に変換します。
+		 */
+		private static String toRegex(String glob) {
+			final var sb = new StringBuilder();
+			for (var i = 0; i < glob.length(); i++) {
+				final var ch = glob.charAt(i);
+				if (glob.startsWith("**/", i)) {
+					sb.append("(?:.*/)?");
+					i += 2;
+				} else if (glob.startsWith("/**", i) && i + 3 == glob.length()) {
+					sb.append("/.*");
+					i += 2;
+				} else if (ch == '*') {
+					sb.append("[^/]*");
+				} else if (ch == '?') {
+					sb.append("[^/]");
+				} else if (ch == '[') {
+					final var end = glob.indexOf(']', i + 1);
+					if (end < 0) {
+						sb.append("\\[");
+						continue;
+					}
+					var body = glob.substring(i + 1, end).replace("\\", "\\\\");
+					if (body.startsWith("!")) body = "^" + body.substring(1);
+					sb.append('[').append(body).append(']');
+					i = end;
+				} else if (ch == '\\' && i + 1 < glob.length()) {
+					sb.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+				} else {
+					sb.append(Pattern.quote(String.valueOf(ch)));
+				}
+			}
+			return sb.toString();
+		}
+
+		boolean matches(String relative, boolean isDirectory) {
+			if (directoryOnly && !isDirectory) return false;
+			return pattern.matcher(relative).matches();
+		}
+	}
+}
@@ -8,8 +8,9 @@ package leaf.util;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FilenameFilter;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.BiPredicate;
 
 /**
  * 条件を指定することによってファイルやディレクトリを検索します。
@@ -50,61 +51,43 @@ public class Find {
 
 	/**
 	 * 指定したディレクトリ内のファイルを深さ優先検索します。
+	 * フィルタはファイルとディレクトリの両方に適用されます。
+	 * シンボリックリンクは辿りますが、循環するリンクの先には入りません。
+	 * 結果を待たずに処理を始める場合は{@link FileWalker}を利用してください。
 	 *
 	 * @param root   起点ディレクトリ
 	 * @param filter フィルタ
 	 *
-	 * @return ファイルの一覧
+	 * @return ファイルの一覧 起点がディレクトリでない場合は空
 	 */
 	public static File[] listFiles(File root, FileFilter filter) {
-		List<File> list = new ArrayList<>();
-		listFiles(list, root, filter);
-		return list.toArray(new File[0]);
-	}
-
-	/**
-	 * 指定したディレクトリ内の全てのファイルを再帰的に検索します。
-	 *
-	 * @param list   見つかったファイルを格納するリスト
-	 * @param dir    現在のディレクトリ
-	 * @param filter フィルタ
-	 */
-	private static void listFiles(List<File> list, File dir, FileFilter filter) {
-		var children = dir.listFiles(filter);
-		if (children == null) return;
-		for (var child : children) {
-			if (child.isDirectory()) listFiles(list, child, filter);
-			else list.add(child);
+		if (!root.isDirectory()) return new File[0];
+		try (var walker = new FileWalker(root.toPath()).setFollowLinks(true)) {
+			walker.setFileFilter((path, attrs) -> filter.accept(path.toFile()));
+			walker.setDirectoryFilter((path, attrs) -> filter.accept(path.toFile()));
+			return walker.stream().map(Path::toFile).toArray(File[]::new);
 		}
 	}
 
 	/**
 	 * 指定したディレクトリ内のファイルを深さ優先検索します。
+	 * フィルタはファイルとディレクトリの両方に適用されます。
+	 * シンボリックリンクは辿りますが、循環するリンクの先には入りません。
+	 * 結果を待たずに処理を始める場合は{@link FileWalker}を利用してください。
 	 *
 	 * @param root   起点ディレクトリ
 	 * @param filter フィルタ
 	 *
-	 * @return ファイルの一覧
+	 * @return ファイルの一覧 起点がディレクトリでない場合は空
 	 */
 	public static File[] listFiles(File root, FilenameFilter filter) {
-		List<File> list = new ArrayList<>();
-		listFiles(list, root, filter);
-		return list.toArray(new File[0]);
-	}
-
-	/**
-	 * 指定したディレクトリ内の全てのファイルを再帰的に検索します。
-	 *
-	 * @param list   見つかったファイルを格納するリスト
-	 * @param dir    現在のディレクトリ
-	 * @param filter フィルタ
-	 */
-	private static void listFiles(List<File> list, File dir, FilenameFilter filter) {
-		var children = dir.listFiles(filter);
-		if (children == null) return;
-		for (var child : children) {
-			if (child.isDirectory()) listFiles(list, child, filter);
-			else list.add(child);
+		if (!root.isDirectory()) return new File[0];
+		try (var walker = new FileWalker(root.toPath()).setFollowLinks(true)) {
+			final BiPredicate<Path, BasicFileAttributes> accept =
+				(path, attrs) -> filter.accept(path.getParent().toFile(), path.getFileName().toString());
+			walker.setFileFilter(accept);
+			walker.setDirectoryFilter(accept);
+			return walker.stream().map(Path::toFile).toArray(File[]::new);
 		}
 	}
 }
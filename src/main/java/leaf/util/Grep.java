@@ -6,38 +6,157 @@
 package leaf.util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * 正規表現にマッチする記述をファイルから抽出して一覧を出力します。
+ * <p>
+ * ファイルの列挙は呼び出し元のスレッドで少しずつ進められ、見つかったファイルは直ちに
+ * 作業用のスレッドに渡されて、読み込みと復号と照合が並行して行われます。
+ * 各ファイルの結果はファイル単位でまとめて出力され、
+ * 列挙された順に出力するか、照合が完了した順に出力するかを選べます。
+ * 処理中のファイルの数はスレッド数に比例する上限を超えないため、
+ * 出力が追いつかない場合は走査を待たせます。
+ * <p>
+ * パターンが必ず含む文字列を抽出でき、文字セットがバイト列での検索に対応している場合は、
+ * ファイル全体を復号せずに符号化されたバイト列から文字列を検索し、見つかった行のみを復号して照合します。
+ * この場合、候補とならなかった行の不正なバイト列は検出されません。
+ * <p>
+ * 進捗は各ファイルの結果を出力した時点で、出力済みのファイルの数と、
+ * その時点までに見つかったファイルの数とともに通知されます。
+ * <p>
+ * 結果は行番号と桁と行の内容の抜粋を持つ{@link GrepHit}としてファイル単位で{@link #found(List)}に渡され、
+ * 既定の実装はこれを1行ずつ整形して出力先に書き込みます。
+ * 結果の数に上限を設定すると、上限に達した時点で照合と走査を打ち切るため、
+ * マッチする行が膨大な場合でも保持される結果の数は上限を超えません。
  *
  * @author 無線部開発班
  * @since 2012年3月19日
  */
 public class Grep extends Task<File> {
+	private static final FileClassifier<Boolean> classifier = new FileClassifier<>(true, false, false);
+	/**
+	 * 同時に処理中にできるファイルの数の、スレッド数に対する倍率です。
+	 */
+	private static final int PENDING_PER_THREAD = 4;
 	private final PrintWriter out;
-	private final Pattern LINE_SEPARATOR;
+	private final int threads;
+	private final boolean ordered;
+	private final int textLimit;
+	private final AtomicInteger collected = new AtomicInteger();
+	private int hitLimit = Integer.MAX_VALUE;
+	private volatile boolean isLimitReached;
 
 	/**
 	 * Grepコマンドを生成します。
+	 * 利用可能なプロセッサと同数のスレッドで照合し、結果を列挙された順に出力します。
 	 *
 	 * @param writer 出力先(手動で閉じる必要がある)
 	 */
 	public Grep(Writer writer) {
-		LINE_SEPARATOR = Pattern.compile(".*$", Pattern.MULTILINE);
-		if (writer instanceof PrintWriter) {
+		this(writer, Runtime.getRuntime().availableProcessors(), true);
+	}
+
+	/**
+	 * スレッド数と出力の順序を指定してGrepコマンドを生成します。
+	 *
+	 * @param writer  出力先(手動で閉じる必要がある) 書き込まない場合はnull
+	 * @param threads 照合するスレッドの数
+	 * @param ordered 結果をファイルの列挙順に出力する場合true 照合が完了した順の場合false
+	 *
+	 * @throws IllegalArgumentException スレッドの数が0以下の場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public Grep(Writer writer, int threads, boolean ordered) {
+		if (threads <= 0) throw new IllegalArgumentException("threads: " + threads);
+		this.threads = threads;
+		this.ordered = ordered;
+		if (writer == null || writer instanceof PrintWriter) {
 			out = (PrintWriter) writer;
 		} else {
 			out = new PrintWriter(writer);
 		}
+		this.textLimit = out != null ? Integer.MAX_VALUE : GrepHit.MAX_TEXT_LENGTH;
+	}
+
+	/**
+	 * 出力先を持たないGrepコマンドを生成します。
+	 * 結果は{@link #found(List)}と{@link #failed(Path, Throwable)}を実装して受け取ります。
+	 *
+	 * @param threads 照合するスレッドの数
+	 * @param ordered 結果をファイルの列挙順に出力する場合true 照合が完了した順の場合false
+	 *
+	 * @throws IllegalArgumentException スレッドの数が0以下の場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public Grep(int threads, boolean ordered) {
+		this(null, threads, ordered);
+	}
+
+	/**
+	 * 1回の検索で集める結果の数の上限を設定します。
+	 * 上限に達すると、それ以降のマッチは破棄され、まだ照合していないファイルは検索されません。
+	 *
+	 * @param limit 結果の数の上限
+	 *
+	 * @throws IllegalArgumentException 上限が0以下の場合
+	 *
+	 * @since 2026/10/17
+	 */
+	public void setHitLimit(int limit) {
+		if (limit <= 0) throw new IllegalArgumentException("limit: " + limit);
+		this.hitLimit = limit;
+	}
+
+	/**
+	 * 1回の検索で集める結果の数の上限を返します。
+	 *
+	 * @return 結果の数の上限
+	 *
+	 * @since 2026/10/17
+	 */
+	public int getHitLimit() {
+		return hitLimit;
+	}
+
+	/**
+	 * 直前の検索が結果の数の上限に達して打ち切られたか判定します。
+	 *
+	 * @return 上限に達した場合true
+	 *
+	 * @since 2026/10/17
+	 */
+	public boolean isHitLimitReached() {
+		return isLimitReached;
 	}
 
 	/**
 	 * 条件を指定してGREP検索します。
+	 * フィルタはファイルとディレクトリの両方に適用されます。
+	 * シンボリックリンクは辿りますが、循環するリンクの先には入りません。
 	 *
 	 * @param dir     検索のルート
 	 * @param filter  フィルタ
@@ -45,68 +164,272 @@ public class Grep extends Task<File> {
 	 * @param pattern 正規表現パターン
 	 */
 	public void grep(File dir, FileFilter filter, Charset chset, Pattern pattern) {
-		var files = Find.listFiles(dir, filter);
-		int step = files.length, index = 0;
-		for (var file : files) {
-			if (isCancelled()) return;
-			progress(file, index++, step);
-			try {
-				grep(file, chset, pattern);
-			} catch (IOException ex) {
-				out.print(file.getAbsolutePath());
-				out.print(" :");
-				out.println(ex);
-				out.flush();
-			}
+		try (var walker = new FileWalker(dir.toPath()).setFollowLinks(true)) {
+			walker.setFileFilter((path, attrs) -> filter.accept(path.toFile()));
+			walker.setDirectoryFilter((path, attrs) -> filter.accept(path.toFile()));
+			grep(walker.spliterator(), chset, pattern);
 		}
 	}
 
+	/**
+	 * 列挙されたファイルをGREP検索します。
+	 * ファイルは列挙される度に照合を依頼されるため、列挙の完了を待たずに結果が出力されます。
+	 *
+	 * @param files   ファイルの列挙
+	 * @param chset   文字セット
+	 * @param pattern 正規表現パターン
+	 *
+	 * @since 2026/10/17
+	 */
+	public void grep(Spliterator<Path> files, Charset chset, Pattern pattern) {
+		final var pool = Executors.newFixedThreadPool(threads, task -> {
+			var thread = new Thread(task, Grep.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		collected.set(0);
+		isLimitReached = false;
+		try {
+			final var pipeline = new Pipeline(pool, chset, pattern, Prefilter.of(pattern, chset));
+			while (!isCancelled() && !isLimitReached && files.tryAdvance(pipeline::submit));
+			pipeline.drain(0);
+		} finally {
+			pool.shutdownNow();
+			if (out != null) out.flush();
+		}
+	}
+
+	/**
+	 * 1個のファイルから抽出された結果を受け取ります。
+	 * 検索を呼び出したスレッドで、ファイル単位で出力の順序に従って呼び出されます。
+	 * 既定では結果を1行ずつ出力先に書き込みます。
+	 *
+	 * @param hits 同じファイルの結果 1個以上
+	 *
+	 * @since 2026/10/17
+	 */
+	protected void found(List<GrepHit> hits) {
+		if (out != null) for (var hit : hits) out.println(hit);
+	}
+
+	/**
+	 * ファイルの読み込みや照合に失敗したことを受け取ります。
+	 * 既定ではファイルの絶対パスと例外を出力先に書き込みます。
+	 *
+	 * @param file ファイル
+	 * @param ex   発生した例外
+	 *
+	 * @since 2026/10/17
+	 */
+	protected void failed(Path file, Throwable ex) {
+		if (out != null) out.println(file.toAbsolutePath() + " :" + ex);
+	}
+
+	/**
+	 * 結果を1個集める枠を確保します。
+	 *
+	 * @return 上限に達していない場合true
+	 */
+	private boolean reserve() {
+		if (collected.getAndUpdate(n -> n < hitLimit ? n + 1 : n) < hitLimit) return true;
+		isLimitReached = true;
+		return false;
+	}
+
 	/**
 	 * 指定したファイル内をGREP検索します。
+	 * 内容がテキストでないファイルは検索しません。
 	 *
 	 * @param file    検索するファイル
 	 * @param chset   文字セット
 	 * @param pattern 正規表現パターン
+	 * @param filter  バイト列の検索による前処理 前処理しない場合はnull
 	 *
 	 * @return 抽出結果
-	 *
-	 * @throws IOException 入出力に異常があった場合
 	 */
-	private void grep(File file, Charset chset, Pattern pattern) throws IOException {
-		try (var stream = new FileInputStream(file); var channel = stream.getChannel()) {
-			var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
-			var decoder = chset.newDecoder();
-			grep(file, decoder.decode(buffer), pattern);
+	private Result grep(Path file, Charset chset, Pattern pattern, Prefilter filter) {
+		final var result = new Result(file.toAbsolutePath(), textLimit);
+		if (isCancelled() || isLimitReached) return result;
+		try {
+			if (!classifier.sniff(file)) return result;
+			try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				var decoder = chset.newDecoder();
+				if (filter != null) grep(buffer, decoder, pattern, filter, result);
+				else grep(decoder.decode(buffer), pattern, result);
+			}
+		} catch (IOException | RuntimeException | StackOverflowError ex) {
+			result.error = ex;
 		}
+		return result;
 	}
 
 	/**
 	 * 文字バッファから正規表現にマッチする部分を抽出します。
+	 * 各行は文字列を生成せず、照合する範囲を行に限定して照合されます。
 	 *
-	 * @param file    現在のファイル
 	 * @param buffer  文字バッファ
 	 * @param pattern 正規表現
+	 * @param result  抽出結果の出力先
 	 */
-	private void grep(File file, CharBuffer buffer, Pattern pattern) {
-		var lm = LINE_SEPARATOR.matcher(buffer);
-		Matcher pm = null;
+	private void grep(CharBuffer buffer, Pattern pattern, Result result) {
+		final var pm = pattern.matcher(buffer);
+		final var length = buffer.length();
 		var current = 0;
-		while (lm.find()) {
+		var start = 0;
+		while (start < length) {
+			var end = start;
+			while (end < length && buffer.get(end) != '\n' && buffer.get(end) != '\r') end++;
 			current++;
-			var line = lm.group();
+			pm.region(start, end);
+			if (pm.find()) {
+				if (!reserve()) return;
+				result.add(current, pm.start() - start, buffer.subSequence(start, end));
+			}
+			if (end + 1 < length && buffer.get(end) == '\r' && buffer.get(end + 1) == '\n') end++;
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * 符号化されたバイト列から必須の文字列を検索し、見つかった行のみを復号して正規表現で照合します。
+	 * 行番号は前に照合した行からの改行を数えて求めます。
+	 *
+	 * @param buffer  バイト列
+	 * @param decoder 復号器
+	 * @param pattern 正規表現
+	 * @param filter  必須の文字列の検索
+	 * @param result  抽出結果の出力先
+	 *
+	 * @throws CharacterCodingException 候補の行を復号できない場合
+	 */
+	private void grep(ByteBuffer buffer, CharsetDecoder decoder, Pattern pattern, Prefilter filter, Result result) throws CharacterCodingException {
+		final var limit = buffer.limit();
+		Matcher pm = null;
+		var current = 1;
+		var counted = 0;
+		var from = 0;
+		while (from < limit) {
+			final var hit = filter.indexOf(buffer, from, limit);
+			if (hit < 0) return;
+			var start = hit;
+			while (start > from && !isLineEnd(buffer.get(start - 1))) start--;
+			var end = hit;
+			while (end < limit && !isLineEnd(buffer.get(end))) end++;
+			for (var i = counted; i < start; i++) {
+				final var b = buffer.get(i);
+				if (b == '\n' || (b == '\r' && (i + 1 >= limit || buffer.get(i + 1) != '\n'))) current++;
+			}
+			counted = start;
+			final var line = decoder.decode(buffer.duplicate().position(start).limit(end));
 			if (pm == null) pm = pattern.matcher(line);
 			else pm.reset(line);
 			if (pm.find()) {
-				out.print(file.getAbsolutePath());
-				out.print("(");
-				out.print(current);
-				out.print(",");
-				out.print(pm.start());
-				out.print(") :");
-				out.println(line);
-				out.flush();
+				if (!reserve()) return;
+				result.add(current, pm.start(), line);
 			}
-			if (lm.end() == buffer.limit()) return;
+			from = end + 1;
+		}
+	}
+
+	private static boolean isLineEnd(byte b) {
+		return b == '\n' || b == '\r';
+	}
+
+	/**
+	 * ファイルとその抽出結果の組です。
+	 */
+	private static final class Result {
+		final Path file;
+		final List<GrepHit> hits;
+		final int textLimit;
+		Throwable error;
+
+		Result(Path file, int textLimit) {
+			this.file = file;
+			this.hits = new ArrayList<>();
+			this.textLimit = textLimit;
+		}
+
+		void add(int line, int column, CharSequence text) {
+			hits.add(new GrepHit(file, line, column, text, textLimit));
+		}
+	}
+
+	/**
+	 * 照合を作業用のスレッドに依頼し、完了した結果を出力します。
+	 */
+	private final class Pipeline {
+		private final ExecutorService pool;
+		private final CompletionService<Result> completion;
+		private final ArrayDeque<Future<Result>> pending;
+		private final Charset chset;
+		private final Pattern pattern;
+		private final Prefilter filter;
+		private int running, submitted, written;
+
+		Pipeline(ExecutorService pool, Charset chset, Pattern pattern, Prefilter filter) {
+			this.pool = pool;
+			this.completion = new ExecutorCompletionService<>(pool);
+			this.pending = new ArrayDeque<>();
+			this.chset = chset;
+			this.pattern = pattern;
+			this.filter = filter;
+		}
+
+		/**
+		 * ファイルの照合を依頼します。
+		 * 処理中のファイルが上限に達している場合は、結果を出力して空きができるまで待ちます。
+		 *
+		 * @param file ファイル
+		 */
+		void submit(Path file) {
+			final Callable<Result> task = () -> grep(file, chset, pattern, filter);
+			if (ordered) pending.add(pool.submit(task));
+			else completion.submit(task);
+			running++;
+			submitted++;
+			drain(threads * PENDING_PER_THREAD);
+		}
+
+		/**
+		 * 処理中のファイルが指定された数以下になるまで結果を出力します。
+		 * 待たずに出力できる結果は、処理中のファイルの数に関わらず出力します。
+		 *
+		 * @param limit 処理中のファイルの数の上限
+		 */
+		void drain(int limit) {
+			try {
+				while (running > 0 && !isCancelled()) {
+					final var wait = running > limit;
+					final Future<Result> future;
+					if (ordered) {
+						if (!wait && !pending.peek().isDone()) return;
+						future = pending.poll();
+					} else {
+						future = wait ? completion.take() : completion.poll();
+						if (future == null) return;
+					}
+					running--;
+					write(future.get());
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				cancel();
+			} catch (ExecutionException ex) {
+				throw new IllegalStateException(ex.getCause());
+			}
+		}
+
+		/**
+		 * ファイルの照合結果を出力して進捗を通知します。
+		 *
+		 * @param result 照合結果
+		 */
+		private void write(Result result) {
+			if (result.error != null) failed(result.file, result.error);
+			if (!result.hits.isEmpty()) found(result.hits);
+			progress(result.file.toFile(), written++, submitted);
 		}
 	}
 }
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.nio.file.Path;
+
+/**
+ * GREP検索で正規表現にマッチした1箇所を表す不変のオブジェクトです。
+ * <p>
+ * 行の内容は表示用の抜粋であり、長い行ではマッチした位置の周辺のみが保持されます。
+ * ただし出力先を持つ{@link Grep}の結果は、従来の出力形式を保つため行全体を保持します。
+ * 同じファイルの結果は同じパスのインスタンスを共有します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class GrepHit {
+	/**
+	 * 抜粋として保持する行の内容の最大の文字数です。
+	 */
+	static final int MAX_TEXT_LENGTH = 256;
+	/**
+	 * 長い行を抜粋する際に、マッチした位置より前に残す文字数です。
+	 */
+	private static final int TEXT_LEADING = 32;
+	private final Path file;
+	private final int line;
+	private final int column;
+	private final int textOffset;
+	private final String text;
+
+	/**
+	 * 結果を構築します。
+	 *
+	 * @param file   ファイル
+	 * @param line   1から始まる行番号
+	 * @param column 0から始まるマッチした位置の桁
+	 * @param source 行の内容
+	 * @param limit  抜粋として保持する最大の文字数
+	 */
+	GrepHit(Path file, int line, int column, CharSequence source, int limit) {
+		this.file = file;
+		this.line = line;
+		this.column = column;
+		if (source.length() <= limit) {
+			this.textOffset = 0;
+		} else {
+			final var from = Math.max(0, column - TEXT_LEADING);
+			this.textOffset = Math.min(from, source.length() - limit);
+		}
+		final var end = (int) Math.min(source.length(), (long) textOffset + limit);
+		this.text = source.subSequence(textOffset, end).toString();
+	}
+
+	/**
+	 * マッチしたファイルを返します。
+	 *
+	 * @return ファイルの絶対パス
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * マッチした行番号を返します。
+	 *
+	 * @return 1から始まる行番号
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	/**
+	 * 行内でマッチした位置を返します。
+	 *
+	 * @return 0から始まる桁
+	 */
+	public int getColumn() {
+		return column;
+	}
+
+	/**
+	 * 行の内容の抜粋を返します。
+	 *
+	 * @return 抜粋
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * 抜粋が行の途中から始まる場合、その行内の位置を返します。
+	 *
+	 * @return 0から始まる抜粋の先頭の桁
+	 */
+	public int getTextOffset() {
+		return textOffset;
+	}
+
+	/**
+	 * 従来のGREP検索の出力形式で結果を返します。
+	 *
+	 * @return パス(行,桁) :内容
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s(%d,%d) :%s", file, line, column, text);
+	}
+}
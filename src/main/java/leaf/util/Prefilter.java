@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * 正規表現が一致するために必ず含まれる文字列を、符号化されたバイト列のまま検索します。
+ * <p>
+ * 文字列はパターンの最上位の連接から、省略や繰り返しの対象でない通常の文字の並びのうち最長のものが選ばれます。
+ * 選択や先読み、埋め込みフラグを含むパターンからは文字列を抽出しません。
+ * 検索にはBoyer-Moore-Horspool法を用い、大文字と小文字を区別しない場合はASCII文字のみを畳み込みます。
+ * <p>
+ * 改行のバイトが多バイト文字の一部に現れず、文字列のバイト列が文字の途中から一致しない文字セットでのみ利用できます。
+ * UTF-8とASCII互換の1バイト文字セットでは任意の文字列を、EUC-JPとEUC-KRではASCII文字のみの文字列を検索できます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+final class Prefilter {
+	/**
+	 * 検索する価値のある文字列の最短の長さです。
+	 */
+	private static final int MIN_LENGTH = 2;
+	private final byte[] needle;
+	private final int[] shifts;
+	private final boolean ignoreCase;
+
+	private Prefilter(byte[] needle, boolean ignoreCase) {
+		this.needle = needle;
+		this.ignoreCase = ignoreCase;
+		this.shifts = new int[256];
+		Arrays.fill(shifts, needle.length);
+		for (var i = 0; i < needle.length - 1; i++) {
+			final var b = needle[i] & 0xFF;
+			shifts[b] = needle.length - 1 - i;
+			if (ignoreCase) shifts[swapCase(b)] = needle.length - 1 - i;
+		}
+	}
+
+	/**
+	 * パターンと文字セットに対する前処理を構築します。
+	 *
+	 * @param pattern パターン
+	 * @param chset   文字セット
+	 *
+	 * @return 前処理 必須の文字列を抽出できないか、文字セットが対応していない場合はnull
+	 */
+	static Prefilter of(Pattern pattern, Charset chset) {
+		final var flags = pattern.flags();
+		if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) return null;
+		final var ignoreCase = (flags & Pattern.CASE_INSENSITIVE) != 0;
+		final var unicodeCase = ignoreCase && (flags & Pattern.UNICODE_CASE) != 0;
+		final String literal;
+		if ((flags & Pattern.LITERAL) != 0) literal = longestRun(pattern.pattern(), ignoreCase, unicodeCase);
+		else literal = extract(pattern.pattern(), ignoreCase, unicodeCase);
+		if (literal == null || literal.length() < MIN_LENGTH) return null;
+		final var ascii = literal.chars().allMatch(c -> c < 0x80);
+		if (!isSupported(chset, ascii) || !chset.newEncoder().canEncode(literal)) return null;
+		var bytes = literal.getBytes(chset);
+		if (ignoreCase) for (var i = 0; i < bytes.length; i++) bytes[i] = (byte) toLowerCase(bytes[i] & 0xFF);
+		return new Prefilter(bytes, ignoreCase);
+	}
+
+	/**
+	 * バイト列の検索で文字の途中から一致することのない文字セットか判定します。
+	 */
+	private static boolean isSupported(Charset chset, boolean ascii) {
+		if (chset.equals(StandardCharsets.UTF_8)) return true;
+		if (!chset.canEncode()) return false;
+		final var probe = new StringBuilder(0x80);
+		for (var c = 0; c < 0x80; c++) probe.append((char) c);
+		final var encoded = probe.toString().getBytes(chset);
+		if (encoded.length != 0x80) return false;
+		for (var c = 0; c < 0x80; c++) if (encoded[c] != c) return false;
+		if (chset.newEncoder().maxBytesPerChar() == 1) return true;
+		final var name = chset.name();
+		return ascii && (name.equals("EUC-JP") || name.equals("EUC-KR"));
+	}
+
+	/**
+	 * 正規表現の最上位の連接から、必ず一致する通常の文字の並びのうち最長のものを抽出します。
+	 *
+	 * @return 文字列 選択などにより必須の文字列を決められない場合はnull
+	 */
+	private static String extract(String regex, boolean ignoreCase, boolean unicodeCase) {
+		final var run = new StringBuilder();
+		var best = "";
+		var depth = 0;
+		var lastIsChar = false;
+		for (var i = 0; i < regex.length(); i++) {
+			final var ch = regex.charAt(i);
+			var literal = -1;
+			switch (ch) {
+				case '|':
+					if (depth == 0) return null;
+					break;
+				case '(':
+					if (regex.startsWith("(?", i) && !regex.startsWith("(?:", i)) return null;
+					depth++;
+					break;
+				case ')':
+					depth--;
+					break;
+				case '[':
+					i = skipClass(regex, i);
+					break;
+				case '*':
+				case '?':
+				case '{':
+					if (lastIsChar && run.length() > 0) run.setLength(run.length() - 1);
+					if (ch == '{') i = Math.max(i, regex.indexOf('}', i));
+					break;
+				case '+':
+				case '.':
+				case '^':
+				case '$':
+					break;
+				case '\\':
+					if (++i >= regex.length()) return null;
+					final var next = regex.charAt(i);
+					if (next == 'Q') return null;
+					if (next < 0x80 && !Character.isLetterOrDigit(next)) literal = next;
+					else i = skipEscape(regex, i);
+					break;
+				default:
+					literal = ch;
+			}
+			if (depth == 0 && literal >= 0 && isFoldable(literal, ignoreCase, unicodeCase)) {
+				run.append((char) literal);
+				lastIsChar = true;
+			} else {
+				if (run.length() > best.length()) best = run.toString();
+				run.setLength(0);
+				lastIsChar = false;
+			}
+		}
+		return run.length() > best.length() ? run.toString() : best;
+	}
+
+	/**
+	 * 英数字によるエスケープが引数として取る文字を読み飛ばし、エスケープの最後の文字の位置を返します。
+	 * 16進数や8進数、制御文字、文字の種類、名前付きの参照などの引数が、通常の文字として扱われないようにします。
+	 *
+	 * @param regex 正規表現
+	 * @param i     エスケープの英数字の位置
+	 */
+	private static int skipEscape(String regex, int i) {
+		final var length = regex.length();
+		switch (regex.charAt(i)) {
+			case 'x':
+				if (i + 1 < length && regex.charAt(i + 1) == '{') return skipTo(regex, i + 1, '}');
+				return Math.min(length - 1, i + 2);
+			case 'u':
+				return Math.min(length - 1, i + 4);
+			case '0':
+				for (var n = 0; n < 3 && i + 1 < length && isOctal(regex.charAt(i + 1)); n++) i++;
+				return i;
+			case 'c':
+				return Math.min(length - 1, i + 1);
+			case 'p':
+			case 'P':
+			case 'N':
+				if (i + 1 < length && regex.charAt(i + 1) == '{') return skipTo(regex, i + 1, '}');
+				return Math.min(length - 1, i + 1);
+			case 'k':
+				return skipTo(regex, i, '>');
+			default:
+				while (Character.isDigit(regex.charAt(i)) && i + 1 < length && Character.isDigit(regex.charAt(i + 1))) i++;
+				return i;
+		}
+	}
+
+	/**
+	 * 指定された文字の位置を返します。見つからない場合は最後の位置を返します。
+	 */
+	private static int skipTo(String regex, int i, char end) {
+		final var index = regex.indexOf(end, i);
+		return index < 0 ? regex.length() - 1 : index;
+	}
+
+	private static boolean isOctal(char ch) {
+		return ch >= '0' && ch <= '7';
+	}
+
+	/**
+	 * 文字クラスの終わりの位置を返します。
+	 */
+	private static int skipClass(String regex, int i) {
+		var depth = 0;
+		for (; i < regex.length(); i++) {
+			final var ch = regex.charAt(i);
+			if (ch == '\\') i++;
+			else if (ch == '[') depth++;
+			else if (ch == ']' && --depth == 0) return i;
+		}
+		return i;
+	}
+
+	/**
+	 * リテラルとして扱われるパターンの、照合の条件を満たす最長の文字の並びを返します。
+	 */
+	private static String longestRun(String text, boolean ignoreCase, boolean unicodeCase) {
+		var best = 0;
+		var bestStart = 0;
+		var start = 0;
+		for (var i = 0; i <= text.length(); i++) {
+			if (i < text.length() && isFoldable(text.charAt(i), ignoreCase, unicodeCase)) continue;
+			if (i - start > best) {
+				best = i - start;
+				bestStart = start;
+			}
+			start = i + 1;
+		}
+		return text.substring(bestStart, bestStart + best);
+	}
+
+	/**
+	 * 文字をバイト列で検索できるか判定します。
+	 * 改行文字は行の外に出るため検索できません。
+	 * 大文字と小文字を区別しない場合はASCII文字に限られ、
+	 * Unicodeの大文字小文字の規則ではASCII以外の文字と同一視されるi、k、sも除外されます。
+	 */
+	private static boolean isFoldable(int ch, boolean ignoreCase, boolean unicodeCase) {
+		if (ch == '\n' || ch == '\r') return false;
+		if (!ignoreCase) return true;
+		if (ch >= 0x80) return false;
+		final var lower = Character.toLowerCase(ch);
+		return !unicodeCase || (lower != 'i' && lower != 'k' && lower != 's');
+	}
+
+	private static int toLowerCase(int b) {
+		return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+	}
+
+	private static int swapCase(int b) {
+		if (b >= 'A' && b <= 'Z') return b + ('a' - 'A');
+		if (b >= 'a' && b <= 'z') return b - ('a' - 'A');
+		return b;
+	}
+
+	/**
+	 * 検索する文字列の符号化されたバイト列を返します。
+	 * 大文字と小文字を区別しない場合、ASCII文字は小文字に畳み込まれています。
+	 *
+	 * @return バイト列 変更してはならない
+	 */
+	byte[] getBytes() {
+		return needle;
+	}
+
+	/**
+	 * 指定された範囲で文字列が最初に現れる位置を返します。
+	 *
+	 * @param buf  バイト列
+	 * @param from 検索を開始する位置
+	 * @param to   検索を終了する位置
+	 *
+	 * @return 位置 見つからない場合は-1
+	 */
+	int indexOf(ByteBuffer buf, int from, int to) {
+		final var last = needle.length - 1;
+		final var tail = needle[last] & 0xFF;
+		for (var i = from + last; i < to; ) {
+			final var b = buf.get(i) & 0xFF;
+			if ((ignoreCase ? toLowerCase(b) : b) == tail && matches(buf, i - last)) return i - last;
+			i += shifts[b];
+		}
+		return -1;
+	}
+
+	/**
+	 * 指定位置から文字列が一致するか判定します。
+	 */
+	private boolean matches(ByteBuffer buf, int pos) {
+		for (var j = needle.length - 2; j >= 0; j--) {
+			final var b = buf.get(pos + j) & 0xFF;
+			if ((ignoreCase ? toLowerCase(b) : b) != (needle[j] & 0xFF)) return false;
+		}
+		return true;
+	}
+}
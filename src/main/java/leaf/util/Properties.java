@@ -110,6 +110,18 @@ public final class Properties {
 		return instance;
 	}
 
+	/**
+	 * ハイバーネーションファイルを保存するディレクトリを返します。
+	 * ユーザー毎のデータを保存する場合は、このディレクトリにユーザー名を冠したファイルを作成します。
+	 *
+	 * @return ディレクトリ
+	 *
+	 * @since 2026/10/17
+	 */
+	public static File getDirectory() {
+		return dir;
+	}
+
 	/**
 	 * ハイバーネーションファイルにデータを保存します。
 	 */
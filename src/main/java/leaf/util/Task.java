@@ -12,7 +12,7 @@ package leaf.util;
  * @since 2011年9月3日
  */
 public class Task<V> {
-	private boolean isCanceled = false;
+	private volatile boolean isCanceled = false;
 
 	/**
 	 * タスクを生成します。
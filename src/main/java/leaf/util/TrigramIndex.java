@@ -0,0 +1,697 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiPredicate;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * ディレクトリ以下のファイルに含まれる3バイトの並びを記録して、GREP検索の対象を絞り込む索引です。
+ * <p>
+ * 索引はASCII文字を小文字に畳み込んだバイト列の3バイトの並び毎に、それを含むファイルの番号を差分の可変長整数で記録し、
+ * 1個のファイルにまとめてメモリにマップして参照します。
+ * 検索の際は正規表現が必ず含む文字列を符号化して3バイトずつ索引を引き、全てを含むファイルのみを候補とします。
+ * <p>
+ * 更新はファイルの更新日時と大きさを比較して、変化したファイルのみを読み直します。
+ * 索引にないファイルや、索引の作成後に変更されたファイルは常に候補とするため、
+ * 索引が古くても検索の結果が欠けることはありません。
+ * 正規表現から文字列を抽出できない場合や、文字セットがバイト列での検索に対応していない場合は絞り込みません。
+ * <p>
+ * 索引のファイルは先頭から、ヘッダ、転置リスト、ファイルの表、ファイル名、3バイトの並びの表の順に並びます。
+ * 更新中に読み込んだ内容が一定量を超えると、それまでの内容を既存の索引と併合して書き出すため、
+ * 索引の作成に必要なメモリは対象のファイルの量に比例しません。
+ * <p>
+ * 索引は書き出す度に世代の番号を増やした別のファイルに作成され、古い世代のファイルはその後で削除されます。
+ * メモリにマップされたファイルを置き換えることはないため、マップ中のファイルを置換できない環境でも更新できます。
+ * 削除できなかった古い世代は、次の更新で再び削除を試みます。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public final class TrigramIndex {
+	private static final int MAGIC = 0x4C545249;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 28;
+	private static final int FILE_ENTRY_SIZE = 24;
+	private static final int KEY_ENTRY_SIZE = 12;
+	/**
+	 * 索引に内容を記録するファイルの大きさの上限です。これより大きいファイルは常に候補とします。
+	 */
+	private static final long MAX_FILE_SIZE = 1L << 26;
+	/**
+	 * 索引に併合するまでに蓄える、3バイトの並びとファイルの組の数です。
+	 */
+	private static final int BATCH_SIZE = 1 << 22;
+	/**
+	 * ファイルの内容が索引に記録されていることを示すフラグです。
+	 */
+	private static final int INDEXED = 1;
+	private static final FileClassifier<Boolean> classifier = new FileClassifier<>(true, false, false);
+	private static final Map<Path, TrigramIndex> instances = new HashMap<>();
+	private final Path root;
+	private final Path file;
+	private volatile Snapshot snapshot;
+	/**
+	 * 併合するまでに蓄える組の数です。検査のために変更できます。
+	 */
+	int batchSize = BATCH_SIZE;
+
+	/**
+	 * 起点のディレクトリと索引のファイルの名前を指定して構築します。
+	 *
+	 * @param root 起点のディレクトリ
+	 * @param file 世代の番号を付ける前の索引のファイル
+	 */
+	public TrigramIndex(Path root, Path file) {
+		this.root = root.toAbsolutePath().normalize();
+		this.file = file.toAbsolutePath();
+	}
+
+	/**
+	 * 指定されたディレクトリの索引を、ユーザーのデータの保存場所に作成して返します。
+	 * 同じディレクトリに対しては同じオブジェクトを返します。
+	 *
+	 * @param root 起点のディレクトリ
+	 *
+	 * @return 索引
+	 */
+	public static TrigramIndex forDirectory(Path root) {
+		final var key = root.toAbsolutePath().normalize();
+		synchronized (instances) {
+			var instance = instances.get(key);
+			if (instance != null) return instance;
+			final var dir = Paths.get(Properties.getDirectory().getPath(), System.getProperty("user.name") + ".index");
+			final var name = UUID.nameUUIDFromBytes(key.toString().getBytes(StandardCharsets.UTF_8)) + ".tri";
+			instances.put(key, instance = new TrigramIndex(key, dir.resolve(name)));
+			return instance;
+		}
+	}
+
+	/**
+	 * 起点のディレクトリを返します。
+	 *
+	 * @return 正規化された絶対パス
+	 */
+	public Path getRoot() {
+		return root;
+	}
+
+	/**
+	 * 世代の番号を付ける前の索引のファイルを返します。
+	 * 索引は、この名前に'.'と世代の番号を付けたファイルに書き出されます。
+	 *
+	 * @return 絶対パス
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * 索引に記録されているファイルの数を返します。
+	 *
+	 * @return ファイルの数
+	 */
+	public int getFileCount() {
+		return snapshot().fileCount;
+	}
+
+	/**
+	 * 最新の世代の索引を読み込みます。読み込めない場合は空の索引とします。
+	 */
+	private Snapshot snapshot() {
+		var current = snapshot;
+		if (current == null) snapshot = current = Snapshot.load(generation(latestGeneration()));
+		return current;
+	}
+
+	/**
+	 * 指定された世代の索引のファイルを返します。
+	 */
+	private Path generation(long generation) {
+		return file.resolveSibling(file.getFileName() + "." + generation);
+	}
+
+	/**
+	 * 索引のファイルの名前から世代の番号を読み取ります。
+	 *
+	 * @return 世代 索引のファイルでない場合は-1
+	 */
+	private long generationOf(Path path) {
+		final var name = path.getFileName().toString();
+		final var prefix = file.getFileName() + ".";
+		if (!name.startsWith(prefix)) return -1;
+		try {
+			return Long.parseLong(name.substring(prefix.length()));
+		} catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * 書き出された索引の最新の世代を返します。
+	 *
+	 * @return 世代 索引がない場合は0
+	 */
+	private long latestGeneration() {
+		var latest = 0L;
+		try (var stream = Files.newDirectoryStream(file.getParent(), file.getFileName() + ".*")) {
+			for (var path : stream) latest = Math.max(latest, generationOf(path));
+		} catch (IOException ex) {
+		}
+		return latest;
+	}
+
+	/**
+	 * 指定された世代より古い索引のファイルを削除します。削除できないファイルは残します。
+	 */
+	private void purge(long current) {
+		try (var stream = Files.newDirectoryStream(file.getParent(), file.getFileName() + ".*")) {
+			for (var path : stream) {
+				final var generation = generationOf(path);
+				if (generation < 0 || generation >= current) continue;
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException ex) {
+				}
+			}
+		} catch (IOException ex) {
+		}
+	}
+
+	/**
+	 * 起点のディレクトリ以下の全てのファイルを走査して、
+	 * 追加または変更されたファイルを索引に記録し、削除されたファイルを索引から除きます。
+	 *
+	 * @throws IOException 索引を書き出せない場合
+	 */
+	public void update() throws IOException {
+		update(new Task<>());
+	}
+
+	/**
+	 * 起点のディレクトリ以下の全てのファイルを走査して、
+	 * 追加または変更されたファイルを索引に記録し、削除されたファイルを索引から除きます。
+	 *
+	 * @param task 進捗の通知先と中断の要求元
+	 *
+	 * @throws IOException 索引を書き出せない場合
+	 */
+	public void update(Task<Path> task) throws IOException {
+		update(new FileWalker(root), task);
+	}
+
+	/**
+	 * 走査器が列挙するファイルを対象として、
+	 * 追加または変更されたファイルを索引に記録し、列挙されなかったファイルを索引から除きます。
+	 * 除外の規則やディレクトリのフィルタは走査器のものが適用され、索引の保存場所には入りません。
+	 * 読み直すファイル毎に進捗を通知し、中断を要求された場合は、それまでに読み込んだ内容を書き出して終了します。
+	 * 読み込めなかったファイルは次の更新で読み直されます。走査が終わると走査器は閉じられます。
+	 *
+	 * @param walker 索引の起点と同じディレクトリを起点とする、まだ列挙していない走査器
+	 * @param task   進捗の通知先と中断の要求元
+	 *
+	 * @throws IOException 索引を書き出せない場合
+	 *
+	 * @throws IllegalArgumentException 走査器の起点が索引の起点と異なる場合
+	 */
+	public synchronized void update(FileWalker walker, Task<Path> task) throws IOException {
+		if (!walker.getRoot().equals(root)) throw new IllegalArgumentException("root mismatch: " + walker.getRoot());
+		final var old = snapshot();
+		final var files = new ArrayList<Entry>();
+		final var exclude = file.getParent();
+		try (walker) {
+			walker.setDirectoryFilter(walker.getDirectoryFilter().and((path, attrs) -> !path.equals(exclude)));
+			walker.setFileFilter(walker.getFileFilter().and((path, attrs) -> {
+				final var entry = new Entry(path, toName(path));
+				entry.mtime = attrs.lastModifiedTime().toMillis();
+				entry.size = attrs.size();
+				return files.add(entry);
+			}));
+			final var spliterator = walker.spliterator();
+			while (spliterator.tryAdvance(path -> {})) if (task.isCancelled()) return;
+		}
+		final var ids = old.ids();
+		final var keep = new boolean[old.fileCount];
+		final var changed = new ArrayList<Entry>();
+		for (var entry : files) {
+			final var id = ids.get(entry.name);
+			if (id != null && old.mtime(id) == entry.mtime && old.size(id) == entry.size) {
+				keep[id] = (old.flags(id) & INDEXED) != 0 || entry.size > MAX_FILE_SIZE;
+			}
+			if (id == null || !keep[id]) changed.add(entry);
+		}
+		final var remap = new int[old.fileCount];
+		final var entries = new ArrayList<Entry>(files.size());
+		for (var id = 0; id < old.fileCount; id++) {
+			remap[id] = keep[id] ? entries.size() : -1;
+			if (keep[id]) entries.add(Entry.of(old, id));
+		}
+		if (changed.isEmpty() && entries.size() == old.fileCount) return;
+		final var first = entries.size();
+		entries.addAll(changed);
+		new Builder(old, remap, entries, first).build(task);
+	}
+
+	/**
+	 * 正規表現にマッチする可能性のあるファイルを選ぶフィルタを返します。
+	 * 索引にないファイルや、索引の作成後に更新日時か大きさが変化したファイルは常に選ばれます。
+	 *
+	 * @param pattern 正規表現パターン
+	 * @param chset   ファイルの文字セット
+	 *
+	 * @return ファイルと属性を受け取るフィルタ
+	 */
+	public BiPredicate<Path, BasicFileAttributes> filter(Pattern pattern, Charset chset) {
+		final var prefilter = Prefilter.of(pattern, chset);
+		if (prefilter == null) return (path, attrs) -> true;
+		final var needle = prefilter.getBytes();
+		if (needle.length < 3) return (path, attrs) -> true;
+		final var data = snapshot();
+		final var candidates = data.query(needle);
+		final var ids = data.ids();
+		return (path, attrs) -> {
+			final var id = ids.get(toName(path));
+			if (id == null || (data.flags(id) & INDEXED) == 0) return true;
+			if (data.mtime(id) != attrs.lastModifiedTime().toMillis() || data.size(id) != attrs.size()) return true;
+			return candidates.get(id);
+		};
+	}
+
+	/**
+	 * 起点からの相対パスを区切り文字を'/'として返します。
+	 */
+	private String toName(Path path) {
+		return root.relativize(path.toAbsolutePath()).toString().replace(path.getFileSystem().getSeparator(), "/");
+	}
+
+	/**
+	 * 3バイトの並びを表す整数を返します。ASCII文字は小文字に畳み込みます。
+	 */
+	private static int trigram(int b0, int b1, int b2) {
+		return fold(b0) << 16 | fold(b1) << 8 | fold(b2);
+	}
+
+	private static int fold(int b) {
+		return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+	}
+
+	/**
+	 * 索引に記録されるファイルです。
+	 */
+	private static final class Entry {
+		final Path path;
+		final String name;
+		long mtime;
+		long size;
+		int flags;
+
+		Entry(Path path, String name) {
+			this.path = path;
+			this.name = name;
+		}
+
+		/**
+		 * 既存の索引から変化していないファイルを複製します。
+		 */
+		static Entry of(Snapshot old, int id) {
+			final var entry = new Entry(null, old.name(id));
+			entry.mtime = old.mtime(id);
+			entry.size = old.size(id);
+			entry.flags = old.flags(id);
+			return entry;
+		}
+	}
+
+	/**
+	 * メモリにマップされた索引のファイルです。
+	 */
+	private static final class Snapshot {
+		static final Snapshot EMPTY = new Snapshot(null);
+		final ByteBuffer buf;
+		final int fileCount;
+		final int keyCount;
+		final int filesOffset;
+		final int namesOffset;
+		final int keysOffset;
+		private Map<String, Integer> ids;
+
+		private Snapshot(ByteBuffer buf) {
+			this.buf = buf;
+			if (buf == null) {
+				fileCount = keyCount = filesOffset = namesOffset = keysOffset = 0;
+			} else {
+				fileCount = buf.getInt(8);
+				keyCount = buf.getInt(12);
+				filesOffset = buf.getInt(16);
+				namesOffset = buf.getInt(20);
+				keysOffset = buf.getInt(24);
+			}
+		}
+
+		/**
+		 * 索引のファイルをマップします。存在しないか形式が異なる場合は空の索引を返します。
+		 */
+		static Snapshot load(Path file) {
+			try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				final var size = channel.size();
+				if (size < HEADER_SIZE || size > Integer.MAX_VALUE) return EMPTY;
+				final var buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) return EMPTY;
+				final var data = new Snapshot(buf);
+				if (data.keysOffset + (long) data.keyCount * KEY_ENTRY_SIZE != size) return EMPTY;
+				return data;
+			} catch (NoSuchFileException ex) {
+				return EMPTY;
+			} catch (IOException | RuntimeException ex) {
+				ex.printStackTrace();
+				return EMPTY;
+			}
+		}
+
+		long mtime(int id) {
+			return buf.getLong(filesOffset + id * FILE_ENTRY_SIZE);
+		}
+
+		long size(int id) {
+			return buf.getLong(filesOffset + id * FILE_ENTRY_SIZE + 8);
+		}
+
+		int flags(int id) {
+			return buf.getInt(filesOffset + id * FILE_ENTRY_SIZE + 20);
+		}
+
+		String name(int id) {
+			final var start = buf.getInt(filesOffset + id * FILE_ENTRY_SIZE + 16);
+			final var end = id + 1 < fileCount ? buf.getInt(filesOffset + (id + 1) * FILE_ENTRY_SIZE + 16) : keysOffset - namesOffset;
+			final var bytes = new byte[end - start];
+			buf.duplicate().position(namesOffset + start).get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		int key(int index) {
+			return buf.getInt(keysOffset + index * KEY_ENTRY_SIZE);
+		}
+
+		int count(int index) {
+			return buf.getInt(keysOffset + index * KEY_ENTRY_SIZE + 8);
+		}
+
+		/**
+		 * ファイル名から番号を引く表を返します。
+		 */
+		synchronized Map<String, Integer> ids() {
+			if (ids == null) {
+				ids = new HashMap<>(fileCount * 2);
+				for (var id = 0; id < fileCount; id++) ids.put(name(id), id);
+			}
+			return ids;
+		}
+
+		/**
+		 * 3バイトの並びの表を二分探索します。
+		 *
+		 * @return 表の位置 見つからない場合は-1
+		 */
+		int find(int key) {
+			var low = 0;
+			var high = keyCount - 1;
+			while (low <= high) {
+				final var mid = (low + high) >>> 1;
+				final var k = key(mid);
+				if (k < key) low = mid + 1;
+				else if (k > key) high = mid - 1;
+				else return mid;
+			}
+			return -1;
+		}
+
+		/**
+		 * 3バイトの並びを含むファイルの番号を昇順に列挙します。
+		 */
+		void postings(int index, IntConsumer action) {
+			var pos = buf.getInt(keysOffset + index * KEY_ENTRY_SIZE + 4);
+			final var count = count(index);
+			var id = -1;
+			for (var i = 0; i < count; i++) {
+				var delta = 0;
+				for (var shift = 0; ; shift += 7) {
+					final var b = buf.get(pos++);
+					delta |= (b & 0x7F) << shift;
+					if (b >= 0) break;
+				}
+				action.accept(id += delta + 1);
+			}
+		}
+
+		/**
+		 * 文字列の全ての3バイトの並びを含むファイルの集合を返します。
+		 * 転置リストの短い並びから順に積集合を求めます。
+		 */
+		BitSet query(byte[] needle) {
+			final var indices = new ArrayList<Integer>();
+			for (var i = 0; i + 2 < needle.length; i++) {
+				final var index = find(trigram(needle[i] & 0xFF, needle[i + 1] & 0xFF, needle[i + 2] & 0xFF));
+				if (index < 0) return new BitSet();
+				if (!indices.contains(index)) indices.add(index);
+			}
+			indices.sort((a, b) -> Integer.compare(count(a), count(b)));
+			BitSet result = null;
+			for (var index : indices) {
+				final var bits = new BitSet(fileCount);
+				postings(index, bits::set);
+				if (result == null) result = bits;
+				else result.and(bits);
+				if (result.isEmpty()) break;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * 変化したファイルを読み込み、一定量毎に既存の索引と併合して書き出します。
+	 */
+	private final class Builder {
+		private final List<Entry> entries;
+		private final long[] bitmap = new long[1 << 18];
+		private int[] marked = new int[4096];
+		private Snapshot old;
+		private int[] remap;
+		private long[] pending = new long[1024];
+		private int count;
+		private final int first;
+
+		Builder(Snapshot old, int[] remap, List<Entry> entries, int first) {
+			this.old = old;
+			this.remap = remap;
+			this.entries = entries;
+			this.first = first;
+		}
+
+		/**
+		 * 変化したファイルを順に読み込んで索引を書き出します。
+		 */
+		void build(Task<Path> task) throws IOException {
+			final var total = entries.size() - first;
+			for (var id = first; id < entries.size(); id++) {
+				if (task.isCancelled()) break;
+				final var entry = entries.get(id);
+				task.progress(entry.path, id - first, total);
+				read(entry, id);
+				if (count >= batchSize) flush();
+			}
+			flush();
+		}
+
+		/**
+		 * ファイルの内容を読み込んで、重複のない3バイトの並びを蓄えます。
+		 * 読み込めないファイルと大き過ぎるファイルは記録せず、テキストでないファイルは内容が空であるものとして記録します。
+		 */
+		private void read(Entry entry, int id) {
+			entry.flags = 0;
+			if (entry.size > MAX_FILE_SIZE) return;
+			try {
+				if (!classifier.sniff(entry.path)) {
+					entry.flags = INDEXED;
+					return;
+				}
+				try (var channel = FileChannel.open(entry.path, StandardOpenOption.READ)) {
+					final var buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), MAX_FILE_SIZE));
+					var marks = 0;
+					final var limit = buf.limit();
+					for (var i = 0; i + 2 < limit; i++) {
+						final var key = trigram(buf.get(i) & 0xFF, buf.get(i + 1) & 0xFF, buf.get(i + 2) & 0xFF);
+						if ((bitmap[key >>> 6] & 1L << key) != 0) continue;
+						bitmap[key >>> 6] |= 1L << key;
+						if (marks == marked.length) marked = Arrays.copyOf(marked, marks * 2);
+						marked[marks++] = key;
+					}
+					if (count + marks > pending.length) {
+						pending = Arrays.copyOf(pending, Math.max(pending.length * 2, count + marks));
+					}
+					for (var i = 0; i < marks; i++) {
+						final var key = marked[i];
+						bitmap[key >>> 6] = 0;
+						pending[count++] = (long) key << 32 | id;
+					}
+				}
+				entry.flags = INDEXED;
+			} catch (IOException | RuntimeException ex) {
+				entry.flags = 0;
+			}
+		}
+
+		/**
+		 * 蓄えた内容を既存の索引と併合して次の世代に書き出し、書き出した索引を次の併合の基にします。
+		 * まだ読み込んでいないファイルは記録されていないものとして書き出されます。
+		 */
+		private void flush() throws IOException {
+			Arrays.sort(pending, 0, count);
+			Files.createDirectories(file.getParent());
+			final var next = latestGeneration() + 1;
+			final var target = generation(next);
+			final var atomic = new AtomicFile(target);
+			try {
+				write(atomic.open());
+			} catch (UncheckedIOException ex) {
+				atomic.abort();
+				throw ex.getCause();
+			} catch (IOException | RuntimeException ex) {
+				atomic.abort();
+				throw ex;
+			}
+			atomic.commit();
+			snapshot = old = Snapshot.load(target);
+			purge(next);
+			remap = new int[entries.size()];
+			for (var id = 0; id < remap.length; id++) remap[id] = id;
+			pending = new long[1024];
+			count = 0;
+		}
+
+		/**
+		 * 既存の転置リストの番号を付け替えながら、蓄えた組を並びの順に併合して書き込みます。
+		 */
+		private void write(FileChannel channel) throws IOException {
+			final var out = new Output(channel);
+			out.stream.write(new byte[HEADER_SIZE]);
+			var keys = new int[1024];
+			var nkeys = 0;
+			var i = 0;
+			var j = 0;
+			while (i < old.keyCount || j < count) {
+				final var oldKey = i < old.keyCount ? old.key(i) : Integer.MAX_VALUE;
+				final var newKey = j < count ? (int) (pending[j] >>> 32) : Integer.MAX_VALUE;
+				final var key = Math.min(oldKey, newKey);
+				final var start = out.offset;
+				out.begin();
+				if (oldKey == key) {
+					final var map = remap;
+					old.postings(i++, id -> {
+						if (id < map.length && map[id] >= 0) out.posting(map[id]);
+					});
+				}
+				for (; j < count && (int) (pending[j] >>> 32) == key; j++) out.posting((int) pending[j]);
+				if (out.postings == 0) continue;
+				if (nkeys * 3 + 3 > keys.length) keys = Arrays.copyOf(keys, keys.length * 2);
+				keys[nkeys * 3] = key;
+				keys[nkeys * 3 + 1] = out.checked(start);
+				keys[nkeys * 3 + 2] = out.postings;
+				nkeys++;
+			}
+			final var filesOffset = out.checked(out.offset);
+			final var names = new ArrayList<byte[]>(entries.size());
+			var nameOffset = 0;
+			for (var entry : entries) {
+				final var bytes = entry.name.getBytes(StandardCharsets.UTF_8);
+				names.add(bytes);
+				out.stream.writeLong(entry.mtime);
+				out.stream.writeLong(entry.size);
+				out.stream.writeInt(nameOffset);
+				out.stream.writeInt(entry.flags);
+				nameOffset += bytes.length;
+			}
+			out.offset += (long) entries.size() * FILE_ENTRY_SIZE;
+			final var namesOffset = out.checked(out.offset);
+			for (var bytes : names) out.stream.write(bytes);
+			out.offset += nameOffset;
+			final var keysOffset = out.checked(out.offset);
+			for (var k = 0; k < nkeys * 3; k++) out.stream.writeInt(keys[k]);
+			out.checked(out.offset + (long) nkeys * KEY_ENTRY_SIZE);
+			out.stream.flush();
+			final var header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(entries.size()).putInt(nkeys);
+			header.putInt(filesOffset).putInt(namesOffset).putInt(keysOffset).flip();
+			channel.write(header, 0);
+		}
+	}
+
+	/**
+	 * 書き込んだバイト数を数えながら、転置リストを差分の可変長整数で書き込みます。
+	 */
+	private static final class Output {
+		final DataOutputStream stream;
+		long offset = HEADER_SIZE;
+		int postings;
+		private int last;
+
+		Output(FileChannel channel) {
+			this.stream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+		}
+
+		void begin() {
+			postings = 0;
+			last = -1;
+		}
+
+		void posting(int id) {
+			var delta = id - last - 1;
+			last = id;
+			postings++;
+			try {
+				while ((delta & ~0x7F) != 0) {
+					stream.write(delta & 0x7F | 0x80);
+					delta >>>= 7;
+					offset++;
+				}
+				stream.write(delta);
+				offset++;
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		/**
+		 * 位置が索引の形式で表せる範囲にあるか検査します。
+		 */
+		int checked(long position) throws IOException {
+			if (position > Integer.MAX_VALUE) throw new IOException("index too large");
+			return (int) position;
+		}
+	}
+}
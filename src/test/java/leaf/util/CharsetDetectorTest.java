@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CharsetDetector}による文字セットの推定を検査します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class CharsetDetectorTest {
+	private static final Charset FALLBACK = StandardCharsets.ISO_8859_1;
+	private static final String JAPANESE = "吾輩は猫である。名前はまだ無い。どこで生れたかとんと見当がつかぬ。";
+	private final CharsetDetector detector = new CharsetDetector(FALLBACK);
+
+	private Charset detect(byte[] bytes) {
+		return detector.detect(ByteBuffer.wrap(bytes));
+	}
+
+	private Charset detect(String text, String charset) {
+		return detect(text.getBytes(Charset.forName(charset)));
+	}
+
+	private static byte[] bytes(int... values) {
+		final var bytes = new byte[values.length];
+		for (var i = 0; i < values.length; i++) bytes[i] = (byte) values[i];
+		return bytes;
+	}
+
+	@Test
+	public void detectsJapaneseEncodings() {
+		assertEquals(StandardCharsets.UTF_8, detect(JAPANESE, "UTF-8"));
+		assertEquals(Charset.forName("Windows-31J"), detect(JAPANESE, "Windows-31J"));
+		assertEquals(Charset.forName("EUC-JP"), detect(JAPANESE, "EUC-JP"));
+		assertEquals(Charset.forName("ISO-2022-JP"), detect(JAPANESE, "ISO-2022-JP"));
+	}
+
+	@Test
+	public void detectsByteOrderMarksAndUtf16() {
+		assertEquals(StandardCharsets.UTF_8, detect(bytes(0xEF, 0xBB, 0xBF, 'a')));
+		assertEquals(StandardCharsets.UTF_16, detect(bytes(0xFE, 0xFF, 0, 'a')));
+		assertEquals(StandardCharsets.UTF_16LE, detect("plain text", "UTF-16LE"));
+		assertEquals(StandardCharsets.UTF_16BE, detect("plain text", "UTF-16BE"));
+	}
+
+	@Test
+	public void asciiFallsBack() {
+		assertEquals(FALLBACK, detect("plain text", "US-ASCII"));
+	}
+
+	@Test
+	public void acceptsBoundaryCodePoints() {
+		assertEquals(StandardCharsets.UTF_8, detect("ࠀ퟿￿𐀀􏿿", "UTF-8"));
+	}
+
+	@Test
+	public void rejectsOverlongForms() {
+		assertNotEquals(StandardCharsets.UTF_8, detect(bytes('a', 0xE0, 0x80, 0x80, 'b')));
+		assertNotEquals(StandardCharsets.UTF_8, detect(bytes('a', 0xE0, 0x9F, 0xBF, 'b')));
+		assertNotEquals(StandardCharsets.UTF_8, detect(bytes('a', 0xF0, 0x8F, 0xBF, 0xBF, 'b')));
+		assertNotEquals(StandardCharsets.UTF_8, detect(bytes('a', 0xC1, 0xBF, 'b')));
+	}
+
+	@Test
+	public void rejectsSurrogatesAndOutOfRange() {
+		assertNotEquals(StandardCharsets.UTF_8, detect(bytes('a', 0xED, 0xA0, 0x80, 'b')));
+		assertNotEquals(StandardCharsets.UTF_8, detect(bytes('a', 0xF4, 0x90, 0x80, 0x80, 'b')));
+		assertNotEquals(StandardCharsets.UTF_8, detect(bytes('a', 0xF5, 0x80, 0x80, 0x80, 'b')));
+	}
+
+	@Test
+	public void decidesWithinFirstHundredsOfBytes() {
+		final var text = JAPANESE.repeat(100).getBytes(StandardCharsets.UTF_8);
+		text[600] = (byte) 0xFF;
+		assertEquals(StandardCharsets.UTF_8, detect(text));
+	}
+}
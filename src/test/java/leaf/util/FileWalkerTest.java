@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * {@link FileWalker}による列挙と.gitignoreの規則の解釈を検査します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class FileWalkerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path root() {
+		return folder.getRoot().toPath();
+	}
+
+	private void touch(String... names) throws IOException {
+		for (var name : names) {
+			final var path = root().resolve(name);
+			Files.createDirectories(path.getParent());
+			Files.write(path, new byte[0]);
+		}
+	}
+
+	private void write(String name, String... lines) throws IOException {
+		final var path = root().resolve(name);
+		Files.createDirectories(path.getParent());
+		Files.write(path, List.of(lines), StandardCharsets.UTF_8);
+	}
+
+	private static Set<String> walk(FileWalker walker) {
+		final var root = walker.getRoot();
+		try (var stream = walker.stream()) {
+			return stream
+				.map(path -> root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/"))
+				.collect(Collectors.toCollection(TreeSet::new));
+		}
+	}
+
+	private Set<String> walk(String... excludes) {
+		final var walker = new FileWalker(root());
+		for (var exclude : excludes) walker.addExclude(exclude);
+		return walk(walker);
+	}
+
+	private static Set<String> set(String... names) {
+		return new TreeSet<>(List.of(names));
+	}
+
+	@Test
+	public void walksAllRegularFiles() throws IOException {
+		touch("a.txt", "d/b.txt", "d/e/c.txt");
+		Files.createDirectories(root().resolve("empty"));
+		assertEquals(set("a.txt", "d/b.txt", "d/e/c.txt"), walk());
+	}
+
+	@Test
+	public void directoryFilterPrunesSubtree() throws IOException {
+		touch("a.txt", "d/b.txt", "d/e/c.txt");
+		final var walker = new FileWalker(root());
+		walker.setDirectoryFilter((path, attrs) -> !path.getFileName().toString().equals("e"));
+		assertEquals(set("a.txt", "d/b.txt"), walk(walker));
+	}
+
+	@Test
+	public void unanchoredRuleMatchesAtAnyDepth() throws IOException {
+		touch("x.log", "d/x.log", "d/e/x.log", "d/keep.txt");
+		assertEquals(set("d/keep.txt"), walk("*.log"));
+		assertEquals(set("d/e/x.log", "d/keep.txt", "d/x.log"), walk("/x.log"));
+	}
+
+	@Test
+	public void ruleWithSlashIsAnchored() throws IOException {
+		touch("d/e/a.txt", "f/d/e/a.txt");
+		assertEquals(set("f/d/e/a.txt"), walk("d/e"));
+		assertEquals(set("f/d/e/a.txt"), walk("d/e/a.txt"));
+	}
+
+	@Test
+	public void negationReincludesLaterMatches() throws IOException {
+		touch("a.log", "important.log", "d/important.log");
+		assertEquals(set("d/important.log", "important.log"), walk("*.log", "!important.log"));
+		assertEquals(set(), walk("!important.log", "*.log"));
+	}
+
+	@Test
+	public void negationCannotReenterExcludedDirectory() throws IOException {
+		touch("build/keep.txt", "src/a.java");
+		assertEquals(set("src/a.java"), walk("build/", "!build/keep.txt"));
+	}
+
+	@Test
+	public void directoryOnlyRuleIgnoresFiles() throws IOException {
+		touch("out", "d/out/a.class", "d/b.txt");
+		assertEquals(set("d/b.txt", "out"), walk("out/"));
+	}
+
+	@Test
+	public void doubleStarMatchesAnyDepth() throws IOException {
+		touch("lib/a.jar", "x/lib/b.jar", "x/y/lib/c.jar", "x/y/lib.txt");
+		assertEquals(set("x/y/lib.txt"), walk("**/lib"));
+		touch("x/y/z/d.txt");
+		assertEquals(set("lib/a.jar"), walk("x/**"));
+		assertEquals(set("lib/a.jar", "x/lib/b.jar", "x/y/lib.txt"), walk("x/**/z", "x/**/c.jar"));
+	}
+
+	@Test
+	public void charactersAndClasses() throws IOException {
+		touch("a1.txt", "a2.txt", "ab.txt", "a*.txt");
+		assertEquals(set("a*.txt", "ab.txt"), walk("a[0-9].txt"));
+		assertEquals(set("a1.txt", "a2.txt"), walk("a[!0-9].txt"));
+		assertEquals(set("a1.txt", "a2.txt", "ab.txt"), walk("a\\*.txt"));
+		assertEquals(set("a*.txt"), walk("a?.txt", "!a\\*.txt"));
+	}
+
+	@Test
+	public void commentsAndBlankLinesAreIgnored() throws IOException {
+		touch("#a", "b");
+		assertEquals(set("#a", "b"), walk("# b", "", "   "));
+		assertEquals(set("b"), walk("\\#a"));
+	}
+
+	@Test
+	public void ignoreFileAppliesBelowItsDirectory() throws IOException {
+		touch("a.tmp", "d/a.tmp", "d/e/a.tmp", "d/e/b.txt", "f/a.tmp");
+		write("d/.gitignore", "*.tmp", "/e/b.txt");
+		final var walker = new FileWalker(root()).setIgnoreFileName(".gitignore");
+		walker.setFileFilter((path, attrs) -> !path.getFileName().toString().equals(".gitignore"));
+		assertEquals(set("a.tmp", "f/a.tmp"), walk(walker));
+	}
+
+	@Test
+	public void nestedIgnoreFileOverridesParent() throws IOException {
+		touch("a.tmp", "d/a.tmp", "d/b.tmp");
+		write(".gitignore", "*.tmp");
+		write("d/.gitignore", "!a.tmp");
+		final var walker = new FileWalker(root()).setIgnoreFileName(".gitignore");
+		walker.setFileFilter((path, attrs) -> !path.getFileName().toString().equals(".gitignore"));
+		assertEquals(set("d/a.tmp"), walk(walker));
+	}
+
+	@Test
+	public void symbolicLinksAreFollowedOnlyOnRequest() throws IOException {
+		touch("d/a.txt");
+		try {
+			Files.createSymbolicLink(root().resolve("link"), root().resolve("d"));
+			Files.createSymbolicLink(root().resolve("d/loop"), root());
+		} catch (UnsupportedOperationException | IOException ex) {
+			assumeTrue("symbolic links are not supported", false);
+		}
+		assertEquals(set("d/a.txt"), walk());
+		final var walker = new FileWalker(root()).setFollowLinks(true);
+		assertEquals(set("d/a.txt", "link/a.txt"), walk(walker));
+	}
+
+	@Test
+	public void loopsAreDetectedWithoutFileKeys() throws IOException {
+		touch("d/e/a.txt");
+		final var link = root().resolve("d/e/loop");
+		try {
+			Files.createSymbolicLink(link, root().resolve("d"));
+		} catch (UnsupportedOperationException | IOException ex) {
+			assumeTrue("symbolic links are not supported", false);
+		}
+		assertTrue(FileWalker.isSameDirectory(link, null, root().resolve("d"), null));
+		assertTrue(FileWalker.isSameDirectory(link, "key", root().resolve("d"), null));
+		assertFalse(FileWalker.isSameDirectory(link, null, root().resolve("d/e"), null));
+		assertFalse(FileWalker.isSameDirectory(root().resolve("missing"), null, root(), null));
+	}
+
+	@Test
+	public void findListsNothingForFileRoot() throws IOException {
+		touch("a.txt", "d/b.txt");
+		assertEquals(0, Find.listFiles(root().resolve("a.txt").toFile(), file -> true).length);
+		assertEquals(2, Find.listFiles(root().toFile(), file -> true).length);
+	}
+}
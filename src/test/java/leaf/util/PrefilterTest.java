@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link Prefilter}による必須の文字列の抽出と検索を検査します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class PrefilterTest {
+	private static String literal(String regex, int flags) {
+		final var filter = Prefilter.of(Pattern.compile(regex, flags), StandardCharsets.UTF_8);
+		return filter == null ? null : new String(filter.getBytes(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * パターンがマッチする文字列に、抽出された文字列が必ず含まれることを確かめます。
+	 */
+	private static void assertSound(String regex, int flags, String text, Charset chset) {
+		final var pattern = Pattern.compile(regex, flags);
+		assertTrue(regex + " must match " + text, pattern.matcher(text).find());
+		final var filter = Prefilter.of(pattern, chset);
+		if (filter == null) return;
+		final var buf = ByteBuffer.wrap(text.getBytes(chset));
+		assertTrue(regex + " prefilter rejects " + text, filter.indexOf(buf, 0, buf.limit()) >= 0);
+	}
+
+	private static void assertSound(String regex, String text) {
+		assertSound(regex, 0, text, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void extractsLongestTopLevelRun() {
+		assertEquals("foo.bar", literal("foo\\.bar", 0));
+		assertEquals("efgh", literal("ab(c|d)efgh", 0));
+		assertEquals("o world", literal("hel*o world", 0));
+		assertEquals("hello", literal("hello", Pattern.LITERAL));
+	}
+
+	@Test
+	public void rejectsPatternsWithoutRequiredLiteral() {
+		assertNull(literal("foo|bar", 0));
+		assertNull(literal("(?i)foobar", 0));
+		assertNull(literal("\\Qfoo\\E", 0));
+		assertNull(literal("a.b", 0));
+		assertNull(literal("foo bar", Pattern.COMMENTS));
+	}
+
+	@Test
+	public void dropsQuantifiedCharacters() {
+		assertEquals("abc", literal("abcd?", 0));
+		assertEquals("abc", literal("abcd*", 0));
+		assertEquals("abc", literal("abcd{0,2}", 0));
+	}
+
+	@Test
+	public void escapeArgumentsAreNotLiterals() {
+		assertSound("\\x41bc", "Abc");
+		assertSound("\\x{41}bcd", "Abcd");
+		assertSound("\\u00e9tude", "étude");
+		assertSound("\\0101xy", "Axy");
+		assertSound("\\011xyz", "\txyz");
+		assertSound("\\cAbcd", "\u0001bcd");
+		assertSound("\\p{Lu}abc", "Xabc");
+		assertSound("\\pLabc", "Xabc");
+		assertSound("\\P{Lu}abc", "xabc");
+		assertSound("(?<n>ab)\\k<n>cd", "ababcd");
+		assertSound("(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)\\10xy", "abcdefghijjxy");
+		assertSound("(ab)\\1xyz", "ababxyz");
+	}
+
+	@Test
+	public void escapeBreaksRun() {
+		assertEquals("abcd", literal("abcd\\x41ef", 0));
+		assertEquals("wxyz", literal("ab\\u0041wxyz", 0));
+		assertEquals("foo", literal("foo\\d+", 0));
+	}
+
+	@Test
+	public void foldsAsciiCaseWhenInsensitive() {
+		assertEquals("hello", literal("HeLLo", Pattern.CASE_INSENSITIVE));
+		assertSound("HeLLo", Pattern.CASE_INSENSITIVE, "say hello", StandardCharsets.UTF_8);
+		assertNull(literal("Été", Pattern.CASE_INSENSITIVE));
+	}
+
+	@Test
+	public void unicodeCaseExcludesSpecialLetters() {
+		assertSound("kelvin", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE, "Kelvin", StandardCharsets.UTF_8);
+		assertSound("ss", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE, "ſſ", StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void findsEncodedLiteral() {
+		final var filter = Prefilter.of(Pattern.compile("無線部"), StandardCharsets.UTF_8);
+		assertNotNull(filter);
+		final var text = "x 無線部開発班".getBytes(StandardCharsets.UTF_8);
+		assertEquals(2, filter.indexOf(ByteBuffer.wrap(text), 0, text.length));
+		assertEquals(-1, filter.indexOf(ByteBuffer.wrap(text), 3, text.length));
+	}
+
+	@Test
+	public void rejectsUnsupportedCharsets() {
+		assertNull(Prefilter.of(Pattern.compile("hello"), StandardCharsets.UTF_16));
+		assertNotNull(Prefilter.of(Pattern.compile("hello"), Charset.forName("EUC-JP")));
+		assertNull(Prefilter.of(Pattern.compile("あいう"), Charset.forName("EUC-JP")));
+	}
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Java Swing Library 'Leaf' and 'Tsukishiro Editor' since 2009 February 24th
+ * License: GNU General Public License v3+ (see LICENSE)
+ * Author: Journal of Hamradio Informatics (http://pafelog.net)
+*******************************************************************************/
+package leaf.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link TrigramIndex}の作成、併合、検索を検査します。
+ *
+ * @author 無線部開発班
+ * @since 2026/10/17
+ */
+public class TrigramIndexTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private Path root;
+	private Path store;
+	private TrigramIndex index;
+
+	@Before
+	public void setUp() throws IOException {
+		root = folder.newFolder("root").toPath();
+		store = folder.newFolder("store").toPath();
+		index = new TrigramIndex(root, store.resolve("test.tri"));
+	}
+
+	private void write(String name, String text) throws IOException {
+		final var path = root.resolve(name);
+		Files.createDirectories(path.getParent());
+		Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * 索引を新たに読み込んで、正規表現にマッチする可能性のあるファイルを返します。
+	 */
+	private Set<String> candidates(String regex) throws IOException {
+		final var reloaded = new TrigramIndex(root, index.getFile());
+		final var filter = reloaded.filter(Pattern.compile(regex), StandardCharsets.UTF_8);
+		try (var walker = new FileWalker(root)) {
+			return walker.stream().filter(path -> {
+				try {
+					return filter.test(path, Files.readAttributes(path, BasicFileAttributes.class));
+				} catch (IOException ex) {
+					throw new AssertionError(ex);
+				}
+			}).map(path -> root.relativize(path).toString().replace('\\', '/')).collect(Collectors.toCollection(TreeSet::new));
+		}
+	}
+
+	private static Set<String> set(String... names) {
+		return new TreeSet<>(Set.of(names));
+	}
+
+	private long generations() throws IOException {
+		try (var files = Files.list(store)) {
+			return files.filter(path -> !path.getFileName().toString().startsWith(".")).count();
+		}
+	}
+
+	@Test
+	public void emptyIndexSelectsEverything() throws IOException {
+		write("a.txt", "alpha");
+		write("b.txt", "beta");
+		assertEquals(set("a.txt", "b.txt"), candidates("gamma"));
+	}
+
+	@Test
+	public void buildAndQuery() throws IOException {
+		write("a.txt", "the quick brown fox");
+		write("d/b.txt", "jumps over the lazy dog");
+		write("d/e/c.txt", "QUICK Silver");
+		index.update();
+		assertEquals(3, new TrigramIndex(root, index.getFile()).getFileCount());
+		assertEquals(set("a.txt", "d/e/c.txt"), candidates("quick"));
+		assertEquals(set("d/b.txt"), candidates("lazy\\s+dog"));
+		assertEquals(set(), candidates("zebra"));
+		assertEquals(set("a.txt", "d/b.txt", "d/e/c.txt"), candidates("fo|do"));
+	}
+
+	@Test
+	public void updateMergesChanges() throws IOException {
+		write("a.txt", "first apple");
+		write("b.txt", "first banana");
+		write("c.txt", "cherry");
+		index.update();
+		write("a.txt", "second apricot");
+		Files.setLastModifiedTime(root.resolve("a.txt"), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+		Files.delete(root.resolve("c.txt"));
+		write("d.txt", "durian cherry");
+		index.update();
+		assertEquals(3, new TrigramIndex(root, index.getFile()).getFileCount());
+		assertEquals(set("b.txt"), candidates("first"));
+		assertEquals(set("a.txt"), candidates("apricot"));
+		assertEquals(set("d.txt"), candidates("cherry"));
+		assertEquals(set("b.txt"), candidates("banana"));
+	}
+
+	@Test
+	public void batchesAreMergedIntoOneIndex() throws IOException {
+		for (var i = 0; i < 20; i++) write("f" + i + ".txt", "common word" + i + " unique" + (char) ('a' + i) + "zz");
+		index.batchSize = 1;
+		index.update();
+		assertEquals(20, candidates("common").size());
+		assertEquals(set("f7.txt"), candidates("uniquehzz"));
+		assertEquals(1, generations());
+	}
+
+	@Test
+	public void changedFilesAreAlwaysCandidates() throws IOException {
+		write("a.txt", "old content");
+		index.update();
+		write("a.txt", "new material here");
+		Files.setLastModifiedTime(root.resolve("a.txt"), FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+		write("b.txt", "new file");
+		assertEquals(set("a.txt", "b.txt"), candidates("material"));
+	}
+
+	@Test
+	public void oldGenerationsAreRemoved() throws IOException {
+		write("a.txt", "alpha");
+		index.update();
+		write("b.txt", "beta");
+		index.update();
+		assertEquals(1, generations());
+		assertTrue(Files.exists(store.resolve("test.tri.2")));
+		assertEquals(set("b.txt"), candidates("beta"));
+	}
+
+	@Test
+	public void walkerExclusionsAreApplied() throws IOException {
+		write("src/a.txt", "needle");
+		write(".git/objects/x", "needle");
+		write("build/out.txt", "needle");
+		write(".gitignore", "build/");
+		final var walker = new FileWalker(root).addExclude(".git/").setIgnoreFileName(".gitignore");
+		index.update(walker, new Task<>());
+		assertEquals(2, new TrigramIndex(root, index.getFile()).getFileCount());
+		assertEquals(set(".git/objects/x", "build/out.txt", "src/a.txt"), candidates("needle"));
+		assertEquals(set(".git/objects/x", "build/out.txt"), candidates("haystack"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void walkerMustShareRoot() throws IOException {
+		index.update(new FileWalker(root.resolve("sub")), new Task<>());
+	}
+}